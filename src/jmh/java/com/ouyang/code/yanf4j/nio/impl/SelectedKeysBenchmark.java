@@ -0,0 +1,147 @@
+package com.ouyang.code.yanf4j.nio.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one reactor loop,a selectNow and the dispatch of the selected keys,
+ * with 1k and 10k registered channels of which 64 are readable.
+ * <p>
+ * legacy walks the JDK selected-key HashSet with an iterator and then scans
+ * all registered keys for idle and expired sessions as postSelect did,
+ * current walks the array set installed by {@link SelectedSelectionKeySet}
+ * and leaves idle checks to the timer wheel.Datagram channels stand in for
+ * connections,one file descriptor each,and stay readable since nothing is
+ * read.
+ *
+ * @author ouyang
+ * @since 2026-10-18 12:00
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+IgnoreUnrecognizedVMOptions",
+        "--add-opens=java.base/sun.nio.ch=ALL-UNNAMED"})
+@State(Scope.Thread)
+public class SelectedKeysBenchmark {
+
+    private static final int READY = 64;
+
+    @Param({"1000", "10000"})
+    public int connections;
+
+    @Param({"legacy", "current"})
+    public String reactor;
+
+    private Selector selector;
+    private SelectedSelectionKeySet keySet;
+    private DatagramChannel[] channels;
+    private DatagramChannel sender;
+    private long now;
+
+    @Setup
+    public void setUp() throws IOException {
+        selector = Selector.open();
+        if ("current".equals(reactor)) {
+            keySet = SelectedSelectionKeySet.install(selector);
+            if (keySet == null) {
+                throw new IllegalStateException("Could not install the selected-key set");
+            }
+        }
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        channels = new DatagramChannel[connections];
+        for (int i = 0; i < connections; i++) {
+            channels[i] = DatagramChannel.open();
+            channels[i].bind(new InetSocketAddress(loopback, 0));
+            channels[i].configureBlocking(false);
+            // stands in for the session attached to a key
+            channels[i].register(selector, SelectionKey.OP_READ, new long[]{System.currentTimeMillis()});
+        }
+        sender = DatagramChannel.open();
+        for (int i = 0; i < READY; i++) {
+            int index = (int) ((long) i * connections / READY);
+            sender.send(ByteBuffer.wrap(new byte[]{1}), channels[index].getLocalAddress());
+        }
+        int ready = 0;
+        for (int i = 0; i < 100 && ready < READY; i++) {
+            ready = selector.selectNow();
+            if (keySet != null) {
+                keySet.reset();
+            } else {
+                selector.selectedKeys().clear();
+            }
+            if (ready < READY) {
+                sleep();
+            }
+        }
+        if (ready != READY) {
+            throw new IllegalStateException(ready + " channels readable");
+        }
+        now = System.currentTimeMillis();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        selector.close();
+        for (DatagramChannel channel : channels) {
+            channel.close();
+        }
+        sender.close();
+    }
+
+    @Benchmark
+    public int loop(Blackhole blackhole) throws IOException {
+        int selected = selector.selectNow();
+        if (keySet != null) {
+            SelectionKey[] keys = keySet.keys;
+            for (int i = 0; i < keySet.size; i++) {
+                blackhole.consume(keys[i].readyOps());
+            }
+            keySet.reset();
+        } else {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                blackhole.consume(key.readyOps());
+            }
+            // postSelect:check every session for idle and expiry
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid()) {
+                    blackhole.consume(now - ((long[]) key.attachment())[0] > 60000L);
+                }
+            }
+        }
+        return selected;
+    }
+}
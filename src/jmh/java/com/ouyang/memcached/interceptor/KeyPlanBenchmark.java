@@ -0,0 +1,143 @@
+package com.ouyang.memcached.interceptor;
+
+import com.alibaba.fastjson.JSON;
+import com.ouyang.memcached.annotation.MemcacheNamespaceKey;
+import com.ouyang.memcached.annotation.MemcachePrimaryKey;
+import com.ouyang.xmemcached.utils.ByteUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 切面每次调用生成 key 的开销：原来每次解析注解、json 序列化参数类型和参数、md5，
+ * 和 KeyPlan 缓存解析结果后只拼接参数
+ *
+ * @author ouyang
+ * @since 2026-10-18 11:30
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyPlanBenchmark {
+
+    private static final String DAO_CLASS_NAME = "com.ouyang.demo.dao.impl.UserDaoImpl";
+
+    public interface UserDao {
+        Object findById(@MemcachePrimaryKey Long id);
+
+        List<Object> findByCompany(@MemcacheNamespaceKey Long companyId, String status, int page, int size);
+    }
+
+    private Method findById;
+    private Method findByCompany;
+    private Object[] findByIdArgs;
+    private Object[] findByCompanyArgs;
+
+    @Setup
+    public void setUp() throws Exception {
+        findById = UserDao.class.getMethod("findById", Long.class);
+        findByCompany = UserDao.class.getMethod("findByCompany", Long.class, String.class, int.class, int.class);
+        findByIdArgs = new Object[]{10086L};
+        findByCompanyArgs = new Object[]{42L, "ACTIVE", 3, 20};
+        if (!primaryKeyLegacy().equals(primaryKeyPlan()) || !methodKeyLegacy().equals(methodKeyPlan())) {
+            throw new IllegalStateException("KeyPlan generates different keys");
+        }
+    }
+
+    @Benchmark
+    public String primaryKeyLegacy() {
+        List<String> primaryKeyArgs = new ArrayList<>();
+        List<String> namespaceKeyArgs = new ArrayList<>();
+        collectKeyArgs(findById, findByIdArgs, primaryKeyArgs, namespaceKeyArgs);
+        return legacyFinish(DAO_CLASS_NAME + primaryKeyArgs.get(0));
+    }
+
+    @Benchmark
+    public String primaryKeyPlan() {
+        return KeyPlan.of(findById).primaryKey(DAO_CLASS_NAME, findByIdArgs);
+    }
+
+    @Benchmark
+    public String methodKeyLegacy() {
+        List<String> primaryKeyArgs = new ArrayList<>();
+        List<String> namespaceKeyArgs = new ArrayList<>();
+        collectKeyArgs(findByCompany, findByCompanyArgs, primaryKeyArgs, namespaceKeyArgs);
+        String namespaceKey = legacyFinish(DAO_CLASS_NAME + namespaceKeyArgs.get(0));
+        String memcachedKey = "1760000000000" + '_' +
+                              DAO_CLASS_NAME + '_' +
+                              findByCompany.getName() + '_' +
+                              JSON.toJSONString(findByCompany.getParameterTypes()) +
+                              JSON.toJSONString(findByCompanyArgs) +
+                              findByCompany.getReturnType().getName();
+        return namespaceKey.length() > 0 ? legacyFinish(memcachedKey) : null;
+    }
+
+    @Benchmark
+    public String methodKeyPlan() {
+        KeyPlan plan = KeyPlan.of(findByCompany);
+        String namespaceKey = plan.namespaceKey(DAO_CLASS_NAME, findByCompanyArgs);
+        return namespaceKey.length() > 0
+               ? plan.methodKey("1760000000000", DAO_CLASS_NAME, findByCompanyArgs) : null;
+    }
+
+    /**
+     * 原切面中逐个参数检查注解
+     */
+    private static void collectKeyArgs(Method method, Object[] args, List<String> primaryKeyArgs,
+                                       List<String> namespaceKeyArgs) {
+        Annotation[][] paramsAnoAry = method.getParameterAnnotations();
+        for (int i = 0; i < paramsAnoAry.length; i++) {
+            for (Annotation annotation : paramsAnoAry[i]) {
+                if (annotation instanceof MemcacheNamespaceKey && args[i] != null) {
+                    namespaceKeyArgs.add(args[i].toString());
+                }
+                if (annotation instanceof MemcachePrimaryKey && args[i] != null) {
+                    primaryKeyArgs.add(args[i].toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * 原切面中的长度检查和 md5
+     */
+    private static String legacyFinish(String key) {
+        return ByteUtils.getBytes(key).length > 250 ? legacyMD5(key.getBytes()) : key;
+    }
+
+    private static String legacyMD5(byte[] bytes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] b = md.digest(bytes);
+            StringBuffer buf = new StringBuffer();
+            for (byte value : b) {
+                int i = value & 0xff;
+                if (i < 16) {
+                    buf.append("0");
+                }
+                buf.append(Integer.toHexString(i));
+            }
+            return buf.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
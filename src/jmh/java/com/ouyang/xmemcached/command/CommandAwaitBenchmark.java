@@ -0,0 +1,122 @@
+package com.ouyang.xmemcached.command;
+
+import com.ouyang.xmemcached.command.text.TextGetOneCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completing and waiting for a command with a per-command CountDownLatch
+ * versus the parking await of {@link Command}.
+ * <p>
+ * The local benchmarks complete the command on the calling thread,the
+ * handoff benchmarks let one completer thread,standing in for the reactor,
+ * complete the commands of all benchmark threads while they wait.
+ *
+ * @author ouyang
+ * @since 2026-10-18 11:45
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandAwaitBenchmark {
+
+    private static final byte[] KEY = {'k'};
+
+    private static Command newCommand(boolean latch) {
+        return new TextGetOneCommand("k", KEY, CommandType.GET_ONE,
+                latch ? new CountDownLatch(1) : null);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Completer {
+        @Param({"latch", "park"})
+        public String primitive;
+
+        final LinkedBlockingQueue<Command> queue = new LinkedBlockingQueue<Command>();
+        private Thread thread;
+
+        @Setup(Level.Trial)
+        public void start() {
+            thread = new Thread("completer") {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            queue.take().countDownLatch();
+                        }
+                    } catch (InterruptedException e) {
+                        // stopped
+                    }
+                }
+            };
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            thread.interrupt();
+            thread.join();
+        }
+
+        boolean latch() {
+            return "latch".equals(primitive);
+        }
+    }
+
+    @Benchmark
+    public boolean localLatch() throws InterruptedException {
+        Command command = newCommand(true);
+        command.countDownLatch();
+        return command.await(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public boolean localPark() throws InterruptedException {
+        Command command = newCommand(false);
+        command.countDownLatch();
+        return command.await(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean handoff1(Completer completer) throws InterruptedException {
+        return handoff(completer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean handoff4(Completer completer) throws InterruptedException {
+        return handoff(completer);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean handoff16(Completer completer) throws InterruptedException {
+        return handoff(completer);
+    }
+
+    private static boolean handoff(Completer completer) throws InterruptedException {
+        Command command = newCommand(completer.latch());
+        completer.queue.offer(command);
+        return command.await(1, TimeUnit.SECONDS);
+    }
+}
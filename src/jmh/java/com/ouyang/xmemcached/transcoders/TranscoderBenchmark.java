@@ -0,0 +1,117 @@
+package com.ouyang.xmemcached.transcoders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost and entry size of {@link SerializingTranscoder}
+ * (java serialization) and {@link CompactTranscoder},with and without the
+ * value classes registered.The entry sizes are printed by the setup.
+ *
+ * @author ouyang
+ * @since 2026-10-18 11:40
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranscoderBenchmark {
+
+    public static class User implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private long id;
+        private String name;
+        private String email;
+        private int age;
+        private boolean active;
+        private double score;
+        private Date createdAt;
+        private List<String> tags;
+
+        public User() {
+        }
+
+        User(long id) {
+            this.id = id;
+            this.name = "user" + id;
+            this.email = "user" + id + "@example.com";
+            this.age = 20 + (int) (id % 50);
+            this.active = id % 3 != 0;
+            this.score = id * 1.5;
+            this.createdAt = new Date(1700000000000L + id);
+            this.tags = new ArrayList<String>(Arrays.asList("vip", "beta", "t" + id % 7));
+        }
+    }
+
+    @Param({"user", "users"})
+    public String payload;
+
+    @Param({"java", "compact", "compactRegistered"})
+    public String transcoder;
+
+    private Transcoder<Object> codec;
+    private Object value;
+    private CachedData encoded;
+
+    @Setup
+    public void setUp() {
+        if ("java".equals(transcoder)) {
+            codec = new SerializingTranscoder();
+        } else {
+            CompactTranscoder compact = new CompactTranscoder();
+            if ("compactRegistered".equals(transcoder)) {
+                compact.register(User.class);
+            }
+            codec = compact;
+        }
+        if ("user".equals(payload)) {
+            value = new User(10086);
+        } else {
+            List<User> users = new ArrayList<User>();
+            for (int i = 0; i < 20; i++) {
+                users.add(new User(i));
+            }
+            value = users;
+        }
+        encoded = codec.encode(value);
+        if (codec.decode(copy(encoded)) == null) {
+            throw new IllegalStateException("Could not decode " + payload);
+        }
+        System.out.println();
+        System.out.println(transcoder + " " + payload + ": " + encoded.getData().length + " bytes,flag "
+                + encoded.getFlag());
+    }
+
+    private static CachedData copy(CachedData data) {
+        return new CachedData(data.getFlag(), data.getData(), CachedData.MAX_SIZE, -1);
+    }
+
+    @Benchmark
+    public CachedData encode() {
+        return codec.encode(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        // a new CachedData,decode caches the object in it
+        return codec.decode(copy(encoded));
+    }
+}
@@ -87,7 +87,7 @@ public abstract class AbstractIoBuffer extends IoBuffer {
      * @param initialCapacity The initial buffer capacity when created
      */
     protected AbstractIoBuffer(IoBufferAllocator allocator, int initialCapacity) {
-        setAllocator(allocator);
+        // the allocator is global,setting it here would dispose the current one
         this.recapacityAllowed = true;
         this.derived = false;
         this.minimumCapacity = initialCapacity;
@@ -101,7 +101,6 @@ public abstract class AbstractIoBuffer extends IoBuffer {
      * @param parent The buffer we get the properties from
      */
     protected AbstractIoBuffer(AbstractIoBuffer parent) {
-        setAllocator(getAllocator());
         this.recapacityAllowed = false;
         this.derived = true;
         this.minimumCapacity = parent.minimumCapacity;
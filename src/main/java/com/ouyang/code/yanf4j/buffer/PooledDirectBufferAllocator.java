@@ -0,0 +1,286 @@
+package com.ouyang.code.yanf4j.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * An {@link IoBufferAllocator} which pools direct buffers by power of two size
+ * classes.
+ * <p>
+ * Unlike {@link CachedBufferAllocator} the pools are shared by all threads,a
+ * buffer allocated by a client thread can be returned by the reactor thread
+ * that wrote it.A buffer is returned to its pool by {@link IoBuffer#free()}
+ * called by the last thread using it,only the first free returns it and the
+ * following ones do nothing;a buffer never freed is reclaimed by the garbage
+ * collector like any direct buffer.Heap
+ * buffers,wrapped buffers,derived buffers and buffers larger than the max
+ * pooled size are never pooled,freeing them does nothing.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:40
+ */
+public class PooledDirectBufferAllocator implements IoBufferAllocator {
+
+    public static final int DEFAULT_MAX_POOL_SIZE = 512;
+    public static final int DEFAULT_MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MIN_POOLED_BUFFER_SHIFT = 6; // 64 bytes
+
+    private static final AtomicReferenceFieldUpdater<PooledBuffer, ByteBuffer> CHUNK_UPDATER = AtomicReferenceFieldUpdater
+            .newUpdater(PooledBuffer.class, ByteBuffer.class, "chunk");
+
+    // controllers using the installed allocator,guarded by the class lock
+    private static int installCount;
+    private static boolean replacedUseDirectBuffer;
+
+    private final int maxPoolSize;
+    private final int maxPooledBufferSize;
+    private final SizeClass[] sizeClasses;
+
+    public PooledDirectBufferAllocator() {
+        this(DEFAULT_MAX_POOL_SIZE, DEFAULT_MAX_POOLED_BUFFER_SIZE);
+    }
+
+    /**
+     * @param maxPoolSize         max idle buffers kept per size class
+     * @param maxPooledBufferSize max capacity of a pooled buffer,rounded up to a
+     *                            power of two
+     */
+    public PooledDirectBufferAllocator(int maxPoolSize, int maxPooledBufferSize) {
+        if (maxPoolSize <= 0) {
+            throw new IllegalArgumentException("maxPoolSize<=0");
+        }
+        if (maxPooledBufferSize <= 0 || maxPooledBufferSize > 1 << 30) {
+            throw new IllegalArgumentException(
+                    "maxPooledBufferSize must be in (0,2^30]");
+        }
+        this.maxPoolSize = maxPoolSize;
+        int classes = Math.max(1, sizeClassIndex(maxPooledBufferSize) + 1);
+        this.sizeClasses = new SizeClass[classes];
+        for (int i = 0; i < classes; i++) {
+            this.sizeClasses[i] = new SizeClass(1 << (MIN_POOLED_BUFFER_SHIFT + i));
+        }
+        this.maxPooledBufferSize = this.sizeClasses[classes - 1].size;
+    }
+
+    /**
+     * Make {@link IoBuffer#allocate(int)} return pooled direct buffers.The
+     * IoBuffer allocator is static,so this affects every IoBuffer user in the
+     * class loader,not only the caller.It is refused if an allocator other
+     * than the default {@link SimpleBufferAllocator} has been set,an
+     * application choosing its own allocator keeps it.Every successful
+     * install must be paired with an {@link #uninstall()},the default
+     * allocator is restored when the last one is uninstalled.
+     *
+     * @return true if installed,false if another allocator is in use
+     */
+    public static synchronized boolean install() {
+        IoBufferAllocator current = IoBuffer.getAllocator();
+        if (installCount == 0) {
+            if (current.getClass() != SimpleBufferAllocator.class) {
+                return false;
+            }
+            replacedUseDirectBuffer = IoBuffer.isUseDirectBuffer();
+            IoBuffer.setAllocator(new PooledDirectBufferAllocator());
+            IoBuffer.setUseDirectBuffer(true);
+        } else if (!(current instanceof PooledDirectBufferAllocator)) {
+            // replaced by the application since the first install
+            return false;
+        }
+        installCount++;
+        return true;
+    }
+
+    /**
+     * Undo a successful {@link #install()},the last one restores the default
+     * allocator unless the application has replaced it in the meantime
+     */
+    public static synchronized void uninstall() {
+        if (installCount == 0 || --installCount > 0) {
+            return;
+        }
+        if (IoBuffer.getAllocator() instanceof PooledDirectBufferAllocator) {
+            IoBuffer.setAllocator(new SimpleBufferAllocator());
+            IoBuffer.setUseDirectBuffer(replacedUseDirectBuffer);
+        }
+    }
+
+    private static int sizeClassIndex(int capacity) {
+        if (capacity <= 1 << MIN_POOLED_BUFFER_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1)
+                - MIN_POOLED_BUFFER_SHIFT;
+    }
+
+    public IoBuffer allocate(int capacity, boolean direct) {
+        if (!direct || capacity == 0 || capacity > this.maxPooledBufferSize) {
+            return new PooledBuffer(allocateNioBuffer(capacity, direct), null,
+                    null);
+        }
+        SizeClass sizeClass = this.sizeClasses[sizeClassIndex(capacity)];
+        ByteBuffer chunk = sizeClass.poll();
+        chunk.clear();
+        chunk.limit(capacity);
+        // slice to the requested capacity,callers rely on it
+        return new PooledBuffer(chunk.slice(), chunk, sizeClass);
+    }
+
+    /**
+     * Buffers allocated here,for example by auto expanding,are not pooled
+     */
+    public ByteBuffer allocateNioBuffer(int capacity, boolean direct) {
+        if (direct) {
+            return ByteBuffer.allocateDirect(capacity);
+        } else {
+            return ByteBuffer.allocate(capacity);
+        }
+    }
+
+    public IoBuffer wrap(ByteBuffer nioBuffer) {
+        return new PooledBuffer(nioBuffer, null, null);
+    }
+
+    /**
+     * Drop the idle buffers,buffers in use are no longer pooled when freed
+     */
+    public void dispose() {
+        for (SizeClass sizeClass : this.sizeClasses) {
+            sizeClass.disposed = true;
+            sizeClass.queue.clear();
+            sizeClass.count.set(0);
+        }
+    }
+
+    /**
+     * @return the total capacity of the idle pooled buffers,in bytes
+     */
+    public long getPooledBytes() {
+        long bytes = 0;
+        for (SizeClass sizeClass : this.sizeClasses) {
+            bytes += (long) sizeClass.count.get() * sizeClass.size;
+        }
+        return bytes;
+    }
+
+    private final class SizeClass {
+        private final int size;
+        private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<ByteBuffer>();
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile boolean disposed;
+
+        SizeClass(int size) {
+            this.size = size;
+        }
+
+        ByteBuffer poll() {
+            ByteBuffer chunk = this.queue.poll();
+            if (chunk == null) {
+                return ByteBuffer.allocateDirect(this.size);
+            }
+            this.count.decrementAndGet();
+            return chunk;
+        }
+
+        void offer(ByteBuffer chunk) {
+            if (this.disposed) {
+                return;
+            }
+            if (this.count.incrementAndGet() > maxPoolSize) {
+                this.count.decrementAndGet();
+                return;
+            }
+            this.queue.offer(chunk);
+        }
+    }
+
+    private class PooledBuffer extends AbstractIoBuffer {
+        private ByteBuffer buf;
+        // the pooled buffer backing buf,null if not pooled or already freed
+        volatile ByteBuffer chunk;
+        private final SizeClass sizeClass;
+
+        protected PooledBuffer(ByteBuffer buf, ByteBuffer chunk,
+                               SizeClass sizeClass) {
+            super(PooledDirectBufferAllocator.this, buf.capacity());
+            this.buf = buf;
+            this.chunk = chunk;
+            this.sizeClass = sizeClass;
+            buf.order(ByteOrder.BIG_ENDIAN);
+        }
+
+        protected PooledBuffer(PooledBuffer parent, ByteBuffer buf) {
+            super(parent);
+            this.buf = buf;
+            this.sizeClass = null;
+        }
+
+        @Override
+        public ByteBuffer buf() {
+            if (this.buf == null) {
+                throw new IllegalStateException("Buffer has been freed already.");
+            }
+            return this.buf;
+        }
+
+        @Override
+        protected void buf(ByteBuffer buf) {
+            // expanded into an unpooled buffer
+            this.buf = buf;
+            this.release();
+        }
+
+        @Override
+        protected IoBuffer duplicate0() {
+            return new PooledBuffer(this, buf().duplicate());
+        }
+
+        @Override
+        protected IoBuffer slice0() {
+            return new PooledBuffer(this, buf().slice());
+        }
+
+        @Override
+        protected IoBuffer asReadOnlyBuffer0() {
+            return new PooledBuffer(this, buf().asReadOnlyBuffer());
+        }
+
+        @Override
+        public byte[] array() {
+            return buf().array();
+        }
+
+        @Override
+        public int arrayOffset() {
+            return buf().arrayOffset();
+        }
+
+        @Override
+        public boolean hasArray() {
+            return buf().hasArray();
+        }
+
+        @Override
+        public void free() {
+            if (this.chunk != null) {
+                this.buf = null;
+                this.release();
+            }
+        }
+
+        /**
+         * Return the chunk to its pool once,frees racing from the reactor and
+         * the client thread must not offer it twice
+         */
+        private void release() {
+            ByteBuffer chunk = this.chunk;
+            if (chunk != null && CHUNK_UPDATER.compareAndSet(this, chunk, null)) {
+                this.sizeClass.offer(chunk);
+            }
+        }
+    }
+}
@@ -56,10 +56,39 @@ public class Configuration {
      */
     private int readThreadCount = 1;
     /**
-     * check session idle interval
+     * check session idle interval,no longer used:every session is checked
+     * when its own timeouts may have passed
      */
     private volatile long checkSessionTimeoutInterval = 1000L;
     private volatile long sessionIdleTimeout = 5000L;
+    /**
+     * Reactor count,0 means using the controller's default
+     */
+    private int selectorPoolSize = 0;
+    /**
+     * Max queued messages written by one gathering write,1 means writing
+     * messages one by one
+     */
+    private int maxGatheringWrites = 64;
+    /**
+     * Max bytes gathered by one gathering write
+     */
+    private int maxGatheringBytes = 64 * 1024;
+    /**
+     * Use pooled direct buffers for session read buffers and encoded messages
+     */
+    private boolean directBuffer = false;
+    /**
+     * Bounds of the session read buffer,it grows and shrinks between them
+     * with the size of recent reads
+     */
+    private int minReadBufferSize = 1024;
+    private int maxReadBufferSize = MAX_READ_BUFFER_SIZE;
+    /**
+     * Keep OP_READ registered while reading on the reactor thread,off by
+     * default
+     */
+    private boolean keepReadInterest = false;
 
     public final int getWriteThreadCount() {
         return this.writeThreadCount;
@@ -156,12 +185,151 @@ public class Configuration {
         this.readThreadCount = readThreadCount;
     }
 
+    /**
+     * @deprecated sessions are checked on a timer wheel when their timeouts
+     * may have passed,this setting is ignored
+     */
+    @Deprecated
     public long getCheckSessionTimeoutInterval() {
         return this.checkSessionTimeoutInterval;
     }
 
+    /**
+     * @deprecated this setting is ignored
+     */
+    @Deprecated
     public void setCheckSessionTimeoutInterval(long checkSessionTimeoutInterval) {
         this.checkSessionTimeoutInterval = checkSessionTimeoutInterval;
     }
 
+    /**
+     * @return
+     * @see setSelectorPoolSize
+     */
+    public final int getSelectorPoolSize() {
+        return this.selectorPoolSize;
+    }
+
+    public final void setSelectorPoolSize(int selectorPoolSize) {
+        if (selectorPoolSize < 0) {
+            throw new IllegalArgumentException("selectorPoolSize<0");
+        }
+        this.selectorPoolSize = selectorPoolSize;
+    }
+
+    public final int getMaxGatheringWrites() {
+        return this.maxGatheringWrites;
+    }
+
+    /**
+     * Set max queued messages written by one gathering write.A session
+     * drains up to this many messages from its write queue and writes their
+     * buffers with a single GatheringByteChannel.write call instead of one
+     * call per message.1 disables gathering.
+     *
+     * @param maxGatheringWrites
+     */
+    public final void setMaxGatheringWrites(int maxGatheringWrites) {
+        if (maxGatheringWrites < 1) {
+            throw new IllegalArgumentException("maxGatheringWrites<1");
+        }
+        this.maxGatheringWrites = maxGatheringWrites;
+    }
+
+    public final int getMaxGatheringBytes() {
+        return this.maxGatheringBytes;
+    }
+
+    /**
+     * Set max bytes gathered by one gathering write,messages are no longer
+     * gathered once this many bytes are pending.
+     *
+     * @param maxGatheringBytes
+     */
+    public final void setMaxGatheringBytes(int maxGatheringBytes) {
+        if (maxGatheringBytes <= 0) {
+            throw new IllegalArgumentException("maxGatheringBytes<=0");
+        }
+        this.maxGatheringBytes = maxGatheringBytes;
+    }
+
+    public final int getMinReadBufferSize() {
+        return this.minReadBufferSize;
+    }
+
+    /**
+     * Set the size a session read buffer may shrink to when recent reads are
+     * small,a value not less than the session read buffer size keeps buffers
+     * from shrinking
+     *
+     * @param minReadBufferSize
+     */
+    public final void setMinReadBufferSize(int minReadBufferSize) {
+        if (minReadBufferSize <= 0) {
+            throw new IllegalArgumentException("minReadBufferSize<=0");
+        }
+        this.minReadBufferSize = minReadBufferSize;
+    }
+
+    public final int getMaxReadBufferSize() {
+        return this.maxReadBufferSize;
+    }
+
+    /**
+     * Set the size a session read buffer may grow to for large responses
+     *
+     * @param maxReadBufferSize
+     */
+    public final void setMaxReadBufferSize(int maxReadBufferSize) {
+        if (maxReadBufferSize <= 0) {
+            throw new IllegalArgumentException("maxReadBufferSize<=0");
+        }
+        this.maxReadBufferSize = maxReadBufferSize;
+    }
+
+    public final boolean isKeepReadInterest() {
+        return this.keepReadInterest;
+    }
+
+    /**
+     * Keep the read interest of a session registered while the reactor
+     * thread reads it.A session is read until the socket is drained,so the
+     * level-triggered selector only selects it again for new data and the
+     * interest doesn't have to be removed before and restored after every
+     * read.Only applies when read events are handled on the reactor
+     * thread,that is when readThreadCount is 0,a read thread pool still
+     * needs the interest removed while a read is pending.
+     * <p>
+     * Opt-in,it stands in for edge-triggered epoll which java nio does not
+     * offer.While it is on a session whose receive queue is full stays
+     * read-ready and is selected on every select,off keeps the default
+     * remove-and-restore handling of the read interest.
+     *
+     * @param keepReadInterest
+     */
+    public final void setKeepReadInterest(boolean keepReadInterest) {
+        this.keepReadInterest = keepReadInterest;
+    }
+
+    public final boolean isDirectBuffer() {
+        return this.directBuffer;
+    }
+
+    /**
+     * Use direct buffers for session read buffers and messages encoded by
+     * IoBuffer.allocate,small buffers are pooled by
+     * {@link com.ouyang.code.yanf4j.buffer.PooledDirectBufferAllocator} and
+     * returned by IoBuffer.free.Direct buffers are written to the socket
+     * without the JDK copying them into a temporary direct buffer first.The
+     * IoBuffer allocator is static,while a controller with this option is
+     * started all IoBuffers of the class loader are allocated by it.It is not
+     * installed if the application has set an allocator of its own,and the
+     * default allocator is restored once the last such controller stops.
+     *
+     * @param directBuffer
+     */
+    public final void setDirectBuffer(boolean directBuffer) {
+        this.directBuffer = directBuffer;
+    }
+
 }
@@ -42,6 +42,7 @@
  */
 package com.ouyang.code.yanf4j.core.impl;
 
+import com.ouyang.code.yanf4j.buffer.PooledDirectBufferAllocator;
 import com.ouyang.code.yanf4j.config.Configuration;
 import com.ouyang.code.yanf4j.core.*;
 import com.ouyang.code.yanf4j.statistics.Statistics;
@@ -119,6 +120,10 @@ public abstract class AbstractController implements Controller,
     protected Set<Session> sessionSet = new ConcurrentHashSet<Session>();
     private Thread shutdownHookThread;
     private volatile boolean isHutdownHookCalled = false;
+    /**
+     * Whether start() installed the pooled direct buffer allocator
+     */
+    private boolean pooledAllocatorInstalled;
 
     public AbstractController() {
         this(new Configuration(), null, null);
@@ -342,6 +347,12 @@ public abstract class AbstractController implements Controller,
         if (getCodecFactory() == null) {
             setCodecFactory(new ByteBufferCodecFactory());
         }
+        if (configuration.isDirectBuffer()) {
+            pooledAllocatorInstalled = PooledDirectBufferAllocator.install();
+            if (!pooledAllocatorInstalled) {
+                log.warn("Another IoBuffer allocator is in use,direct buffers are not pooled");
+            }
+        }
         setStarted(true);
         setReadEventDispatcher(DispatcherFactory.newDispatcher(
                 getReadThreadCount(),
@@ -479,6 +490,10 @@ public abstract class AbstractController implements Controller,
         notifyStopped();
         clearStateListeners();
         stop0();
+        if (pooledAllocatorInstalled) {
+            pooledAllocatorInstalled = false;
+            PooledDirectBufferAllocator.uninstall();
+        }
         if (!isHutdownHookCalled) {
             Runtime.getRuntime().removeShutdownHook(shutdownHookThread);
         }
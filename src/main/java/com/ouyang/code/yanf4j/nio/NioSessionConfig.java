@@ -59,18 +59,30 @@ public class NioSessionConfig extends SessionConfig {
 
     public final SelectableChannel selectableChannel;
     public final SelectorManager selectorManager;
+    public final int maxGatheringWrites;
+    public final int maxGatheringBytes;
+    public final int minReadBufferSize;
+    public final int maxReadBufferSize;
+    public final boolean keepReadInterest;
 
     public NioSessionConfig(SelectableChannel sc, Handler handler,
                             SelectorManager reactor, CodecFactory codecFactory,
                             Statistics statistics, Queue<WriteMessage> queue,
                             Dispatcher dispatchMessageDispatcher,
                             boolean handleReadWriteConcurrently, long sessionTimeout,
-                            long sessionIdleTimeout) {
+                            long sessionIdleTimeout, int maxGatheringWrites,
+                            int maxGatheringBytes, int minReadBufferSize,
+                            int maxReadBufferSize, boolean keepReadInterest) {
         super(handler, codecFactory, statistics, queue,
                 dispatchMessageDispatcher, handleReadWriteConcurrently,
                 sessionTimeout, sessionIdleTimeout);
         this.selectableChannel = sc;
         this.selectorManager = reactor;
+        this.maxGatheringWrites = maxGatheringWrites;
+        this.maxGatheringBytes = maxGatheringBytes;
+        this.minReadBufferSize = minReadBufferSize;
+        this.maxReadBufferSize = maxReadBufferSize;
+        this.keepReadInterest = keepReadInterest;
     }
 
 }
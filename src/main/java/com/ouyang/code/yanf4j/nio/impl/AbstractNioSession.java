@@ -12,6 +12,8 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 
 /**
  * Abstract nio session
@@ -23,11 +25,31 @@ public abstract class AbstractNioSession extends AbstractSession implements
 
     protected SelectorManager selectorManager;
     protected SelectableChannel selectableChannel;
+    protected final int maxGatheringWrites;
+    protected final int maxGatheringBytes;
+    protected final boolean keepReadInterest;
+    /**
+     * Messages taken by a gathering write and not completed yet,guarded by
+     * writeLock
+     */
+    private final ArrayDeque<WriteMessage> gathered = new ArrayDeque<WriteMessage>();
+    private ByteBuffer[] gatheringBuffers = new ByteBuffer[0];
+    private long gatheringWritten;
 
     public AbstractNioSession(NioSessionConfig sessionConfig) {
         super(sessionConfig);
         selectorManager = sessionConfig.selectorManager;
         selectableChannel = sessionConfig.selectableChannel;
+        maxGatheringWrites = sessionConfig.maxGatheringWrites;
+        maxGatheringBytes = sessionConfig.maxGatheringBytes;
+        keepReadInterest = sessionConfig.keepReadInterest;
+    }
+
+    /**
+     * @return true if the read interest stays registered while reading
+     */
+    public final boolean isKeepReadInterest() {
+        return keepReadInterest;
     }
 
     public SelectableChannel channel() {
@@ -89,7 +111,9 @@ public abstract class AbstractNioSession extends AbstractSession implements
         isLockedByMe = true;
         WriteMessage currentMessage = null;
         // make read/write fail, write/read=3/2
-        final long maxWritten = readBuffer.capacity() + readBuffer.capacity() >>> 1;
+        // the read buffer may have shrunk,still allow a whole gathering write
+        final long maxWritten = Math.max(readBuffer.capacity()
+                + (readBuffer.capacity() >>> 1), maxGatheringBytes);
         try {
             long written = 0;
             while (this.currentMessage.get() != null) {
@@ -100,7 +124,13 @@ public abstract class AbstractNioSession extends AbstractSession implements
                         .remaining();
                 Object writeResult = null;
 
-                if (written < maxWritten) {
+                if (maxGatheringWrites > 1
+                        && (written < maxWritten || isFlushed(currentMessage))) {
+                    // complete flushed messages at once,their responses
+                    // may already be coming
+                    writeResult = gatheringWrite(currentMessage);
+                    written += gatheringWritten;
+                } else if (written < maxWritten) {
                     writeResult = writeToChannel(currentMessage);
                     written += this.currentMessage.get().getWriteBuffer()
                             .remaining()
@@ -110,7 +140,7 @@ public abstract class AbstractNioSession extends AbstractSession implements
                 }
                 // write complete
                 if (writeResult != null) {
-                    this.currentMessage.set(writeQueue.poll());
+                    this.currentMessage.set(pollNextMessage());
                     handler.onMessageSent(this, currentMessage.getMessage());
                     // try to get next message
                     if (this.currentMessage.get() == null) {
@@ -150,6 +180,12 @@ public abstract class AbstractNioSession extends AbstractSession implements
                     && currentMessage.getWriteFuture() != null) {
                 currentMessage.getWriteFuture().failure(e);
             }
+            WriteMessage gatheredMessage;
+            while ((gatheredMessage = gathered.poll()) != null) {
+                if (gatheredMessage.getWriteFuture() != null) {
+                    gatheredMessage.getWriteFuture().failure(e);
+                }
+            }
             if (isLockedByMe) {
                 isLockedByMe = false;
                 writeLock.unlock();
@@ -162,6 +198,110 @@ public abstract class AbstractNioSession extends AbstractSession implements
         }
     }
 
+    private WriteMessage pollNextMessage() {
+        WriteMessage message = gathered.poll();
+        return message != null ? message : writeQueue.poll();
+    }
+
+    /**
+     * Write the message together with the messages queued after it by one
+     * GatheringByteChannel.write call.The messages taken from the write queue
+     * are preprocessed in order and kept until their turn,a message whose
+     * bytes were flushed by an earlier gathering write completes without
+     * touching the channel.
+     *
+     * @param message
+     * @return the message if it was written completely,null otherwise
+     * @throws IOException
+     */
+    protected Object gatheringWrite(WriteMessage message) throws IOException {
+        gatheringWritten = 0;
+        if (!isGatherable(message) || useBlockingWrite
+                || !(selectableChannel instanceof GatheringByteChannel)) {
+            return writeToChannel(message);
+        }
+        if (isFlushed(message)) {
+            // flushed by the previous gathering write
+            return completeWrite(message);
+        }
+        IoBuffer writeBuffer = message.getWriteBuffer();
+        if (gathered.isEmpty()) {
+            long bytes = writeBuffer.remaining();
+            while (gathered.size() + 1 < maxGatheringWrites
+                    && bytes < maxGatheringBytes) {
+                WriteMessage next = writeQueue.poll();
+                if (next == null) {
+                    break;
+                }
+                next = preprocessWriteMessage(next);
+                gathered.add(next);
+                if (isGatherable(next)) {
+                    next.writing();
+                    bytes += next.getWriteBuffer().remaining();
+                }
+            }
+            if (gathered.isEmpty()) {
+                return writeToChannel(message);
+            }
+        }
+        if (gatheringBuffers.length < gathered.size() + 1) {
+            gatheringBuffers = new ByteBuffer[maxGatheringWrites];
+        }
+        ByteBuffer[] buffers = gatheringBuffers;
+        int count = 0;
+        buffers[count++] = writeBuffer.buf();
+        for (WriteMessage next : gathered) {
+            if (next.isWriting() && next.getWriteBuffer().hasRemaining()) {
+                buffers[count++] = next.getWriteBuffer().buf();
+            }
+        }
+        message.writing();
+        try {
+            int offset = 0;
+            while (offset < count) {
+                long n = ((GatheringByteChannel) selectableChannel).write(
+                        buffers, offset, count - offset);
+                if (n > 0) {
+                    gatheringWritten += n;
+                    statistics.statisticsWrite(n);
+                    scheduleWritenBytes.addAndGet(0 - n);
+                }
+                while (offset < count && !buffers[offset].hasRemaining()) {
+                    offset++;
+                }
+                if (n == 0) {
+                    // socket buffer is full,wait next time to write
+                    break;
+                }
+            }
+        } finally {
+            Arrays.fill(buffers, 0, count, null);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Gathering write " + count + " buffers,"
+                    + gatheringWritten + " bytes");
+        }
+        return writeBuffer.hasRemaining() ? null : completeWrite(message);
+    }
+
+    private static boolean isGatherable(WriteMessage message) {
+        return message.getWriteBuffer() != null
+                && (message.isWriting() || message.getWriteFuture() == null || !message
+                .getWriteFuture().isCancelled());
+    }
+
+    private static boolean isFlushed(WriteMessage message) {
+        return message.isWriting() && message.getWriteBuffer() != null
+                && !message.getWriteBuffer().hasRemaining();
+    }
+
+    private static Object completeWrite(WriteMessage message) {
+        if (message.getWriteFuture() != null) {
+            message.getWriteFuture().setResult(Boolean.TRUE);
+        }
+        return message.getMessage();
+    }
+
     public final void enableWrite(Selector selector) {
         SelectionKey key = selectableChannel.keyFor(selector);
         if (key != null && key.isValid()) {
@@ -123,6 +123,16 @@ public abstract class NioController extends AbstractController implements
         }
     }
 
+    /**
+     * @return true if read events are handled by the reactor thread without
+     * removing the read interest
+     * @see Configuration#setKeepReadInterest(boolean)
+     */
+    public final boolean isKeepReadInterest() {
+        return this.readEventDispatcher == null
+                && this.configuration.isKeepReadInterest();
+    }
+
     /**
      * Writable event occured
      */
@@ -191,7 +201,11 @@ public abstract class NioController extends AbstractController implements
                 getHandler(), this.selectorManager, getCodecFactory(),
                 getStatistics(), queue, this.dispatchMessageDispatcher,
                 isHandleReadWriteConcurrently(), this.sessionTimeout, this.configuration
-                .getSessionIdleTimeout());
+                .getSessionIdleTimeout(), this.configuration
+                .getMaxGatheringWrites(), this.configuration
+                .getMaxGatheringBytes(), this.configuration
+                .getMinReadBufferSize(), this.configuration
+                .getMaxReadBufferSize(), this.isKeepReadInterest());
         return sessionConfig;
     }
 
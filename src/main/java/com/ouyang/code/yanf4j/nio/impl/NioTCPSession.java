@@ -13,13 +13,12 @@ package com.ouyang.code.yanf4j.nio.impl;
  */
 
 import com.ouyang.code.yanf4j.buffer.IoBuffer;
-import com.ouyang.code.yanf4j.config.Configuration;
 import com.ouyang.code.yanf4j.core.EventType;
 import com.ouyang.code.yanf4j.core.WriteMessage;
 import com.ouyang.code.yanf4j.core.impl.FutureImpl;
 import com.ouyang.code.yanf4j.core.impl.WriteMessageImpl;
 import com.ouyang.code.yanf4j.nio.NioSessionConfig;
-import com.ouyang.code.yanf4j.util.ByteBufferUtils;
+import com.ouyang.code.yanf4j.util.AdaptiveReadBufferSizer;
 import com.ouyang.code.yanf4j.util.SelectorFactory;
 
 import java.io.IOException;
@@ -35,6 +34,7 @@ import java.util.concurrent.Future;
  */
 public class NioTCPSession extends AbstractNioSession {
     private InetSocketAddress remoteAddress;
+    private final AdaptiveReadBufferSizer readBufferSizer;
 
     public NioTCPSession(NioSessionConfig sessionConfig, int readRecvBufferSize) {
         super(sessionConfig);
@@ -43,7 +43,11 @@ public class NioTCPSession extends AbstractNioSession {
             this.loopback = this.getRemoteSocketAddress().getAddress()
                     .isLoopbackAddress();
         }
-        this.setReadBuffer(IoBuffer.allocate(readRecvBufferSize));
+        this.readBufferSizer = new AdaptiveReadBufferSizer(
+                sessionConfig.minReadBufferSize, readRecvBufferSize,
+                Math.max(sessionConfig.minReadBufferSize,
+                        sessionConfig.maxReadBufferSize));
+        this.setReadBuffer(IoBuffer.allocate(this.readBufferSizer.nextSize()));
         this.onCreated();
     }
 
@@ -179,11 +183,14 @@ public class NioTCPSession extends AbstractNioSession {
     @Override
     protected void readFromBuffer() {
         if (!this.readBuffer.hasRemaining()) {
-            if (this.readBuffer.capacity() < Configuration.MAX_READ_BUFFER_SIZE) {
-                this.readBuffer = IoBuffer.wrap(ByteBufferUtils
-                        .increaseBufferCapatity(this.readBuffer.buf()));
+            // full of an incomplete message
+            int capacity = this.readBuffer.capacity();
+            int size = this.readBufferSizer.grow(capacity);
+            if (size > capacity) {
+                this.resizeReadBuffer(size);
             } else {
                 // buffer's capacity is greater than maxium
+                this.suspendRead();
                 return;
             }
         }
@@ -199,6 +206,8 @@ public class NioTCPSession extends AbstractNioSession {
             }
             if (readCount > 0) {
                 decodeAndDispatch();
+                this.readBufferSizer.record(readCount);
+                this.adjustReadBuffer();
             } else if (readCount == 0
                     && !((SocketChannel) this.selectableChannel).socket()
                     .isInputShutdown() && this.useBlockingRead) {
@@ -209,7 +218,7 @@ public class NioTCPSession extends AbstractNioSession {
             }
             if (n < 0) { // Connection closed
                 this.close();
-            } else {
+            } else if (!this.keepReadInterest) {
                 this.selectorManager.registerSession(this,
                         EventType.ENABLE_READ);
             }
@@ -225,6 +234,49 @@ public class NioTCPSession extends AbstractNioSession {
         }
     }
 
+    /**
+     * Stop selecting a session whose read interest is kept,like a session
+     * whose interest was removed before the read and is not restored
+     */
+    private void suspendRead() {
+        if (this.keepReadInterest && Thread.currentThread() instanceof Reactor) {
+            SelectionKey key = this.selectableChannel.keyFor(((Reactor) Thread
+                    .currentThread()).getSelector());
+            if (key != null && key.isValid()) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    /**
+     * Resize the read buffer to the predicted size,it only shrinks when the
+     * unread bytes leave room to read
+     */
+    private void adjustReadBuffer() {
+        int size = this.readBufferSizer.nextSize();
+        if (size != this.readBuffer.capacity()
+                && this.readBuffer.position() < size) {
+            this.resizeReadBuffer(size);
+        }
+    }
+
+    private void resizeReadBuffer(int size) {
+        IoBuffer oldBuffer = this.readBuffer;
+        int oldCapacity = oldBuffer.capacity();
+        IoBuffer newBuffer = IoBuffer.allocate(size, oldBuffer.isDirect());
+        newBuffer.order(oldBuffer.order());
+        oldBuffer.flip();
+        newBuffer.put(oldBuffer.buf());
+        this.readBuffer = newBuffer;
+        // decoders copy what they keep,nothing refers to the old buffer
+        oldBuffer.free();
+        this.statistics.statisticsReadBufferResize(size);
+        if (log.isDebugEnabled()) {
+            log.debug("resize read buffer from " + oldCapacity
+                    + " to " + size + " bytes");
+        }
+    }
+
     private void decodeAndDispatch() {
         updateTimeStamp();
         this.readBuffer.flip();
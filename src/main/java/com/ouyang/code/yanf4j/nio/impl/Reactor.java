@@ -52,8 +52,11 @@ public final class Reactor extends Thread {
     private long lastJVMBug;
     private Selector selector;
     private Queue<RegisterEvent> register;
-    private int selectTries = 0;
-    private long nextTimeout = 0;
+    /**
+     * Replaces the selector's selected-key set,null if it could not be
+     * installed
+     */
+    private SelectedSelectionKeySet selectedKeySet;
 
     Reactor(SelectorManager selectorManager, Configuration configuration,
             int index) throws IOException {
@@ -63,12 +66,18 @@ public final class Reactor extends Thread {
                 .createTransferQueue();
         this.selectorManager = selectorManager;
         controller = selectorManager.getController();
-        selector = SystemUtils.openSelector();
+        selector = openSelector();
         this.configuration = configuration;
         setName("Xmemcached-Reactor-" + index);
         setDaemon(true);
     }
 
+    private Selector openSelector() throws IOException {
+        Selector selector = SystemUtils.openSelector();
+        selectedKeySet = SelectedSelectionKeySet.install(selector);
+        return selector;
+    }
+
     public final Selector getSelector() {
         return selector;
     }
@@ -91,20 +100,12 @@ public final class Reactor extends Thread {
                     before = System.currentTimeMillis();
                 }
                 long wait = DEFAULT_WAIT;
-                if (nextTimeout > 0) {
-                    wait = nextTimeout;
-                }
                 int selected = selector.select(wait);
                 if (selected == 0) {
                     if (before != -1) {
                         lookJVMBug(before, selected, wait);
                     }
-                    selectTries++;
-                    // check tmeout and idle
-                    nextTimeout = checkSessionTimeout();
                     continue;
-                } else {
-                    selectTries = 0;
                 }
 
             } catch (ClosedSelectorException e) {
@@ -117,11 +118,13 @@ public final class Reactor extends Thread {
                     break;
                 }
             }
-            Set<SelectionKey> selectedKeys = selector.selectedKeys();
             gate.lock();
             try {
-                postSelect(selectedKeys, selector.keys());
-                dispatchEvent(selectedKeys);
+                if (selectedKeySet != null) {
+                    dispatchEvent(selectedKeySet);
+                } else {
+                    dispatchEvent(selector.selectedKeys());
+                }
             } finally {
                 gate.unlock();
             }
@@ -175,7 +178,7 @@ public final class Reactor extends Thread {
                                 + reactorIndex);
                     }
                     seeing = true;
-                    final Selector new_selector = SystemUtils.openSelector();
+                    final Selector new_selector = openSelector();
 
                     for (SelectionKey k : selector.keys()) {
                         if (!k.isValid() || k.interestOps() == 0) {
@@ -226,82 +229,120 @@ public final class Reactor extends Thread {
     }
 
     /**
-     * Dispatch selected event
+     * Dispatch selected event,used when the JDK selected-key set could not be
+     * replaced
      *
      * @param selectedKeySet
      */
-    public final void dispatchEvent(Set<SelectionKey> selectedKeySet) {
+    private void dispatchEvent(Set<SelectionKey> selectedKeySet) {
         Iterator<SelectionKey> it = selectedKeySet.iterator();
-        boolean skipOpRead = false;
         while (it.hasNext()) {
             SelectionKey key = it.next();
             it.remove();
-            if (!key.isValid()) {
-                if (key.attachment() != null) {
-                    controller.closeSelectionKey(key);
-                } else {
-                    key.cancel();
-                }
-                continue;
+            if (!dispatchKey(key)) {
+                break;
             }
-            try {
-                if (key.isValid() && key.isAcceptable()) {
-                    controller.onAccept(key);
-                    continue;
-                }
-                if (key.isValid()
-                        && (key.readyOps() & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
-                    // Remove write interest
-                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
-                    controller.onWrite(key);
-                    if (!controller.isHandleReadWriteConcurrently()) {
-                        skipOpRead = true;
-                    }
-                }
-                if (!skipOpRead
-                        && key.isValid()
-                        && (key.readyOps() & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
-                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
-                    if (!controller.getStatistics().isReceiveOverFlow()) {
-                        // Remove read interest
-                        controller.onRead(key);
-                    } else {
-                        key.interestOps(key.interestOps()
-                                | SelectionKey.OP_READ);
-                    }
+        }
+    }
 
+    /**
+     * Dispatch keys selected into the array backed set by index
+     *
+     * @param selectedKeySet
+     */
+    private void dispatchEvent(SelectedSelectionKeySet selectedKeySet) {
+        try {
+            SelectionKey[] keys = selectedKeySet.keys;
+            for (int i = 0; i < selectedKeySet.size; i++) {
+                if (!dispatchKey(keys[i])) {
+                    break;
                 }
-                if ((key.readyOps() & SelectionKey.OP_CONNECT) == SelectionKey.OP_CONNECT) {
-                    controller.onConnect(key);
-                }
-
-            } catch (CancelledKeyException e) {
-                // ignore
-            } catch (RejectedExecutionException e) {
+            }
+        } finally {
+            selectedKeySet.reset();
+        }
+    }
 
-                if (key.attachment() instanceof AbstractNioSession) {
-                    ((AbstractNioSession) key.attachment()).onException(e);
-                }
-                controller.notifyException(e);
-                if (selector.isOpen()) {
-                    continue;
-                } else {
-                    break;
+    /**
+     * Dispatch the ready operations of a key
+     *
+     * @param key
+     * @return false if the selector has been closed
+     */
+    private boolean dispatchKey(SelectionKey key) {
+        if (!key.isValid()) {
+            if (key.attachment() != null) {
+                controller.closeSelectionKey(key);
+            } else {
+                key.cancel();
+            }
+            return true;
+        }
+        boolean skipOpRead = false;
+        try {
+            if (key.isValid() && key.isAcceptable()) {
+                controller.onAccept(key);
+                return true;
+            }
+            if (key.isValid()
+                    && (key.readyOps() & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
+                // Remove write interest
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                controller.onWrite(key);
+                if (!controller.isHandleReadWriteConcurrently()) {
+                    skipOpRead = true;
                 }
-            } catch (Exception e) {
-                if (key.attachment() instanceof AbstractNioSession) {
-                    ((AbstractNioSession) key.attachment()).onException(e);
+            }
+            if (!skipOpRead
+                    && key.isValid()
+                    && (key.readyOps() & SelectionKey.OP_READ) == SelectionKey.OP_READ
+                    && isKeepReadInterest(key)) {
+                // read on this thread without re-arming the interest
+                if (!controller.getStatistics().isReceiveOverFlow()) {
+                    controller.onRead(key);
                 }
-                controller.closeSelectionKey(key);
-                controller.notifyException(e);
-                log.error("Reactor dispatch events error", e);
-                if (selector.isOpen()) {
-                    continue;
+            } else if (!skipOpRead
+                    && key.isValid()
+                    && (key.readyOps() & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                if (!controller.getStatistics().isReceiveOverFlow()) {
+                    // Remove read interest
+                    controller.onRead(key);
                 } else {
-                    break;
+                    key.interestOps(key.interestOps()
+                            | SelectionKey.OP_READ);
                 }
+
+            }
+            if ((key.readyOps() & SelectionKey.OP_CONNECT) == SelectionKey.OP_CONNECT) {
+                controller.onConnect(key);
             }
+
+        } catch (CancelledKeyException e) {
+            // ignore
+        } catch (RejectedExecutionException e) {
+
+            if (key.attachment() instanceof AbstractNioSession) {
+                ((AbstractNioSession) key.attachment()).onException(e);
+            }
+            controller.notifyException(e);
+            return selector.isOpen();
+        } catch (Exception e) {
+            if (key.attachment() instanceof AbstractNioSession) {
+                ((AbstractNioSession) key.attachment()).onException(e);
+            }
+            controller.closeSelectionKey(key);
+            controller.notifyException(e);
+            log.error("Reactor dispatch events error", e);
+            return selector.isOpen();
         }
+        return true;
+    }
+
+    private boolean isKeepReadInterest(SelectionKey key) {
+        Object attachment = key.attachment();
+        return attachment instanceof AbstractNioSession
+                && ((AbstractNioSession) attachment).isKeepReadInterest();
     }
 
     final void unregisterChannel(SelectableChannel channel) throws IOException {
@@ -317,44 +358,6 @@ public final class Reactor extends Thread {
         wakeup();
     }
 
-    /**
-     * Check session timeout or idle
-     *
-     * @return
-     */
-    private final long checkSessionTimeout() {
-        long nextTimeout = 0;
-        if (configuration.getCheckSessionTimeoutInterval() > 0) {
-            gate.lock();
-            try {
-                if (selectTries * 1000 >= configuration
-                        .getCheckSessionTimeoutInterval()) {
-                    nextTimeout = configuration
-                            .getCheckSessionTimeoutInterval();
-                    for (SelectionKey key : selector.keys()) {
-
-                        if (key.attachment() != null) {
-                            long n = checkExpiredIdle(key,
-                                    getSessionFromAttchment(key));
-                            nextTimeout = n < nextTimeout ? n : nextTimeout;
-                        }
-                    }
-                    selectTries = 0;
-                }
-            } finally {
-                gate.unlock();
-            }
-        }
-        return nextTimeout;
-    }
-
-    private final Session getSessionFromAttchment(SelectionKey key) {
-        if (key.attachment() instanceof Session) {
-            return (Session) key.attachment();
-        }
-        return null;
-    }
-
     public final void registerSession(Session session, EventType event) {
         final Selector selector = this.selector;
         if (isReactorThread() && selector != null) {
@@ -395,57 +398,38 @@ public final class Reactor extends Thread {
         }
         if (EventType.REGISTER.equals(event)) {
             controller.registerSession(session);
+            selectorManager.watchSession(session);
         } else if (EventType.UNREGISTER.equals(event)) {
             controller.unregisterSession(session);
+        } else if (EventType.IDLE.equals(event)) {
+            // posted by the session timer when the session may be idle or
+            // expired
+            checkExpiredIdle(session);
         } else {
             ((NioSession) session).onEvent(event, selector);
         }
     }
 
-    public final void postSelect(Set<SelectionKey> selectedKeys,
-                                 Set<SelectionKey> allKeys) {
-        if (controller.getSessionTimeout() > 0
-                || controller.getSessionIdleTimeout() > 0) {
-            for (SelectionKey key : allKeys) {
-
-                if (!selectedKeys.contains(key)) {
-                    if (key.attachment() != null) {
-                        checkExpiredIdle(key, getSessionFromAttchment(key));
-                    }
-                }
-            }
-        }
-    }
-
-    private long checkExpiredIdle(SelectionKey key, Session session) {
-        if (session == null) {
-            return 0;
-        }
-        long nextTimeout = 0;
+    private void checkExpiredIdle(Session session) {
         boolean expired = false;
         if (controller.getSessionTimeout() > 0) {
-            expired = checkExpired(key, session);
-            nextTimeout = controller.getSessionTimeout();
+            expired = checkExpired(session);
         }
         if (controller.getSessionIdleTimeout() > 0 && !expired) {
             checkIdle(session);
-            nextTimeout = controller.getSessionIdleTimeout();
         }
-        return nextTimeout;
     }
 
     private final void checkIdle(Session session) {
-        if (controller.getSessionIdleTimeout() > 0) {
-            if (session.isIdle()) {
-                ((NioSession) session).onEvent(EventType.IDLE, selector);
-            }
+        if (session.isIdle()) {
+            ((NioSession) session).onEvent(EventType.IDLE, selector);
         }
     }
 
-    private final boolean checkExpired(SelectionKey key, Session session) {
-        if (session != null && session.isExpired()) {
+    private final boolean checkExpired(Session session) {
+        if (session.isExpired()) {
             ((NioSession) session).onEvent(EventType.EXPIRED, selector);
-            controller.closeSelectionKey(key);
+            session.close();
             return true;
         }
         return false;
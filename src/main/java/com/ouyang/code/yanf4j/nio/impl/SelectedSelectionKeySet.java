@@ -0,0 +1,130 @@
+package com.ouyang.code.yanf4j.nio.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Array backed selected-key set installed into the JDK selector in place of
+ * its HashSet,so a select adds keys without allocating entries and the reactor
+ * walks them by index.
+ * <p>
+ * Only the selector adds keys and only the reactor thread reads them,contains
+ * and remove are not supported.The set is reset after every dispatch.
+ *
+ * @author ouyang
+ * @since 2026-10-18 11:00
+ */
+final class SelectedSelectionKeySet extends AbstractSet<SelectionKey> {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(SelectedSelectionKeySet.class);
+
+    /**
+     * Set to true to keep the JDK selected-key set
+     */
+    static final boolean DISABLED = Boolean
+            .getBoolean("xmemcached.nio.noKeySetOptimization");
+
+    SelectionKey[] keys = new SelectionKey[1024];
+    int size;
+
+    /**
+     * Replace the selected-key set of a JDK selector
+     *
+     * @param selector
+     * @return the installed set,or null if the selector is not a
+     * sun.nio.ch.SelectorImpl or its fields are not accessible,on java 9 and
+     * later it needs --add-opens java.base/sun.nio.ch=ALL-UNNAMED
+     */
+    static SelectedSelectionKeySet install(Selector selector) {
+        if (DISABLED) {
+            return null;
+        }
+        try {
+            Class<?> selectorImpl = Class.forName("sun.nio.ch.SelectorImpl",
+                    false, ClassLoader.getSystemClassLoader());
+            if (!selectorImpl.isAssignableFrom(selector.getClass())) {
+                return null;
+            }
+            Field selectedKeys = selectorImpl.getDeclaredField("selectedKeys");
+            Field publicSelectedKeys = selectorImpl
+                    .getDeclaredField("publicSelectedKeys");
+            selectedKeys.setAccessible(true);
+            publicSelectedKeys.setAccessible(true);
+            SelectedSelectionKeySet keySet = new SelectedSelectionKeySet();
+            selectedKeys.set(selector, keySet);
+            publicSelectedKeys.set(selector, keySet);
+            return keySet;
+        } catch (Throwable t) {
+            log.debug("Could not replace the selected-key set of " + selector
+                    + ",using the JDK one:" + t);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean add(SelectionKey key) {
+        if (key == null) {
+            return false;
+        }
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size << 1);
+        }
+        this.keys[this.size++] = key;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        return new Iterator<SelectionKey>() {
+            private int index;
+
+            public boolean hasNext() {
+                return this.index < SelectedSelectionKeySet.this.size;
+            }
+
+            public SelectionKey next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return SelectedSelectionKeySet.this.keys[this.index++];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Clear the keys dispatched so far,they are not retained after their
+     * channels are closed
+     */
+    void reset() {
+        Arrays.fill(this.keys, 0, this.size, null);
+        this.size = 0;
+    }
+}
@@ -3,12 +3,14 @@ package com.ouyang.code.yanf4j.nio.impl;
 import com.ouyang.code.yanf4j.config.Configuration;
 import com.ouyang.code.yanf4j.core.EventType;
 import com.ouyang.code.yanf4j.core.Session;
+import com.ouyang.code.yanf4j.util.HashedWheelTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -25,6 +27,11 @@ public class SelectorManager {
     private final AtomicInteger sets = new AtomicInteger(0);
     private final NioController controller;
     private final int dividend;
+    /**
+     * Schedules the idle and expiry check of every session,so the reactors
+     * never scan all their keys
+     */
+    private final HashedWheelTimer sessionTimer;
     /**
      * Reactor count which are ready
      */
@@ -43,6 +50,8 @@ public class SelectorManager {
             reactorSet[i] = new Reactor(this, conf, i);
         }
         dividend = reactorSet.length - 1;
+        sessionTimer = new HashedWheelTimer("Xmemcached-session-timer", 100,
+                512);
     }
 
     public int getSelectorCount() {
@@ -91,11 +100,72 @@ public class SelectorManager {
             return;
         }
         started = false;
+        sessionTimer.stop();
         for (Reactor reactor : reactorSet) {
             reactor.interrupt();
         }
     }
 
+    /**
+     * Watch a registered session until it is closed,its reactor is asked to
+     * check it when it may have been idle or expired
+     *
+     * @param session
+     */
+    final void watchSession(Session session) {
+        new SessionCheck(session).schedule(checkInterval(session));
+    }
+
+    /**
+     * @return the shortest enabled timeout of the session,or
+     * Reactor.DEFAULT_WAIT to look at the settings again later if both are
+     * disabled
+     */
+    private long checkInterval(Session session) {
+        long interval = Long.MAX_VALUE;
+        if (controller.getSessionTimeout() > 0
+                && session.getSessionTimeout() > 0) {
+            interval = session.getSessionTimeout();
+        }
+        if (controller.getSessionIdleTimeout() > 0
+                && session.getSessionIdleTimeout() > 0) {
+            interval = Math.min(interval, session.getSessionIdleTimeout());
+        }
+        return interval == Long.MAX_VALUE ? Reactor.DEFAULT_WAIT : interval;
+    }
+
+    private final class SessionCheck implements Runnable {
+        private final Session session;
+
+        SessionCheck(Session session) {
+            this.session = session;
+        }
+
+        public void run() {
+            if (session.isClosed() || !started) {
+                return;
+            }
+            long interval = checkInterval(session);
+            long elapsed = System.currentTimeMillis()
+                    - session.getLastOperationTimeStamp();
+            if (elapsed >= interval) {
+                // the reactor checks again before firing the events
+                registerSession(session, EventType.IDLE);
+                schedule(interval);
+            } else {
+                schedule(interval - elapsed + 1);
+            }
+        }
+
+        void schedule(long delay) {
+            try {
+                sessionTimer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                // timer stopped by shutdown
+            }
+        }
+    }
+
     /**
      * Register channel
      *
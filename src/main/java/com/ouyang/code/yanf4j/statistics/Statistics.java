@@ -68,6 +68,20 @@ public interface Statistics {
 
     void statisticsWrite(long n);
 
+    /**
+     * Record a session read buffer resized to the predicted size
+     *
+     * @param capacity the new capacity
+     */
+    void statisticsReadBufferResize(int capacity);
+
+    long getReadBufferResizeCount();
+
+    /**
+     * @return average capacity the read buffers were resized to
+     */
+    long getReadBufferAverageSize();
+
     long getRecvMessageCount();
 
     long getRecvMessageTotalSize();
@@ -134,6 +134,18 @@ public class DefaultStatistics implements Statistics {
 
     }
 
+    public void statisticsReadBufferResize(int capacity) {
+
+    }
+
+    public long getReadBufferResizeCount() {
+        return 0;
+    }
+
+    public long getReadBufferAverageSize() {
+        return 0;
+    }
+
     public void statisticsWrite(long n) {
 
     }
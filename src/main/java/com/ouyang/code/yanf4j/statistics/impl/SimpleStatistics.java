@@ -64,6 +64,8 @@ public class SimpleStatistics implements Statistics {
     private AtomicLong processMessageCount = new AtomicLong();
     private AtomicLong acceptCount = new AtomicLong();
     private AtomicLong processMessageTotalTime = new AtomicLong();
+    private AtomicLong readBufferResizeCount = new AtomicLong();
+    private AtomicLong readBufferResizeTotalSize = new AtomicLong();
 
     public SimpleStatistics() {
 
@@ -85,6 +87,8 @@ public class SimpleStatistics implements Statistics {
         this.processMessageCount.set(0);
         this.processMessageTotalTime.set(0);
         this.acceptCount.set(0);
+        this.readBufferResizeCount.set(0);
+        this.readBufferResizeTotalSize.set(0);
     }
 
     /**
@@ -179,6 +183,24 @@ public class SimpleStatistics implements Statistics {
         this.recvMessageTotalSize.addAndGet(n);
     }
 
+    public void statisticsReadBufferResize(int capacity) {
+        if (!this.started) {
+            return;
+        }
+        this.readBufferResizeCount.incrementAndGet();
+        this.readBufferResizeTotalSize.addAndGet(capacity);
+    }
+
+    public long getReadBufferResizeCount() {
+        return this.readBufferResizeCount.get();
+    }
+
+    public long getReadBufferAverageSize() {
+        return this.readBufferResizeCount.get() == 0 ? 0
+                : this.readBufferResizeTotalSize.get()
+                / this.readBufferResizeCount.get();
+    }
+
     public long getRecvMessageCount() {
         return this.recvMessageCount.get();
     }
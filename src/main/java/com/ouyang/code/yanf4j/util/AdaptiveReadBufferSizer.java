@@ -0,0 +1,131 @@
+package com.ouyang.code.yanf4j.util;
+
+/**
+ * Predicts the read buffer size a session needs from the bytes it read
+ * recently.
+ * <p>
+ * Sizes are taken from a table of 16 byte steps up to 512 bytes and powers of
+ * two above.The size grows by four steps at once when a read fills the
+ * predicted size,and shrinks by one step only after two reads in a row fit
+ * the next smaller size,so a single large response does not keep the buffer
+ * large and a single small one does not shrink it.Not thread-safe,it is used
+ * by the reading thread of one session.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:45
+ */
+public final class AdaptiveReadBufferSizer {
+
+    private static final int INDEX_INCREMENT = 4;
+    private static final int INDEX_DECREMENT = 1;
+
+    private static final int[] SIZE_TABLE;
+
+    static {
+        int[] sizes = new int[32 + 22];
+        int count = 0;
+        for (int size = 16; size < 512; size += 16) {
+            sizes[count++] = size;
+        }
+        for (int size = 512; size > 0; size <<= 1) {
+            sizes[count++] = size;
+        }
+        SIZE_TABLE = new int[count];
+        System.arraycopy(sizes, 0, SIZE_TABLE, 0, count);
+    }
+
+    private final int minimum;
+    private final int maximum;
+    private final int minIndex;
+    private final int maxIndex;
+    private int index;
+    private int nextSize;
+    private boolean decreaseNow;
+
+    /**
+     * @param minimum the smallest predicted size
+     * @param initial the size predicted before any read
+     * @param maximum the largest predicted size
+     */
+    public AdaptiveReadBufferSizer(int minimum, int initial, int maximum) {
+        if (minimum <= 0) {
+            throw new IllegalArgumentException("minimum<=0");
+        }
+        if (maximum < minimum) {
+            throw new IllegalArgumentException("maximum<minimum");
+        }
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.minIndex = sizeTableIndex(minimum);
+        this.maxIndex = sizeTableIndex(maximum);
+        this.index = Math.max(this.minIndex,
+                Math.min(this.maxIndex, sizeTableIndex(initial)));
+        this.nextSize = this.size(this.index);
+    }
+
+    /**
+     * @return the index of the smallest size not less than the given size
+     */
+    private static int sizeTableIndex(int size) {
+        int low = 0;
+        int high = SIZE_TABLE.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (SIZE_TABLE[mid] < size) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int size(int index) {
+        return Math.max(this.minimum, Math.min(this.maximum, SIZE_TABLE[index]));
+    }
+
+    /**
+     * @return the predicted read buffer size
+     */
+    public int nextSize() {
+        return this.nextSize;
+    }
+
+    /**
+     * Record the bytes read by one read event
+     *
+     * @param actualReadBytes
+     */
+    public void record(int actualReadBytes) {
+        if (actualReadBytes <= SIZE_TABLE[Math.max(0, this.index
+                - INDEX_DECREMENT)]) {
+            if (this.decreaseNow) {
+                this.index = Math.max(this.index - INDEX_DECREMENT,
+                        this.minIndex);
+                this.nextSize = this.size(this.index);
+                this.decreaseNow = false;
+            } else {
+                this.decreaseNow = true;
+            }
+        } else if (actualReadBytes >= this.nextSize) {
+            this.grow(this.nextSize);
+        }
+    }
+
+    /**
+     * Grow the predicted size above the given size at once,for example when
+     * the buffer is full of an incomplete message
+     *
+     * @param size
+     * @return the new predicted size,not greater than the given size if the
+     * maximum is reached
+     */
+    public int grow(int size) {
+        do {
+            this.index = Math.min(this.index + INDEX_INCREMENT, this.maxIndex);
+        } while (this.size(this.index) <= size && this.index < this.maxIndex);
+        this.nextSize = this.size(this.index);
+        this.decreaseNow = false;
+        return this.nextSize;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ouyang.code.yanf4j.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A LinkedTransferQueue keeping its element count in a counter,size() has to
+ * traverse the whole queue,count() is O(1) and cheap enough to be read on
+ * every operation.
+ * <p>
+ * The count is approximate while producers and consumers race,it never goes
+ * below zero.Elements removed by the iterator are not counted,so the queue
+ * should only be drained by take,poll,remove() or drainTo.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:25
+ */
+public class CountingLinkedTransferQueue<E> extends LinkedTransferQueue<E> {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    public CountingLinkedTransferQueue() {
+        super();
+    }
+
+    /**
+     * @return the approximate number of elements,in constant time
+     */
+    public int count() {
+        return Math.max(0, this.count.get());
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        super.put(e);
+        this.count.incrementAndGet();
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        boolean offered = super.offer(e, timeout, unit);
+        if (offered) {
+            this.count.incrementAndGet();
+        }
+        return offered;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        boolean offered = super.offer(e);
+        if (offered) {
+            this.count.incrementAndGet();
+        }
+        return offered;
+    }
+
+    @Override
+    public void transfer(E e) throws InterruptedException {
+        // counted before handing off,the consumer counts it down
+        this.count.incrementAndGet();
+        boolean transferred = false;
+        try {
+            super.transfer(e);
+            transferred = true;
+        } finally {
+            if (!transferred) {
+                this.count.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public boolean tryTransfer(E e, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        this.count.incrementAndGet();
+        boolean transferred = false;
+        try {
+            transferred = super.tryTransfer(e, timeout, unit);
+            return transferred;
+        } finally {
+            if (!transferred) {
+                this.count.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public boolean tryTransfer(E e) {
+        this.count.incrementAndGet();
+        boolean transferred = false;
+        try {
+            transferred = super.tryTransfer(e);
+            return transferred;
+        } finally {
+            if (!transferred) {
+                this.count.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = super.take();
+        this.count.decrementAndGet();
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = super.poll(timeout, unit);
+        if (e != null) {
+            this.count.decrementAndGet();
+        }
+        return e;
+    }
+
+    @Override
+    public E poll() {
+        E e = super.poll();
+        if (e != null) {
+            this.count.decrementAndGet();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,269 @@
+package com.ouyang.code.yanf4j.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed wheel timer for a large number of short,approximate timeouts.
+ * <p>
+ * Scheduling and cancelling are O(1) and never block the caller,a single
+ * daemon thread advances the wheel every tick and runs expired tasks,so tasks
+ * must be short and must not block.A timeout fires at the earliest after its
+ * delay and at the latest one tick later.
+ *
+ * @author ouyang
+ * @since 2026-10-18 09:40
+ */
+public class HashedWheelTimer {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(HashedWheelTimer.class);
+
+    private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final long startTime;
+    private final Thread workerThread;
+    private volatile boolean stopped;
+
+    /**
+     * @param name          worker thread name
+     * @param tickMills     tick duration in milliseconds
+     * @param ticksPerWheel wheel size,rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tickMills, int ticksPerWheel) {
+        if (tickMills <= 0) {
+            throw new IllegalArgumentException("tickMills must be positive");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException(
+                    "ticksPerWheel must be in (0,2^30]");
+        }
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMills);
+        this.startTime = System.nanoTime();
+        this.workerThread = new Thread(new Worker(), name);
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+    }
+
+    /**
+     * Schedule a task to run once after the delay
+     *
+     * @param task  must be short and must not block
+     * @param delay
+     * @param unit
+     * @return a handle to cancel the task
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("Null task");
+        }
+        if (this.stopped) {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+        long deadline = System.nanoTime() - this.startTime
+                + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(task, deadline);
+        this.pendingTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stop the worker thread,timeouts not yet expired are dropped
+     */
+    public void stop() {
+        if (this.stopped) {
+            return;
+        }
+        this.stopped = true;
+        if (Thread.currentThread() == this.workerThread) {
+            return;
+        }
+        this.workerThread.interrupt();
+        try {
+            this.workerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isStopped() {
+        return this.stopped;
+    }
+
+    private final class Worker implements Runnable {
+        private long tick;
+
+        public void run() {
+            while (!stopped) {
+                long now = this.waitForNextTick();
+                if (now < 0) {
+                    break;
+                }
+                this.transferPendingTimeouts();
+                wheel[(int) (this.tick & mask)].expire(now);
+                this.tick++;
+            }
+            pendingTimeouts.clear();
+        }
+
+        private long waitForNextTick() {
+            long deadline = tickNanos * (this.tick + 1);
+            while (true) {
+                long now = System.nanoTime() - startTime;
+                long sleepMills = TimeUnit.NANOSECONDS.toMillis(deadline - now
+                        + 999999);
+                if (sleepMills <= 0) {
+                    return now;
+                }
+                try {
+                    Thread.sleep(sleepMills);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void transferPendingTimeouts() {
+            for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+                Timeout timeout = pendingTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                long expireTick = timeout.deadline / tickNanos;
+                timeout.remainingRounds = (expireTick - this.tick)
+                        / wheel.length;
+                // already expired timeouts go to the current bucket
+                long ticks = Math.max(expireTick, this.tick);
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts,only touched by the worker thread
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            if (this.head == null) {
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.prev = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        void expire(long now) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    this.remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    this.remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            Timeout prev = timeout.prev;
+            Timeout next = timeout.next;
+            if (prev != null) {
+                prev.next = next;
+            } else {
+                this.head = next;
+            }
+            if (next != null) {
+                next.prev = prev;
+            } else {
+                this.tail = prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+
+    /**
+     * Handle of a scheduled task
+     */
+    public static final class Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        long remainingRounds;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task,it is removed from the wheel lazily on its tick but
+         * the task is released at once
+         *
+         * @return false if the task has already run or been cancelled
+         */
+        public boolean cancel() {
+            if (this.state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                this.task = null;
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return this.state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state.get() == ST_EXPIRED;
+        }
+
+        void expire() {
+            if (!this.state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                this.task.run();
+            } catch (Throwable t) {
+                log.warn("Timer task " + this.task + " threw an exception", t);
+            }
+        }
+    }
+}
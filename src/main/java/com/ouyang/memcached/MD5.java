@@ -8,27 +8,38 @@ import java.security.NoSuchAlgorithmException;
  * @since 2015-10-21 15:51:01
  */
 public class MD5 {
-    public static String getMD5String(byte[] bytes) {
-        String result = "";
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            md.update(bytes);
-            byte b[] = md.digest();
-            int i;
-            StringBuffer buf = new StringBuffer("");
-            for (int offset = 0; offset < b.length; offset++) {
-                i = b[offset];
-                if (i < 0)
-                    i += 256;
-                if (i < 16)
-                    buf.append("0");
-                buf.append(Integer.toHexString(i));
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * MessageDigest 不是线程安全的，每个线程复用一个
+     */
+    private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                e.printStackTrace();
+                return null;
             }
-            result = buf.toString();
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
         }
-        return result;
+    };
+
+    public static String getMD5String(byte[] bytes) {
+        MessageDigest md = DIGEST.get();
+        if (md == null) {
+            return "";
+        }
+        md.reset();
+        byte b[] = md.digest(bytes);
+        char[] buf = new char[b.length * 2];
+        for (int offset = 0; offset < b.length; offset++) {
+            int i = b[offset] & 0xFF;
+            buf[offset * 2] = HEX[i >>> 4];
+            buf[offset * 2 + 1] = HEX[i & 0x0F];
+        }
+        return new String(buf);
     }
 
 }
@@ -25,4 +25,53 @@ public @interface Memcache {
      */
     int exp() default 30;
 
+    /**
+     * 本地缓存（进程内）过期时间 单位秒，0 表示不使用本地缓存
+     * 不会超过 exp
+     *
+     * @return 本地缓存过期时间
+     * @author ouyang
+     * @since 2016-03-02 10:12
+     */
+    int localExp() default 0;
+
+    /**
+     * 同一个 JVM 内合并同一个 key 的并发加载，缓存失效时只有一个线程执行原方法
+     *
+     * @return 是否合并加载
+     * @author ouyang
+     * @since 2016-03-08 11:20
+     */
+    boolean singleFlight() default false;
+
+    /**
+     * 多个节点之间的加载锁租约时间 单位秒，0 表示不使用
+     * 缓存失效时用 memcached add 抢锁，只有抢到锁的节点执行原方法
+     *
+     * @return 加载锁租约时间
+     * @author ouyang
+     * @since 2016-03-08 11:20
+     */
+    int lease() default 0;
+
+    /**
+     * 缓存快过期时提前在后台刷新，刷新期间继续返回当前缓存的对象
+     * 缓存中会额外记录写入时间和加载耗时
+     *
+     * @return 是否提前刷新
+     * @author ouyang
+     * @since 2016-03-10 14:05
+     */
+    boolean refreshAhead() default false;
+
+    /**
+     * 原方法返回 null 时在 memcached 中记录不存在的有效时间 单位秒
+     * 0 表示使用全局配置 memcached.negative.exp，也为0时和 exp 相同，不会超过 exp
+     *
+     * @return 不存在记录的有效时间
+     * @author ouyang
+     * @since 2016-03-21 15:20
+     */
+    int nullExp() default 0;
+
 }
@@ -4,6 +4,13 @@ import java.lang.annotation.*;
 
 /**
  * 针对根据主键查询对象的缓存
+ * <p>
+ * 参数是集合时（如 findByIds(List&lt;Long&gt; ids)）按每个主键分别缓存，
+ * 一次批量查询 memcached，只把没有缓存的主键交给原方法查询。
+ * 返回类型可以是 List、Set、Collection 或者 Map（key 为主键），
+ * 返回 List、Set、Collection 时用 value 指定的属性读取元素的主键。
+ * 返回类型没有声明元素类型、元素没有该属性，或者参数类型不是 List、Set、SortedSet
+ * 及其父类型时，仍按整个参数缓存。
  *
  * @author ouyang
  * @since 2015-04-20 17:38
@@ -13,4 +20,13 @@ import java.lang.annotation.*;
 @Target(ElementType.PARAMETER)
 @Inherited
 public @interface MemcachePrimaryKey {
+
+    /**
+     * 批量查询时返回集合中元素的主键属性名
+     *
+     * @return 主键属性名
+     * @author ouyang
+     * @since 2016-03-14 16:30
+     */
+    String value() default "id";
 }
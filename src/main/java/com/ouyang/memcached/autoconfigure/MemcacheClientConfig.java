@@ -1,51 +1,167 @@
 package com.ouyang.memcached.autoconfigure;
 
+import com.ouyang.code.yanf4j.config.Configuration;
+import com.ouyang.memcached.cache.NamespaceVersions;
+import com.ouyang.memcached.cache.NearCache;
+import com.ouyang.memcached.cache.NegativeCache;
+import com.ouyang.memcached.cache.Refresher;
+import com.ouyang.memcached.cache.SingleFlight;
 import com.ouyang.memcached.interceptor.MemcacheInterceptor;
 import com.ouyang.memcached.interceptor.MemcacheUpdateInterceptor;
 import com.ouyang.xmemcached.XMemcachedClient;
+import com.ouyang.xmemcached.XMemcachedClientBuilder;
 import com.ouyang.xmemcached.command.BinaryCommandFactory;
+import com.ouyang.xmemcached.command.TextCommandFactory;
+import com.ouyang.xmemcached.impl.ArrayMemcachedSessionLocator;
 import com.ouyang.xmemcached.impl.KetamaMemcachedSessionLocator;
+import com.ouyang.xmemcached.transcoders.CompactTranscoder;
+import com.ouyang.xmemcached.transcoders.SerializingTranscoder;
+import com.ouyang.xmemcached.transcoders.Transcoder;
 import com.ouyang.xmemcached.utils.XMemcachedClientFactoryBean;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 
 /**
+ * 配置见 MemcacheProperties
+ *
  * @author wq
  * @since 2015-11-24
  */
-@Configuration
+@org.springframework.context.annotation.Configuration
+@EnableConfigurationProperties(MemcacheProperties.class)
 public class MemcacheClientConfig {
 
-    @Value("${memcached.servers:127.0.0.1:11211}")
-    private String servers;
+    @Autowired
+    private MemcacheProperties properties;
 
     @Bean(name = "commonMemcachedClient")
     public XMemcachedClient commonMemcachedClient() throws Exception {
         XMemcachedClientFactoryBean xMemcachedClientFactoryBean = new XMemcachedClientFactoryBean();
         xMemcachedClientFactoryBean
-                .setServers(servers);
-        xMemcachedClientFactoryBean.setConnectionPoolSize(1);
-        xMemcachedClientFactoryBean.setSessionLocator(new KetamaMemcachedSessionLocator());
-        xMemcachedClientFactoryBean.setCommandFactory(new BinaryCommandFactory());
-        return (XMemcachedClient) xMemcachedClientFactoryBean.getObject();
+                .setServers(properties.getServers());
+        xMemcachedClientFactoryBean.setConnectionPoolSize(properties.getConnectionPoolSize());
+        xMemcachedClientFactoryBean.setSessionLocator("array".equalsIgnoreCase(properties.getSessionLocator())
+                                                      ? new ArrayMemcachedSessionLocator()
+                                                      : new KetamaMemcachedSessionLocator());
+        xMemcachedClientFactoryBean.setCommandFactory("text".equalsIgnoreCase(properties.getProtocol())
+                                                      ? new TextCommandFactory() : new BinaryCommandFactory());
+        this.setBufferAllocator(xMemcachedClientFactoryBean);
+        xMemcachedClientFactoryBean.setTranscoder(this.transcoder());
+
+        Configuration configuration = XMemcachedClientBuilder.getDefaultConfiguration();
+        configuration.setSelectorPoolSize(properties.getSelectorPoolSize());
+        configuration.setMaxGatheringWrites(properties.getMaxGatheringWrites());
+        configuration.setMaxGatheringBytes(properties.getMaxGatheringBytes());
+        configuration.setDirectBuffer(properties.isDirectBuffer());
+        configuration.setMinReadBufferSize(properties.getMinReadBufferSize());
+        configuration.setMaxReadBufferSize(properties.getMaxReadBufferSize());
+        configuration.setKeepReadInterest(properties.isKeepReadInterest());
+        xMemcachedClientFactoryBean.setConfiguration(configuration);
+
+        xMemcachedClientFactoryBean.setOpTimeout(properties.getOpTimeout());
+        xMemcachedClientFactoryBean.setConnectTimeout(properties.getConnectTimeout());
+        xMemcachedClientFactoryBean.setEnableHealSession(properties.isEnableHealSession());
+        xMemcachedClientFactoryBean.setHealSessionInterval(properties.getHealSessionInterval());
+        xMemcachedClientFactoryBean.setMaxQueuedNoReplyOperations(properties.getMaxQueuedNoReplyOperations());
+
+        XMemcachedClient client = (XMemcachedClient) xMemcachedClientFactoryBean.getObject();
+        client.setMergeFactor(properties.getMergeFactor());
+        client.setOptimizeGet(properties.isOptimizeGet());
+        client.setOptimizeMergeBuffer(properties.isOptimizeMergeBuffer());
+        client.setMaxKeysPerGet(properties.getMaxKeysPerGet());
+        client.setMaxBytesPerGet(properties.getMaxBytesPerGet());
+        client.setCasBackoff(properties.getCasBackoffBase(), properties.getCasBackoffMax());
+        client.setCasCombining(properties.isCasCombining());
+        return client;
+    }
+
+    /**
+     * xmemcached 的 BufferAllocator 已经废弃，只影响 xmemcached 自己的 buffer，
+     * 不影响 yanf4j 读写用的 IoBuffer（见 directBuffer）
+     */
+    @SuppressWarnings("deprecation")
+    private void setBufferAllocator(XMemcachedClientFactoryBean xMemcachedClientFactoryBean) {
+        xMemcachedClientFactoryBean.setBufferAllocator("cached".equalsIgnoreCase(properties.getBufferAllocator())
+                                                       ? com.ouyang.xmemcached.buffer.CachedBufferAllocator.newInstance()
+                                                       : com.ouyang.xmemcached.buffer.SimpleBufferAllocator.newInstance());
+    }
+
+    /**
+     * 缓存对象的序列化方式
+     */
+    @SuppressWarnings("rawtypes")
+    private Transcoder transcoder() throws ClassNotFoundException {
+        MemcacheProperties.Transcoder config = properties.getTranscoder();
+        Transcoder transcoder;
+        if ("compact".equalsIgnoreCase(config.getType())) {
+            CompactTranscoder compactTranscoder = new CompactTranscoder();
+            for (String className : config.getClasses().split(",")) {
+                if (!className.trim().isEmpty()) {
+                    compactTranscoder.register(Class.forName(className.trim()));
+                }
+            }
+            transcoder = compactTranscoder;
+        } else if ("java".equalsIgnoreCase(config.getType())) {
+            transcoder = new SerializingTranscoder();
+        } else {
+            throw new IllegalArgumentException("Unknown memcached.transcoder.type:" + config.getType());
+        }
+        transcoder.setCompressionThreshold(config.getCompressionThreshold());
+        return transcoder;
+    }
+
+    @Bean
+    public NearCache commonNearCache() {
+        return new NearCache(properties.getLocal().getMaxSize());
+    }
+
+    @Bean
+    public SingleFlight commonSingleFlight() {
+        return new SingleFlight(properties.getSingleFlight().getTimeout());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Refresher commonRefresher() {
+        MemcacheProperties.Refresh refresh = properties.getRefresh();
+        return new Refresher(refresh.getThreads(), refresh.getQueueSize(), refresh.getBeta());
+    }
+
+    @Bean
+    public NamespaceVersions commonNamespaceVersions() {
+        MemcacheProperties.Namespace namespace = properties.getNamespace();
+        return new NamespaceVersions(namespace.getMaxSize(), namespace.getTtl());
+    }
+
+    @Bean
+    public NegativeCache commonNegativeCache() {
+        MemcacheProperties.Negative negative = properties.getNegative();
+        return new NegativeCache(negative.getLocalMaxSize(), negative.getLocalTtl());
     }
 
     @Bean
     public MemcacheInterceptor commonMemcacheInterceptor() {
-        return new MemcacheInterceptor();
+        MemcacheInterceptor memcacheInterceptor = new MemcacheInterceptor();
+        memcacheInterceptor.setLeaseWaitMills(properties.getLease().getWait());
+        memcacheInterceptor.setAsyncFill(properties.getAsync().isFill());
+        memcacheInterceptor.setNullExp(properties.getNegative().getExp());
+        memcacheInterceptor.setTombstone(properties.getNegative().isTombstone());
+        return memcacheInterceptor;
     }
 
     @Bean
     public MemcacheUpdateInterceptor commonMemcacheUpdateInterceptor() {
-        return new MemcacheUpdateInterceptor();
+        MemcacheUpdateInterceptor memcacheUpdateInterceptor = new MemcacheUpdateInterceptor();
+        memcacheUpdateInterceptor.setAsyncDelete(properties.getAsync().isDelete());
+        memcacheUpdateInterceptor.setNamespaceExp(properties.getNamespace().getExp());
+        return memcacheUpdateInterceptor;
     }
 
-    public String getServers() {
-        return servers;
+    public MemcacheProperties getProperties() {
+        return properties;
     }
 
-    public void setServers(String servers) {
-        this.servers = servers;
+    public void setProperties(MemcacheProperties properties) {
+        this.properties = properties;
     }
 }
@@ -0,0 +1,612 @@
+package com.ouyang.memcached.autoconfigure;
+
+import com.ouyang.xmemcached.MemcachedClient;
+import com.ouyang.xmemcached.impl.Optimizer;
+import com.ouyang.xmemcached.transcoders.BaseSerializingTranscoder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * memcached 配置 前缀 memcached
+ * <p>
+ * 默认值和原来写死的配置一致（每个节点一个连接，操作超时 5 秒）。
+ * 偏向吞吐量时建议：每个节点 CPU 核数一半的连接（2-8个），每个核一个 selector，操作超时 1 秒
+ *
+ * @author ouyang
+ * @since 2016-03-18 09:30
+ */
+@ConfigurationProperties(prefix = "memcached")
+public class MemcacheProperties {
+
+    /**
+     * 服务器列表 host:port host:port
+     */
+    private String servers = "127.0.0.1:11211";
+    /**
+     * 协议 binary 或 text
+     */
+    private String protocol = "binary";
+    /**
+     * 节点选择 ketama 或 array
+     */
+    private String sessionLocator = "ketama";
+    /**
+     * 每个节点的连接数，并发高时建议 CPU 核数的一半（2-8个）
+     */
+    private int connectionPoolSize = 1;
+    /**
+     * NIO selector（reactor）数，0 使用 xmemcached.selector.pool.size，没有设置时为 CPU 核数的2倍；
+     * 建议和 CPU 核数相同
+     */
+    private int selectorPoolSize = 0;
+    /**
+     * 一次 gathering write（writev）最多写出的命令数，1 逐个写
+     */
+    private int maxGatheringWrites = 64;
+    /**
+     * 一次 gathering write 最多写出的字节数
+     */
+    private int maxGatheringBytes = 64 * 1024;
+    /**
+     * 读缓冲区和编码后的命令使用池化的堆外内存（direct buffer），写 socket 时省去一次拷贝；对整个 JVM 生效
+     */
+    private boolean directBuffer = false;
+    /**
+     * 连接读缓冲区按最近读到的字节数自适应伸缩的下限，单位字节
+     */
+    private int minReadBufferSize = 1024;
+    /**
+     * 连接读缓冲区的上限，单位字节
+     */
+    private int maxReadBufferSize = 128 * 1024;
+    /**
+     * reactor 线程直接读连接时保留 OP_READ 注册，不在每次读前后摘除、恢复读事件。
+     * 默认关闭，需要时再打开（java nio 没有 epoll 边缘触发，用它近似）；
+     * 打开后接收队列满的连接每次 select 都会被选中
+     */
+    private boolean keepReadInterest = false;
+    /**
+     * 操作超时时间 单位毫秒，建议 1000，慢节点不拖住调用线程
+     */
+    private long opTimeout = MemcachedClient.DEFAULT_OP_TIMEOUT;
+    /**
+     * 连接超时时间 单位毫秒
+     */
+    private long connectTimeout = MemcachedClient.DEFAULT_CONNECT_TIMEOUT;
+    /**
+     * 合并 get 的最大命令数
+     */
+    private int mergeFactor = Optimizer.DEFAULT_MERGE_FACTOR;
+    /**
+     * 是否合并连续的 get
+     */
+    private boolean optimizeGet = true;
+    /**
+     * 是否合并小的写缓冲区
+     */
+    private boolean optimizeMergeBuffer = true;
+    /**
+     * 缓冲区分配 simple 或 cached
+     */
+    private String bufferAllocator = "simple";
+    /**
+     * 是否自动重连
+     */
+    private boolean enableHealSession = true;
+    /**
+     * 重连间隔 单位毫秒
+     */
+    private long healSessionInterval = MemcachedClient.DEFAULT_HEAL_SESSION_INTERVAL;
+    /**
+     * 未响应的 noreply 操作的最大数量
+     */
+    private int maxQueuedNoReplyOperations = MemcachedClient.DEFAULT_MAX_QUEUED_NOPS;
+    /**
+     * 批量 get 拆分后每个命令的最大 key 数，0 不拆分
+     */
+    private int maxKeysPerGet = MemcachedClient.DEFAULT_MAX_KEYS_PER_GET;
+    /**
+     * 批量 get 拆分后每个命令 key 的最大字节数，0 不限制
+     */
+    private int maxBytesPerGet = MemcachedClient.DEFAULT_MAX_BYTES_PER_GET;
+    /**
+     * cas 重试的退避基数 单位毫秒，0 不退避
+     */
+    private long casBackoffBase = MemcachedClient.DEFAULT_CAS_BACKOFF_BASE;
+    /**
+     * cas 重试的最大退避时间 单位毫秒
+     */
+    private long casBackoffMax = MemcachedClient.DEFAULT_CAS_BACKOFF_MAX;
+    /**
+     * 是否合并同一个 key 上并发的 cas 操作
+     */
+    private boolean casCombining = false;
+
+    private final Transcoder transcoder = new Transcoder();
+    private final Local local = new Local();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final Lease lease = new Lease();
+    private final Async async = new Async();
+    private final Refresh refresh = new Refresh();
+    private final Namespace namespace = new Namespace();
+    private final Negative negative = new Negative();
+
+    /**
+     * 缓存对象的序列化
+     */
+    public static class Transcoder {
+        /**
+         * java（java 序列化）或 compact（CompactTranscoder）
+         */
+        private String type = "java";
+        /**
+         * compact 序列化时按顺序注册的类，逗号分隔，所有节点必须一致
+         */
+        private String classes = "";
+        /**
+         * 超过多少字节压缩
+         */
+        private int compressionThreshold = BaseSerializingTranscoder.DEFAULT_COMPRESSION_THRESHOLD;
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public String getClasses() {
+            return classes;
+        }
+
+        public void setClasses(String classes) {
+            this.classes = classes;
+        }
+
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        public void setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+    }
+
+    /**
+     * 本地缓存
+     */
+    public static class Local {
+        private int maxSize = 10000;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * 合并并发加载
+     */
+    public static class SingleFlight {
+        /**
+         * 等待其他线程加载的最长时间 单位毫秒
+         */
+        private long timeout = 1000L;
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * 跨节点加载锁
+     */
+    public static class Lease {
+        /**
+         * 等待其他节点加载的最长时间 单位毫秒
+         */
+        private long wait = 1000L;
+
+        public long getWait() {
+            return wait;
+        }
+
+        public void setWait(long wait) {
+            this.wait = wait;
+        }
+    }
+
+    /**
+     * 异步写缓存
+     */
+    public static class Async {
+        private boolean fill;
+        private boolean delete;
+
+        public boolean isFill() {
+            return fill;
+        }
+
+        public void setFill(boolean fill) {
+            this.fill = fill;
+        }
+
+        public boolean isDelete() {
+            return delete;
+        }
+
+        public void setDelete(boolean delete) {
+            this.delete = delete;
+        }
+    }
+
+    /**
+     * 提前刷新
+     */
+    public static class Refresh {
+        private int threads = 2;
+        private int queueSize = 1000;
+        private double beta = 1.0;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public double getBeta() {
+            return beta;
+        }
+
+        public void setBeta(double beta) {
+            this.beta = beta;
+        }
+    }
+
+    /**
+     * 命名空间版本
+     */
+    public static class Namespace {
+        private int maxSize = 10000;
+        /**
+         * 本地版本直接使用的时间 单位毫秒
+         * 默认0，每次都查询 memcached 的版本，其他节点的更新马上可见；
+         * 大于0时省去版本查询的往返，但其他节点更新后本节点最多在 ttl 内读到旧数据，
+         * 能接受这个延迟时可以设为 1000
+         */
+        private long ttl = 0L;
+        /**
+         * 更新时新建命名空间的有效时间 单位秒
+         */
+        private int exp = 1800;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getExp() {
+            return exp;
+        }
+
+        public void setExp(int exp) {
+            this.exp = exp;
+        }
+    }
+
+    /**
+     * 不存在的记录
+     */
+    public static class Negative {
+        /**
+         * memcached 中不存在记录的有效时间 单位秒，注解 nullExp 优先；
+         * 默认0和原来一样使用缓存的有效时间 exp，建议 60，新增的记录更快可见
+         */
+        private int exp = 0;
+        /**
+         * 进程内最多记录的不存在 key 数，0 不启用
+         */
+        private int localMaxSize = 0;
+        /**
+         * 进程内记录的有效时间 单位毫秒
+         */
+        private long localTtl = 5000L;
+        /**
+         * memcached 中用 tombstone 记录不存在，默认 false 仍放入字符串 “null”
+         * 旧版本把 tombstone 读成空字符串，所有读取的节点升级后再打开
+         */
+        private boolean tombstone = false;
+
+        public int getExp() {
+            return exp;
+        }
+
+        public void setExp(int exp) {
+            this.exp = exp;
+        }
+
+        public int getLocalMaxSize() {
+            return localMaxSize;
+        }
+
+        public void setLocalMaxSize(int localMaxSize) {
+            this.localMaxSize = localMaxSize;
+        }
+
+        public long getLocalTtl() {
+            return localTtl;
+        }
+
+        public void setLocalTtl(long localTtl) {
+            this.localTtl = localTtl;
+        }
+
+        public boolean isTombstone() {
+            return tombstone;
+        }
+
+        public void setTombstone(boolean tombstone) {
+            this.tombstone = tombstone;
+        }
+    }
+
+    public String getServers() {
+        return servers;
+    }
+
+    public void setServers(String servers) {
+        this.servers = servers;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public String getSessionLocator() {
+        return sessionLocator;
+    }
+
+    public void setSessionLocator(String sessionLocator) {
+        this.sessionLocator = sessionLocator;
+    }
+
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    public void setConnectionPoolSize(int connectionPoolSize) {
+        this.connectionPoolSize = connectionPoolSize;
+    }
+
+    public int getSelectorPoolSize() {
+        return selectorPoolSize;
+    }
+
+    public void setSelectorPoolSize(int selectorPoolSize) {
+        this.selectorPoolSize = selectorPoolSize;
+    }
+
+    public int getMaxGatheringWrites() {
+        return maxGatheringWrites;
+    }
+
+    public void setMaxGatheringWrites(int maxGatheringWrites) {
+        this.maxGatheringWrites = maxGatheringWrites;
+    }
+
+    public int getMaxGatheringBytes() {
+        return maxGatheringBytes;
+    }
+
+    public void setMaxGatheringBytes(int maxGatheringBytes) {
+        this.maxGatheringBytes = maxGatheringBytes;
+    }
+
+    public boolean isDirectBuffer() {
+        return directBuffer;
+    }
+
+    public void setDirectBuffer(boolean directBuffer) {
+        this.directBuffer = directBuffer;
+    }
+
+    public int getMinReadBufferSize() {
+        return minReadBufferSize;
+    }
+
+    public void setMinReadBufferSize(int minReadBufferSize) {
+        this.minReadBufferSize = minReadBufferSize;
+    }
+
+    public int getMaxReadBufferSize() {
+        return maxReadBufferSize;
+    }
+
+    public void setMaxReadBufferSize(int maxReadBufferSize) {
+        this.maxReadBufferSize = maxReadBufferSize;
+    }
+
+    public boolean isKeepReadInterest() {
+        return keepReadInterest;
+    }
+
+    public void setKeepReadInterest(boolean keepReadInterest) {
+        this.keepReadInterest = keepReadInterest;
+    }
+
+    public long getOpTimeout() {
+        return opTimeout;
+    }
+
+    public void setOpTimeout(long opTimeout) {
+        this.opTimeout = opTimeout;
+    }
+
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getMergeFactor() {
+        return mergeFactor;
+    }
+
+    public void setMergeFactor(int mergeFactor) {
+        this.mergeFactor = mergeFactor;
+    }
+
+    public boolean isOptimizeGet() {
+        return optimizeGet;
+    }
+
+    public void setOptimizeGet(boolean optimizeGet) {
+        this.optimizeGet = optimizeGet;
+    }
+
+    public boolean isOptimizeMergeBuffer() {
+        return optimizeMergeBuffer;
+    }
+
+    public void setOptimizeMergeBuffer(boolean optimizeMergeBuffer) {
+        this.optimizeMergeBuffer = optimizeMergeBuffer;
+    }
+
+    public String getBufferAllocator() {
+        return bufferAllocator;
+    }
+
+    public void setBufferAllocator(String bufferAllocator) {
+        this.bufferAllocator = bufferAllocator;
+    }
+
+    public boolean isEnableHealSession() {
+        return enableHealSession;
+    }
+
+    public void setEnableHealSession(boolean enableHealSession) {
+        this.enableHealSession = enableHealSession;
+    }
+
+    public long getHealSessionInterval() {
+        return healSessionInterval;
+    }
+
+    public void setHealSessionInterval(long healSessionInterval) {
+        this.healSessionInterval = healSessionInterval;
+    }
+
+    public int getMaxQueuedNoReplyOperations() {
+        return maxQueuedNoReplyOperations;
+    }
+
+    public void setMaxQueuedNoReplyOperations(int maxQueuedNoReplyOperations) {
+        this.maxQueuedNoReplyOperations = maxQueuedNoReplyOperations;
+    }
+
+    public int getMaxKeysPerGet() {
+        return maxKeysPerGet;
+    }
+
+    public void setMaxKeysPerGet(int maxKeysPerGet) {
+        this.maxKeysPerGet = maxKeysPerGet;
+    }
+
+    public int getMaxBytesPerGet() {
+        return maxBytesPerGet;
+    }
+
+    public void setMaxBytesPerGet(int maxBytesPerGet) {
+        this.maxBytesPerGet = maxBytesPerGet;
+    }
+
+    public long getCasBackoffBase() {
+        return casBackoffBase;
+    }
+
+    public void setCasBackoffBase(long casBackoffBase) {
+        this.casBackoffBase = casBackoffBase;
+    }
+
+    public long getCasBackoffMax() {
+        return casBackoffMax;
+    }
+
+    public void setCasBackoffMax(long casBackoffMax) {
+        this.casBackoffMax = casBackoffMax;
+    }
+
+    public boolean isCasCombining() {
+        return casCombining;
+    }
+
+    public void setCasCombining(boolean casCombining) {
+        this.casCombining = casCombining;
+    }
+
+    public Transcoder getTranscoder() {
+        return transcoder;
+    }
+
+    public Local getLocal() {
+        return local;
+    }
+
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public Lease getLease() {
+        return lease;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public Refresh getRefresh() {
+        return refresh;
+    }
+
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    public Negative getNegative() {
+        return negative;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ouyang.memcached.cache;
+
+import java.io.Serializable;
+
+/**
+ * 提前刷新（refreshAhead）时放入 memcached 的包装对象
+ * 除了缓存的对象，还记录写入时间和加载耗时，用来判断是否需要提前刷新
+ *
+ * @author ouyang
+ * @since 2016-03-10 14:05
+ */
+public class CacheEnvelope implements Serializable {
+
+    private static final long serialVersionUID = 4021865743370218771L;
+
+    /**
+     * 缓存的对象
+     */
+    private final Object value;
+    /**
+     * 写入时间 单位毫秒
+     */
+    private final long writeTime;
+    /**
+     * 加载耗时 单位毫秒
+     */
+    private final long delta;
+
+    /**
+     * 给 CompactTranscoder 反序列化用
+     */
+    private CacheEnvelope() {
+        this(null, 0, 0);
+    }
+
+    public CacheEnvelope(Object value, long writeTime, long delta) {
+        this.value = value;
+        this.writeTime = writeTime;
+        this.delta = delta;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    public long getDelta() {
+        return delta;
+    }
+}
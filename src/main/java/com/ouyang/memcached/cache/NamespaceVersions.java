@@ -0,0 +1,96 @@
+package com.ouyang.memcached.cache;
+
+/**
+ * 命名空间版本的本地缓存
+ * <p>
+ * 版本在 ttl 内直接使用，不访问 memcached；超过 ttl 的一半时仍然使用，同时后台刷新；
+ * 超过 ttl 后不再直接使用，但作为推测的版本保留，和数据 key 放在同一次 multi-get 中查询，
+ * 版本没有变化时一次往返就能取到数据。
+ * <p>
+ * 其他节点更新命名空间后，本节点最多在 ttl 内读到旧版本的数据。
+ * ttl 为0时本地版本从不直接使用，每次都查询 memcached，只用来推测数据 key
+ *
+ * @author ouyang
+ * @since 2016-03-16 10:40
+ */
+public class NamespaceVersions {
+
+    private final NearCache versions;
+
+    private final long ttlMills;
+
+    /**
+     * @param maxSize  最多缓存的命名空间数
+     * @param ttlMills 本地版本直接使用的最长时间 单位毫秒，小于等于0时每次都查询 memcached
+     */
+    public NamespaceVersions(int maxSize, long ttlMills) {
+        this.versions = new NearCache(maxSize);
+        this.ttlMills = ttlMills;
+    }
+
+    /**
+     * 查询本地版本
+     *
+     * @param namespaceKey 命名空间 key
+     * @return 没有返回 null
+     */
+    public Version get(String namespaceKey) {
+        return (Version) this.versions.get(namespaceKey);
+    }
+
+    /**
+     * 放入从 memcached 取到的版本
+     *
+     * @param namespaceKey 命名空间 key
+     * @param version      版本
+     * @param keepMills    作为推测版本保留的时间 单位毫秒，一般为命名空间在 memcached 中的有效时间
+     */
+    public void put(String namespaceKey, String version, long keepMills) {
+        this.versions.put(namespaceKey, new Version(version, System.currentTimeMillis()),
+                Math.max(keepMills, this.ttlMills));
+    }
+
+    /**
+     * 清除本地版本
+     *
+     * @param namespaceKey 命名空间 key
+     */
+    public void invalidate(String namespaceKey) {
+        this.versions.invalidate(namespaceKey);
+    }
+
+    public long getTtlMills() {
+        return ttlMills;
+    }
+
+    /**
+     * 本地缓存的版本
+     */
+    public final class Version {
+        private final String value;
+        private final long fetchTime;
+
+        Version(String value, long fetchTime) {
+            this.value = value;
+            this.fetchTime = fetchTime;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @return 是否可以不查询 memcached 直接使用
+         */
+        public boolean isFresh(long now) {
+            return now - this.fetchTime < ttlMills;
+        }
+
+        /**
+         * @return 是否需要后台刷新
+         */
+        public boolean shouldRefresh(long now) {
+            return now - this.fetchTime >= ttlMills / 2;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ouyang.memcached.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内本地缓存（L1），放在 memcached 之前，用于热点数据
+ * <p>
+ * 分段 LRU：按 key 的 hash 分到多个段，每段是 access-order 的 LinkedHashMap，
+ * 超过段容量时淘汰最久未访问的条目；每个条目有自己的过期时间，读取时惰性清除。
+ * 总容量按条目数限制。
+ * <p>
+ * 本地缓存的对象是同一个实例，调用方不要修改返回的对象
+ *
+ * @author ouyang
+ * @since 2016-03-02 10:12
+ */
+public class NearCache {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    /**
+     * @param maxSize 最多缓存的条目数
+     */
+    public NearCache(int maxSize) {
+        this(maxSize, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param maxSize     最多缓存的条目数
+     * @param concurrency 分段数，会向上取整为2的幂
+     */
+    public NearCache(int maxSize, int concurrency) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize<=0");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency<=0");
+        }
+        int segmentCount = 1;
+        while (segmentCount < concurrency && segmentCount < maxSize) {
+            segmentCount <<= 1;
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+        int segmentCapacity = (maxSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * 查询本地缓存
+     *
+     * @param key 缓存 key
+     * @return 未命中或已过期返回 null
+     */
+    public Object get(String key) {
+        return this.segmentFor(key).get(key, System.currentTimeMillis());
+    }
+
+    /**
+     * 放入本地缓存
+     *
+     * @param key      缓存 key
+     * @param value    缓存对象
+     * @param ttlMills 有效时间 单位毫秒，小于等于0不缓存
+     */
+    public void put(String key, Object value, long ttlMills) {
+        if (value == null || ttlMills <= 0) {
+            return;
+        }
+        this.segmentFor(key).put(key, value, System.currentTimeMillis() + ttlMills);
+    }
+
+    /**
+     * 清除本地缓存
+     *
+     * @param key 缓存 key
+     */
+    public void invalidate(String key) {
+        this.segmentFor(key).remove(key);
+    }
+
+    /**
+     * 清除全部本地缓存
+     */
+    public void invalidateAll() {
+        for (Segment segment : this.segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return 当前缓存的条目数（包括还未清除的过期条目）
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return this.segments[h & this.segmentMask];
+    }
+
+    private static final class CacheEntry {
+        final Object value;
+        final long expireAt;
+
+        CacheEntry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<String, CacheEntry> {
+
+        private static final long serialVersionUID = -6571224624364436018L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        synchronized Object get(String key, long now) {
+            CacheEntry entry = super.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt <= now) {
+                super.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(String key, Object value, long expireAt) {
+            super.put(key, new CacheEntry(value, expireAt));
+        }
+
+        synchronized void remove(String key) {
+            super.remove(key);
+        }
+
+        @Override
+        public synchronized void clear() {
+            super.clear();
+        }
+
+        @Override
+        public synchronized int size() {
+            return super.size();
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return this.size() > this.capacity;
+        }
+    }
+}
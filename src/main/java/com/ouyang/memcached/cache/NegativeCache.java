@@ -0,0 +1,65 @@
+package com.ouyang.memcached.cache;
+
+/**
+ * 进程内的不存在记录，命中时不再查询 memcached
+ * <p>
+ * 用有过期时间的 LRU 精确记录不存在的 key，而不是布隆过滤器：
+ * 数据新增时需要删除对应的记录，布隆过滤器做不到。
+ * 本节点更新时马上清除，其他节点更新后最多 ttl 内仍认为不存在
+ *
+ * @author ouyang
+ * @since 2016-03-21 15:20
+ */
+public class NegativeCache {
+
+    private final NearCache keys;
+
+    private final long ttlMills;
+
+    /**
+     * @param maxSize  最多记录的 key 数，小于等于0不启用
+     * @param ttlMills 记录的有效时间 单位毫秒
+     */
+    public NegativeCache(int maxSize, long ttlMills) {
+        this.keys = maxSize > 0 && ttlMills > 0 ? new NearCache(maxSize) : null;
+        this.ttlMills = ttlMills;
+    }
+
+    /**
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return this.keys != null;
+    }
+
+    /**
+     * @param key 缓存 key
+     * @return 是否记录为不存在
+     */
+    public boolean contains(String key) {
+        return this.keys != null && this.keys.get(key) != null;
+    }
+
+    /**
+     * 记录 key 不存在
+     *
+     * @param key      缓存 key
+     * @param maxMills 最长记录时间 单位毫秒，不超过 memcached 中 tombstone 的有效时间
+     */
+    public void add(String key, long maxMills) {
+        if (this.keys != null) {
+            this.keys.put(key, Boolean.TRUE, Math.min(this.ttlMills, maxMills));
+        }
+    }
+
+    /**
+     * 清除记录
+     *
+     * @param key 缓存 key
+     */
+    public void invalidate(String key) {
+        if (this.keys != null) {
+            this.keys.invalidate(key);
+        }
+    }
+}
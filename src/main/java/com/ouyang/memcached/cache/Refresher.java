@@ -0,0 +1,93 @@
+package com.ouyang.memcached.cache;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存提前刷新
+ * <p>
+ * 按 XFetch 算法判断是否提前刷新：now - delta * beta * ln(random) >= expireTime，
+ * 越接近过期、加载越慢，提前刷新的概率越大，避免缓存同时过期造成的请求高峰。
+ * 刷新在有界线程池中执行，同一个 key 同时只刷新一次，队列满时放弃刷新。
+ *
+ * @author ouyang
+ * @since 2016-03-10 14:05
+ */
+public class Refresher {
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, Boolean> refreshing = new ConcurrentHashMap<>();
+    private final double beta;
+
+    /**
+     * @param threads   刷新线程数
+     * @param queueSize 等待刷新的最大任务数
+     * @param beta      大于1更早刷新，小于1更晚刷新
+     */
+    public Refresher(int threads, int queueSize, double beta) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads<=0");
+        }
+        if (beta <= 0) {
+            throw new IllegalArgumentException("beta<=0");
+        }
+        this.beta = beta;
+        final AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "memcache-refresh-" + threadCounter.getAndIncrement());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 是否需要提前刷新
+     *
+     * @param envelope 缓存的包装对象
+     * @param ttlMills 缓存有效时间 单位毫秒
+     * @return 需要刷新返回 true
+     */
+    public boolean shouldRefresh(CacheEnvelope envelope, long ttlMills) {
+        long expireTime = envelope.getWriteTime() + ttlMills;
+        double random = ThreadLocalRandom.current().nextDouble();
+        //random 为0时 ln 为负无穷，一定刷新
+        return System.currentTimeMillis() - Math.max(envelope.getDelta(), 1) * beta * Math.log(random) >= expireTime;
+    }
+
+    /**
+     * 后台刷新，同一个 key 正在刷新或者队列满时直接返回
+     *
+     * @param key  缓存 key
+     * @param task 刷新任务
+     */
+    public void refresh(final String key, final Runnable task) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //队列满或者已经关闭，放弃这次刷新
+            refreshing.remove(key);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,84 @@
+package com.ouyang.memcached.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一个 JVM 内合并相同 key 的并发加载
+ * <p>
+ * 同一时刻同一个 key 只有一个线程执行加载，其他线程等待它的结果，
+ * 等待超时后自己执行加载，避免缓存失效时大量请求同时打到数据库
+ *
+ * @author ouyang
+ * @since 2016-03-08 11:20
+ */
+public class SingleFlight {
+
+    private final ConcurrentHashMap<String, Call> calls = new ConcurrentHashMap<>();
+
+    private final long timeoutMills;
+
+    /**
+     * @param timeoutMills 等待其他线程加载结果的最长时间 单位毫秒
+     */
+    public SingleFlight(long timeoutMills) {
+        if (timeoutMills <= 0) {
+            throw new IllegalArgumentException("timeoutMills<=0");
+        }
+        this.timeoutMills = timeoutMills;
+    }
+
+    /**
+     * 加载数据
+     */
+    public interface Loader {
+        Object load() throws Throwable;
+    }
+
+    /**
+     * 执行加载，同一个 key 正在加载时等待它的结果
+     *
+     * @param key    缓存 key
+     * @param loader 加载方法
+     * @return 加载结果
+     * @throws Throwable 加载抛出的异常，等待的线程也会收到同样的异常
+     */
+    public Object execute(String key, Loader loader) throws Throwable {
+        Call call = new Call();
+        Call running = calls.putIfAbsent(key, call);
+        if (running != null) {
+            if (running.latch.await(this.timeoutMills, TimeUnit.MILLISECONDS)) {
+                if (running.throwable != null) {
+                    throw running.throwable;
+                }
+                return running.value;
+            }
+            //等待超时 自己加载
+            return loader.load();
+        }
+        try {
+            call.value = loader.load();
+            return call.value;
+        } catch (Throwable t) {
+            call.throwable = t;
+            throw t;
+        } finally {
+            calls.remove(key, call);
+            call.latch.countDown();
+        }
+    }
+
+    /**
+     * @return 正在加载的 key 数量
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    private static final class Call {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile Object value;
+        volatile Throwable throwable;
+    }
+}
@@ -0,0 +1,429 @@
+package com.ouyang.memcached.interceptor;
+
+import com.alibaba.fastjson.JSON;
+import com.ouyang.memcached.MD5;
+import com.ouyang.memcached.annotation.MemcacheNamespaceKey;
+import com.ouyang.memcached.annotation.MemcachePrimaryKey;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每个被拦截方法的 key 生成计划
+ * <p>
+ * 参数注解、参数类型的 json、方法名、返回类型只在第一次调用时解析，之后从缓存中取，
+ * 每次调用只需要拼接参数。生成的 key 和原来逐次解析的方式完全一致。
+ *
+ * @author ouyang
+ * @since 2016-03-04 15:40
+ */
+final class KeyPlan {
+
+    /**
+     * memcached key 的最大字节长度，超过用 md5 转码
+     */
+    private static final int MAX_KEY_LENGTH = 250;
+
+    private static final ConcurrentHashMap<Method, KeyPlan> PLANS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * 批量查询的返回类型
+     */
+    enum BatchResult {
+        LIST, SET, MAP
+    }
+
+    /**
+     * MemcachePrimaryKey 参数下标
+     */
+    private final int[] primaryKeyIndexes;
+    /**
+     * MemcacheNamespaceKey 参数下标
+     */
+    private final int[] namespaceKeyIndexes;
+    /**
+     * '_' + 方法名 + '_' + 参数类型的 json
+     */
+    private final String methodPart;
+    /**
+     * 返回类型名
+     */
+    private final String returnName;
+    /**
+     * 集合类型的 MemcachePrimaryKey 参数下标，没有为 -1
+     */
+    private final int batchIndex;
+    /**
+     * 批量查询的返回类型，返回类型不支持批量查询时为 null
+     */
+    private final BatchResult batchResult;
+    /**
+     * 集合类型的 MemcachePrimaryKey 参数声明的类型
+     */
+    private final Class<?> idsType;
+    /**
+     * 返回集合中元素的主键读取方法或字段，返回 Map 时为 null
+     */
+    private final Object idAccessor;
+
+    private KeyPlan(Method method) {
+        List<Integer> primary = new ArrayList<>(1);
+        List<Integer> namespace = new ArrayList<>(1);
+        int batch = -1;
+        String property = null;
+        Class<?> batchType = null;
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Annotation[][] paramsAnoAry = method.getParameterAnnotations();
+        for (int i = 0; i < paramsAnoAry.length; i++) {
+            for (Annotation annotation : paramsAnoAry[i]) {
+                if (annotation instanceof MemcacheNamespaceKey) {
+                    namespace.add(i);
+                }
+                if (annotation instanceof MemcachePrimaryKey) {
+                    primary.add(i);
+                    if (batch < 0 && Collection.class.isAssignableFrom(parameterTypes[i])) {
+                        batch = i;
+                        property = ((MemcachePrimaryKey) annotation).value();
+                        batchType = parameterTypes[i];
+                    }
+                }
+            }
+        }
+        BatchResult result = batch < 0 || !canCopy(batchType) ? null : batchResultOf(method.getReturnType());
+        Object accessor = null;
+        if (result == BatchResult.LIST || result == BatchResult.SET) {
+            //元素没有主键属性（如 List<String>）时不按主键分别缓存，仍按整个列表缓存
+            accessor = findAccessor(elementType(method.getGenericReturnType()), property);
+            if (accessor == null) {
+                result = null;
+            }
+        }
+        this.batchIndex = batch;
+        this.idsType = batchType;
+        this.batchResult = result;
+        this.idAccessor = accessor;
+        this.primaryKeyIndexes = toArray(primary);
+        this.namespaceKeyIndexes = toArray(namespace);
+        this.methodPart = '_' + method.getName() + '_' + JSON.toJSONString(method.getParameterTypes());
+        this.returnName = method.getReturnType().getName();
+    }
+
+    /**
+     * 取方法的 key 生成计划，没有则解析并缓存
+     *
+     * @param method 被拦截的方法
+     * @return key 生成计划
+     */
+    static KeyPlan of(Method method) {
+        KeyPlan plan = PLANS.get(method);
+        if (plan == null) {
+            plan = new KeyPlan(method);
+            KeyPlan old = PLANS.putIfAbsent(method, plan);
+            if (old != null) {
+                plan = old;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return 是否有 MemcacheNamespaceKey 参数（不考虑参数值）
+     */
+    boolean hasNamespaceKey() {
+        return this.namespaceKeyIndexes.length > 0;
+    }
+
+    /**
+     * 主键 key：dao 类名 + 第一个非空的 MemcachePrimaryKey 参数
+     *
+     * @return 没有主键参数或参数都为 null 返回 null
+     */
+    String primaryKey(String daoClassName, Object[] args) {
+        Object arg = firstNonNull(this.primaryKeyIndexes, args);
+        return arg == null ? null : finish(daoClassName + arg.toString());
+    }
+
+    /**
+     * 命名空间 key：dao 类名 + 第一个非空的 MemcacheNamespaceKey 参数
+     *
+     * @return 没有命名空间参数或参数都为 null 返回 null
+     */
+    String namespaceKey(String daoClassName, Object[] args) {
+        Object arg = firstNonNull(this.namespaceKeyIndexes, args);
+        return arg == null ? null : finish(daoClassName + arg.toString());
+    }
+
+    /**
+     * 方法 key：[namespace_]dao类名_方法名_参数类型json参数json返回类型
+     *
+     * @param namespace    命名空间版本，没有传 null
+     * @param daoClassName dao 类名
+     * @param args         方法参数
+     * @return memcached key
+     */
+    String methodKey(String namespace, String daoClassName, Object[] args) {
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        if (namespace != null) {
+            sb.append(namespace).append('_');
+        }
+        sb.append(daoClassName).append(this.methodPart);
+        appendArgs(sb, args);
+        sb.append(this.returnName);
+        return finish(sb);
+    }
+
+    /**
+     * @return MemcachePrimaryKey 参数是否是集合
+     */
+    boolean isBatch() {
+        return this.batchIndex >= 0;
+    }
+
+    /**
+     * @return 批量查询的返回类型，不支持批量查询时返回 null
+     */
+    BatchResult batchResult() {
+        return this.batchResult;
+    }
+
+    /**
+     * @return 集合类型的 MemcachePrimaryKey 参数下标
+     */
+    int batchIndex() {
+        return this.batchIndex;
+    }
+
+    /**
+     * 单个主键的 key，和单条查询的主键 key 一样：dao 类名 + 主键
+     */
+    String batchKey(String daoClassName, Object id) {
+        return finish(daoClassName + id.toString());
+    }
+
+    /**
+     * 未命中主键的集合，能赋值给参数声明的类型
+     *
+     * @param ids 参数中的主键集合
+     */
+    @SuppressWarnings("unchecked")
+    Collection<Object> newMissIds(Collection<?> ids) {
+        if (this.idsType.isAssignableFrom(LinkedHashSet.class)
+            && (ids instanceof Set || !this.idsType.isAssignableFrom(ArrayList.class))) {
+            return new LinkedHashSet<>();
+        }
+        if (this.idsType.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<>();
+        }
+        //SortedSet、NavigableSet、TreeSet 保持原来的排序
+        return new TreeSet<>(((SortedSet<Object>) ids).comparator());
+    }
+
+    /**
+     * 集合中每个主键的 key
+     *
+     * @return key 到主键的映射，保持参数中的顺序
+     */
+    Map<String, Object> batchKeys(String daoClassName, Object[] args) {
+        Collection<?> ids = (Collection<?>) args[this.batchIndex];
+        if (ids == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>(ids.size() * 2);
+        for (Object id : ids) {
+            if (id != null) {
+                keys.put(this.batchKey(daoClassName, id), id);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 读取返回集合中元素的主键：getter、is 方法或者字段
+     */
+    Object idOf(Object element) throws ReflectiveOperationException {
+        if (this.idAccessor instanceof Method) {
+            return ((Method) this.idAccessor).invoke(element);
+        }
+        return ((Field) this.idAccessor).get(element);
+    }
+
+    /**
+     * @return 主键的 getter、is 方法或者字段，找不到返回 null
+     */
+    private static Object findAccessor(Class<?> clazz, String property) {
+        if (clazz == null || clazz == Object.class || property.isEmpty()) {
+            return null;
+        }
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String name : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method getter = clazz.getMethod(name);
+                getter.setAccessible(true);
+                return getter;
+            } catch (NoSuchMethodException e) {
+                //继续查找
+            }
+        }
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(property);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                //继续查找父类
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return List、Set 返回类型声明的元素类型，没有声明或是类型变量时返回 null
+     */
+    private static Class<?> elementType(Type returnType) {
+        if (!(returnType instanceof ParameterizedType)) {
+            return null;
+        }
+        Type element = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+        if (element instanceof ParameterizedType) {
+            element = ((ParameterizedType) element).getRawType();
+        }
+        return element instanceof Class ? (Class<?>) element : null;
+    }
+
+    /**
+     * 参数声明的集合类型是否能用 ArrayList、LinkedHashSet 或 TreeSet 赋值
+     */
+    private static boolean canCopy(Class<?> idsType) {
+        return idsType.isAssignableFrom(ArrayList.class)
+               || idsType.isAssignableFrom(LinkedHashSet.class)
+               || idsType.isAssignableFrom(TreeSet.class);
+    }
+
+    private static BatchResult batchResultOf(Class<?> returnType) {
+        if (returnType == Object.class) {
+            return null;
+        }
+        if (returnType.isAssignableFrom(ArrayList.class)) {
+            return BatchResult.LIST;
+        }
+        if (returnType.isAssignableFrom(LinkedHashSet.class)) {
+            return BatchResult.SET;
+        }
+        if (returnType.isAssignableFrom(LinkedHashMap.class)) {
+            return BatchResult.MAP;
+        }
+        return null;
+    }
+
+    private static Object firstNonNull(int[] indexes, Object[] args) {
+        for (int index : indexes) {
+            if (args[index] != null) {
+                return args[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 和 JSON.toJSONString(args) 输出一致：参数都是简单类型时直接拼接，
+     * 有其他类型时整个数组走 json 序列化（同一对象出现多次时输出 $ref，不能逐个序列化）
+     */
+    private static void appendArgs(StringBuilder sb, Object[] args) {
+        for (Object arg : args) {
+            if (!isSimple(arg)) {
+                sb.append(JSON.toJSONString(args));
+                return;
+            }
+        }
+        sb.append('[');
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            Object arg = args[i];
+            if (arg instanceof String) {
+                sb.append('"').append((String) arg).append('"');
+            } else {
+                sb.append(arg);
+            }
+        }
+        sb.append(']');
+    }
+
+    private static boolean isSimple(Object arg) {
+        return arg == null || arg instanceof Integer || arg instanceof Long
+               || arg instanceof Short || arg instanceof Byte
+               || arg instanceof Boolean
+               || (arg instanceof String && isPlain((String) arg));
+    }
+
+    /**
+     * json 序列化时不需要转义的字符串
+     */
+    private static boolean isPlain(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                  || c == '_' || c == '-' || c == '.' || c == ':' || c == ',' || c == ' ' || c == '@')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * memcachedKey的字节长度不能超过250个，超过250长度的用md5转码
+     * <p>
+     * md5 的输入和原来一样用平台默认编码，否则非 UTF-8 环境下长 key 都会变
+     */
+    private static String finish(CharSequence key) {
+        if (utf8Length(key) > MAX_KEY_LENGTH) {
+            return MD5.getMD5String(key.toString().getBytes());
+        }
+        return key.toString();
+    }
+
+    private static int utf8Length(CharSequence s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        if (list.isEmpty()) {
+            return EMPTY;
+        }
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+}
@@ -1,13 +1,16 @@
 package com.ouyang.memcached.interceptor;
 
-import com.alibaba.fastjson.JSON;
-import com.ouyang.memcached.annotation.MemcacheNamespaceKey;
 import com.ouyang.memcached.MD5;
+import com.ouyang.memcached.cache.CacheEnvelope;
+import com.ouyang.memcached.cache.NamespaceVersions;
+import com.ouyang.memcached.cache.NearCache;
+import com.ouyang.memcached.cache.NegativeCache;
+import com.ouyang.memcached.cache.Refresher;
+import com.ouyang.memcached.cache.SingleFlight;
 import com.ouyang.memcached.annotation.Memcache;
-import com.ouyang.memcached.annotation.MemcachePrimaryKey;
 import com.ouyang.xmemcached.XMemcachedClient;
 import com.ouyang.xmemcached.exception.MemcachedException;
-import com.ouyang.xmemcached.utils.ByteUtils;
+import com.ouyang.xmemcached.transcoders.Tombstone;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
@@ -18,9 +21,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.lang.annotation.Annotation;
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.*;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -39,9 +42,53 @@ public class MemcacheInterceptor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MemcacheInterceptor.class);
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 等待其他节点加载时轮询缓存的间隔 单位毫秒
+     */
+    private static final long LEASE_POLL_MILLS = 50L;
+
     @Autowired
     private XMemcachedClient commonMemcachedClient;
 
+    @Autowired
+    private NearCache commonNearCache;
+
+    @Autowired
+    private SingleFlight commonSingleFlight;
+
+    @Autowired
+    private Refresher commonRefresher;
+
+    @Autowired
+    private NamespaceVersions commonNamespaceVersions;
+
+    @Autowired
+    private NegativeCache commonNegativeCache;
+
+    /**
+     * 没抢到加载锁时等待其他节点加载的最长时间 单位毫秒
+     */
+    private long leaseWaitMills = 1000L;
+
+    /**
+     * 缓存未命中加载后是否异步放入缓存，不等待 memcached 的响应
+     */
+    private boolean asyncFill;
+
+    /**
+     * 原方法返回 null 时在 memcached 中记录不存在的有效时间 单位秒，注解中没有指定时使用
+     * 0 使用缓存的有效时间 exp
+     */
+    private int nullExp;
+
+    /**
+     * 不存在时放入 tombstone，默认放入旧版本的字符串 “null”
+     * 旧版本的节点把 tombstone 读成空字符串，全部节点升级后才能打开
+     */
+    private boolean tombstone;
+
     /**
      * 拦截 @Memcache  aop
      *
@@ -68,40 +115,14 @@ public class MemcacheInterceptor {
         try {
             Signature signature = joinPoint.getSignature();
             MethodSignature methodSignature = (MethodSignature) signature;
+            Method method = methodSignature.getMethod();
 
             //切面的方法参数
             Object[] args = joinPoint.getArgs();
 
-            //paramsAnoAry二维数组， 每一个paramsAnoAry[i] 可能有多个注解
-            //MemcacheNamespaceKey 0-N个
-            List<String> commonMemcacheNamespaceKeyArgList = new ArrayList<>();
-            //MemcachePrimaryKey  0-1个
-            List<String> commonMemcachePrimaryKeyArgList = new ArrayList<>();
-
-            Annotation[][] paramsAnoAry = methodSignature.getMethod().getParameterAnnotations();
-            //This inspection is intended for J2ME and other highly resource constrained environments.
-            // Applying the results of this inspection without consideration might have negative effects on code clarity and design.
-            //Reports any access to the .length of an array in the condition part of a loop statement.
-            // In highly resource constrained environments, such calls may have adverse performance implications.
-            int paaLength = paramsAnoAry.length;
-            for (int i = 0; i < paaLength; i++) {
-                Annotation[] annotationAry = paramsAnoAry[i];
-                if (annotationAry.length > 0) {
-                    for (Annotation annotation : annotationAry) {
-                        if (annotation instanceof MemcacheNamespaceKey) {
-                            if (args[i] != null) {
-                                commonMemcacheNamespaceKeyArgList.add(args[i].toString());
-                            }
-                        }
-                        if (annotation instanceof MemcachePrimaryKey) {
-                            if (args[i] != null) {
-                                commonMemcachePrimaryKeyArgList.add(args[i].toString());
-                            }
-                        }
-                    }
-                }
-            }
-            Memcache memcache = methodSignature.getMethod().getAnnotation(Memcache.class);
+            //参数注解等只在第一次调用时解析
+            KeyPlan keyPlan = KeyPlan.of(method);
+            Memcache memcache = method.getAnnotation(Memcache.class);
             int exp = memcache.exp();
             //非生产环境默认缓存为1分钟
 //            if(!"production".equals(ResourceMap.getEnv()) && exp == 30){
@@ -110,112 +131,481 @@ public class MemcacheInterceptor {
 
             //数据操作层class 一般统一为 DAO
             String daoClassName = joinPoint.getTarget().getClass().getName();
-            String methodName = methodSignature.getMethod().getName();
-            String returnName = methodSignature.getMethod().getReturnType().getName();
+
+            //集合类型的主键 按每个主键分别缓存
+            if (keyPlan.batchResult() != null) {
+                return this.batchCacheable(joinPoint, keyPlan, daoClassName, args, memcache);
+            }
 
             //主键优先使用
-            if (commonMemcachePrimaryKeyArgList.size() > 0) {
-                if (commonMemcacheNamespaceKeyArgList.size() > 0) {
+            String memcachedKey = keyPlan.primaryKey(daoClassName, args);
+            if (memcachedKey != null) {
+                if (keyPlan.hasNamespaceKey()) {
                     LOGGER.error("MemcachePrimaryKey 主键对象，单个对象，查询 会覆盖 MemcacheNamespaceKey");
                 }
-                //主键加上当前dao空间
-                String memcachedKey = daoClassName + commonMemcachePrimaryKeyArgList.get(0);
+                return this.cacheable(joinPoint, memcachedKey, memcache);
+            }
+
+            //批量 用命名空间方式来实现  commonMemcachePrimaryKey 会覆盖 commonMemcacheNamespaceKey
+            String namespaceKey = keyPlan.namespaceKey(daoClassName, args);
+            if (namespaceKey != null) {
+                return this.namespaceCacheable(joinPoint, keyPlan, daoClassName, args, namespaceKey, memcache);
+            }
+            memcachedKey = keyPlan.methodKey(null, daoClassName, args);
+            return this.cacheable(joinPoint, memcachedKey, memcache);
+        } catch (TimeoutException | InterruptedException | MemcachedException e) {
+            //如果出错直接执行原来的方法
+            LOGGER.error(e.getClass().getName(), e);
+            return joinPoint.proceed();
+        }
+    }
+
+    /**
+     * 先查本地缓存，再查 memcached，都没有则执行原方法并放入缓存
+     *
+     * @param joinPoint    代理点 切点
+     * @param memcachedKey 缓存 key
+     * @param memcache     方法上的注解
+     * @return 返回代理方法的返回值
+     * @throws Throwable
+     * @author ouyang
+     * @since 2016-03-02 10:12
+     */
+    private Object cacheable(final ProceedingJoinPoint joinPoint, final String memcachedKey,
+                             final Memcache memcache) throws Throwable {
+        int exp = memcache.exp();
+        //本地缓存有效时间不超过 memcached 的有效时间
+        final long localTtl = 1000L * Math.min(memcache.localExp(), 60 * exp);
 
-                //memcachedKey的字节长度不能超过250个，所以需要转码
-                //超过250长度的用md5转码
-                if (ByteUtils.getBytes(memcachedKey).length > 250) {
-                    memcachedKey = MD5.getMD5String(memcachedKey.getBytes());
+        //本进程记录为不存在，不查询 memcached
+        if (commonNegativeCache.contains(memcachedKey)) {
+            return null;
+        }
+        Object returnObject = localTtl > 0 ? commonNearCache.get(memcachedKey) : null;
+        if (returnObject != null) {
+            return isAbsent(returnObject) ? null : returnObject;
+        }
+        return this.resolve(joinPoint, memcachedKey, memcache, localTtl,
+                commonMemcachedClient.get(memcachedKey, 1000L));
+    }
+
+    /**
+     * 处理从 memcached 取到的值，没有则执行原方法并放入缓存
+     *
+     * @param cached memcached 中的值，没有为 null
+     * @return 返回代理方法的返回值
+     * @throws Throwable
+     */
+    private Object resolve(final ProceedingJoinPoint joinPoint, final String memcachedKey, final Memcache memcache,
+                           final long localTtl, Object cached) throws Throwable {
+        int exp = memcache.exp();
+        Object returnObject = cached;
+        if (returnObject instanceof CacheEnvelope) {
+            CacheEnvelope envelope = (CacheEnvelope) returnObject;
+            returnObject = envelope.getValue();
+            if (memcache.refreshAhead() && commonRefresher.shouldRefresh(envelope, 60000L * exp)) {
+                //继续返回当前的值，后台重新加载
+                this.refreshAsync(joinPoint, memcachedKey, memcache, localTtl);
+            }
+        }
+        //原方法返回 null 时缓存中记录为不存在
+        if (isAbsent(returnObject)) {
+            this.rememberAbsent(memcachedKey, memcache, localTtl);
+            return null;
+        }
+        if (returnObject != null && localTtl > 0) {
+            commonNearCache.put(memcachedKey, returnObject, localTtl);
+        }
+        if (returnObject == null) {
+            if (memcache.singleFlight()) {
+                //同一个 JVM 内同一个 key 只有一个线程去加载
+                returnObject = commonSingleFlight.execute(memcachedKey, new SingleFlight.Loader() {
+                    @Override
+                    public Object load() throws Throwable {
+                        return MemcacheInterceptor.this.load(joinPoint, memcachedKey, memcache, localTtl);
+                    }
+                });
+            } else {
+                returnObject = this.load(joinPoint, memcachedKey, memcache, localTtl);
+            }
+        }
+        return returnObject;
+    }
+
+    /**
+     * 命名空间查询
+     * 本地版本有效时直接查询数据 key；否则把命名空间 key 和用本地旧版本推测的数据 key
+     * 放在同一次 multi-get 中查询，版本没有变化时一次往返取到数据。
+     * 命名空间不存在时用 incr 初始化，多个节点同时初始化也只会得到同一个版本
+     *
+     * @return 返回代理方法的返回值
+     * @throws Throwable
+     * @author ouyang
+     * @since 2016-03-16 10:40
+     */
+    private Object namespaceCacheable(ProceedingJoinPoint joinPoint, KeyPlan keyPlan, String daoClassName,
+                                      Object[] args, String namespaceKey, Memcache memcache) throws Throwable {
+        int exp = memcache.exp();
+        long now = System.currentTimeMillis();
+        NamespaceVersions.Version local = commonNamespaceVersions.get(namespaceKey);
+        if (local != null && local.isFresh(now)) {
+            if (local.shouldRefresh(now)) {
+                this.refreshNamespace(namespaceKey, exp);
+            }
+            return this.cacheable(joinPoint, keyPlan.methodKey(local.getValue(), daoClassName, args), memcache);
+        }
+
+        String speculativeKey = local == null ? null : keyPlan.methodKey(local.getValue(), daoClassName, args);
+        Object speculative = null;
+        Object namespace;
+        if (speculativeKey == null) {
+            namespace = commonMemcachedClient.get(namespaceKey, 1000L);
+        } else {
+            Map<String, Object> values = commonMemcachedClient.get(Arrays.asList(namespaceKey, speculativeKey), 1000L);
+            namespace = values == null ? null : values.get(namespaceKey);
+            speculative = values == null ? null : values.get(speculativeKey);
+        }
+        if (namespace == null) {
+            namespace = commonMemcachedClient.incr(namespaceKey, 0, System.currentTimeMillis(), 1000L, 60 * exp);
+        }
+        commonNamespaceVersions.put(namespaceKey, namespace.toString(), 60000L * exp);
+
+        String memcachedKey = keyPlan.methodKey(namespace.toString(), daoClassName, args);
+        if (memcachedKey.equals(speculativeKey)) {
+            //版本没有变化，直接使用推测 key 的查询结果
+            long localTtl = 1000L * Math.min(memcache.localExp(), 60 * exp);
+            return this.resolve(joinPoint, memcachedKey, memcache, localTtl, speculative);
+        }
+        return this.cacheable(joinPoint, memcachedKey, memcache);
+    }
+
+    /**
+     * 后台刷新命名空间的本地版本
+     */
+    private void refreshNamespace(final String namespaceKey, final int exp) {
+        //加前缀，和同名的主键 key 的刷新区分开
+        commonRefresher.refresh("namespace_" + namespaceKey, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Object namespace = commonMemcachedClient.get(namespaceKey, 1000L);
+                    if (namespace != null) {
+                        commonNamespaceVersions.put(namespaceKey, namespace.toString(), 60000L * exp);
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("refresh namespace " + namespaceKey + " error", e);
                 }
+            }
+        });
+    }
 
-                Object returnObject = commonMemcachedClient.get(memcachedKey, 1000L);
+    /**
+     * 缓存未命中时加载数据
+     * lease 大于0时先用 memcached add 抢一个加载锁，抢到的节点加载并放入缓存，
+     * 没抢到的节点轮询缓存等待结果，等待超时后自己加载
+     *
+     * @return 返回代理方法的返回值
+     * @throws Throwable
+     * @author ouyang
+     * @since 2016-03-08 11:20
+     */
+    private Object load(ProceedingJoinPoint joinPoint, String memcachedKey, Memcache memcache, long localTtl) throws Throwable {
+        int lease = memcache.lease();
+        if (lease <= 0) {
+            return this.proceedAndSet(joinPoint, memcachedKey, memcache, localTtl);
+        }
+        String leaseKey = "lease_" + MD5.getMD5String(memcachedKey.getBytes(UTF_8));
+        if (commonMemcachedClient.add(leaseKey, lease, "1")) {
+            try {
+                return this.proceedAndSet(joinPoint, memcachedKey, memcache, localTtl);
+            } finally {
+                commonMemcachedClient.delete(leaseKey);
+            }
+        }
+        //其他节点正在加载，等待它放入缓存
+        long deadline = System.currentTimeMillis() + leaseWaitMills;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(LEASE_POLL_MILLS);
+            Object returnObject = commonMemcachedClient.get(memcachedKey, 1000L);
+            if (returnObject instanceof CacheEnvelope) {
+                returnObject = ((CacheEnvelope) returnObject).getValue();
+            }
+            if (isAbsent(returnObject)) {
+                this.rememberAbsent(memcachedKey, memcache, localTtl);
+                return null;
+            }
+            if (returnObject != null) {
+                if (localTtl > 0) {
+                    commonNearCache.put(memcachedKey, returnObject, localTtl);
+                }
+                return returnObject;
+            }
+        }
+        return this.proceedAndSet(joinPoint, memcachedKey, memcache, localTtl);
+    }
+
+    /**
+     * 执行原方法并放入缓存，返回 null 时放入不存在标记，有效时间为 nullExp
+     * refreshAhead 时放入包装对象，记录写入时间和加载耗时
+     */
+    private Object proceedAndSet(ProceedingJoinPoint joinPoint, String memcachedKey, Memcache memcache,
+                                 long localTtl) throws Throwable {
+        int exp = memcache.exp();
+        long start = System.currentTimeMillis();
+        Object returnObject = joinPoint.proceed();
+        if (returnObject == null) {
+            this.fill(memcachedKey, this.nullExp(memcache), this.absentValue(), asyncFill);
+            this.rememberAbsent(memcachedKey, memcache, localTtl);
+            return null;
+        }
+        if (memcache.refreshAhead()) {
+            long now = System.currentTimeMillis();
+            this.fill(memcachedKey, 60 * exp, new CacheEnvelope(returnObject, now, now - start), asyncFill);
+        } else {
+            this.fill(memcachedKey, 60 * exp, returnObject, asyncFill);
+        }
+        if (localTtl > 0) {
+            commonNearCache.put(memcachedKey, returnObject, localTtl);
+        }
+        return returnObject;
+    }
+
+    /**
+     * 缓存中的值是否表示不存在：tombstone，或者旧版本放入的字符串 “null”
+     */
+    private static boolean isAbsent(Object cached) {
+        return Tombstone.isTombstone(cached) || "null".equals(cached);
+    }
+
+    /**
+     * 放入 memcached 的不存在标记
+     */
+    private Object absentValue() {
+        return tombstone ? Tombstone.INSTANCE : "null";
+    }
+
+    /**
+     * 不存在记录在 memcached 中的有效时间 单位秒，不超过 exp
+     */
+    private int nullExp(Memcache memcache) {
+        int exp = memcache.nullExp() > 0 ? memcache.nullExp() : nullExp;
+        return exp > 0 ? Math.min(exp, 60 * memcache.exp()) : 60 * memcache.exp();
+    }
+
+    /**
+     * 在本地缓存和进程内的不存在记录中记下 key 不存在，有效时间不超过 nullExp
+     */
+    private void rememberAbsent(String memcachedKey, Memcache memcache, long localTtl) {
+        long absentTtl = 1000L * this.nullExp(memcache);
+        if (localTtl > 0) {
+            commonNearCache.put(memcachedKey, Tombstone.INSTANCE, Math.min(localTtl, absentTtl));
+        }
+        commonNegativeCache.add(memcachedKey, absentTtl);
+    }
+
+    /**
+     * 放入缓存
+     * 异步时不等待 memcached 的响应，未响应的操作数受 FlowControl 限制，
+     * 超过限制时退化为同步放入
+     *
+     * @param async 是否异步放入
+     */
+    private void fill(String key, int exp, Object value, boolean async)
+            throws InterruptedException, TimeoutException, MemcachedException {
+        if (async) {
+            try {
+                commonMemcachedClient.setWithNoReply(key, exp, value);
+                return;
+            } catch (IllegalStateException e) {
+                //noreply 操作太多，同步放入
+                LOGGER.warn("noreply set rejected, fallback to set: " + e.getMessage());
+            }
+        }
+        commonMemcachedClient.set(key, exp, value);
+    }
 
-                //object 查询为 null 返回 null 缓存放入对象 “null”
-                if ("null".equals(returnObject)) {
-                    return null;
+    /**
+     * 后台重新加载并放入缓存
+     */
+    private void refreshAsync(final ProceedingJoinPoint joinPoint, final String memcachedKey,
+                              final Memcache memcache, final long localTtl) {
+        commonRefresher.refresh(memcachedKey, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    MemcacheInterceptor.this.proceedAndSet(joinPoint, memcachedKey, memcache, localTtl);
+                } catch (Throwable e) {
+                    LOGGER.error("refresh " + memcachedKey + " error", e);
                 }
-                if (returnObject == null) {
-                    returnObject = joinPoint.proceed();
-                    if (returnObject == null) {
-                        commonMemcachedClient.set(memcachedKey, 60 * exp, "null");
-                    } else {
-                        commonMemcachedClient.set(memcachedKey, 60 * exp, returnObject);
+            }
+        });
+    }
+
+    /**
+     * 批量主键查询：一次 multi-get 查询所有主键的缓存，只把未命中的主键交给原方法，
+     * 查询结果按主键分别放入缓存，不存在的主键放入 tombstone
+     *
+     * @return 按参数中主键的顺序组装的 List、Set 或 Map
+     * @throws Throwable
+     * @author ouyang
+     * @since 2016-03-14 16:30
+     */
+    @SuppressWarnings("unchecked")
+    private Object batchCacheable(ProceedingJoinPoint joinPoint, KeyPlan keyPlan, String daoClassName,
+                                  Object[] args, Memcache memcache) throws Throwable {
+        Map<String, Object> keys = keyPlan.batchKeys(daoClassName, args);
+        if (keys.isEmpty()) {
+            return joinPoint.proceed();
+        }
+        int exp = memcache.exp();
+        long localTtl = 1000L * Math.min(memcache.localExp(), 60 * exp);
+
+        Map<String, Object> found = new HashMap<>(keys.size() * 2);
+        List<String> remoteKeys = new ArrayList<>(keys.size());
+        for (String key : keys.keySet()) {
+            Object cached = commonNegativeCache.contains(key) ? Tombstone.INSTANCE
+                            : localTtl > 0 ? commonNearCache.get(key) : null;
+            if (cached != null) {
+                found.put(key, cached);
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if (!remoteKeys.isEmpty()) {
+            Map<String, Object> remote = commonMemcachedClient.get(remoteKeys, 1000L);
+            if (remote != null) {
+                for (Map.Entry<String, Object> entry : remote.entrySet()) {
+                    Object cached = entry.getValue();
+                    if (cached instanceof CacheEnvelope) {
+                        cached = ((CacheEnvelope) cached).getValue();
+                    }
+                    if (isAbsent(cached)) {
+                        found.put(entry.getKey(), Tombstone.INSTANCE);
+                        this.rememberAbsent(entry.getKey(), memcache, localTtl);
+                    } else if (cached != null) {
+                        found.put(entry.getKey(), cached);
+                        if (localTtl > 0) {
+                            commonNearCache.put(entry.getKey(), cached, localTtl);
+                        }
                     }
                 }
-                return returnObject;
-            } else if (commonMemcacheNamespaceKeyArgList.size() > 0) {
-                //批量 用命名空间方式来实现  commonMemcachePrimaryKey 会覆盖 commonMemcacheNamespaceKey
-                //主键加上当前dao空间
-                String namespaceKey = daoClassName + commonMemcacheNamespaceKeyArgList.get(0);
-                //memcachedKey的字节长度不能超过250个，所以需要转码
-                //超过250长度的用md5转码
-                if (ByteUtils.getBytes(namespaceKey).length > 250) {
-                    namespaceKey = MD5.getMD5String(namespaceKey.getBytes());
+            }
+        }
+
+        if (found.size() < keys.size()) {
+            //只查询未命中的主键
+            Collection<?> ids = (Collection<?>) args[keyPlan.batchIndex()];
+            Collection<Object> missIds = keyPlan.newMissIds(ids);
+            for (Map.Entry<String, Object> entry : keys.entrySet()) {
+                if (!found.containsKey(entry.getKey())) {
+                    missIds.add(entry.getValue());
                 }
-                String namespace = commonMemcachedClient.get(namespaceKey, 1000L);
-                if (namespace == null) {
-                    namespace = String.valueOf(System.nanoTime());
-                    commonMemcachedClient.set(namespaceKey, 60 * exp, namespace);
+            }
+            Object[] missArgs = args.clone();
+            missArgs[keyPlan.batchIndex()] = missIds;
+            Map<String, Object> loaded;
+            try {
+                loaded = this.indexById(keyPlan, joinPoint.proceed(missArgs));
+            } catch (ReflectiveOperationException e) {
+                //读取不到元素的主键，按原参数查询，不放入缓存
+                LOGGER.error("read " + daoClassName + " batch result id error", e);
+                return joinPoint.proceed();
+            }
+            for (Object id : missIds) {
+                String key = keyPlan.batchKey(daoClassName, id);
+                Object value = loaded.get(id.toString());
+                if (value == null) {
+                    found.put(key, Tombstone.INSTANCE);
+                    this.fill(key, this.nullExp(memcache), this.absentValue(), asyncFill);
+                    this.rememberAbsent(key, memcache, localTtl);
+                    continue;
                 }
-                String memcachedKey = namespace + '_' +
-                                      daoClassName + '_' +
-                                      methodName + '_' +
-                                      JSON.toJSONString(methodSignature.getParameterTypes()) +
-                                      JSON.toJSONString(joinPoint.getArgs()) +
-                                      returnName;
-
-                //memcachedKey的字节长度不能超过250个，所以需要转码
-                //超过250长度的用md5转码
-                if (ByteUtils.getBytes(memcachedKey).length > 250) {
-                    memcachedKey = MD5.getMD5String(memcachedKey.getBytes());
+                found.put(key, value);
+                this.fill(key, 60 * exp, value, asyncFill);
+                if (localTtl > 0) {
+                    commonNearCache.put(key, value, localTtl);
                 }
+            }
+        }
 
-                Object returnObject = commonMemcachedClient.get(memcachedKey, 1000L);
-
-                //object 查询为 null 返回 null 缓存放入对象 “null”
-                if ("null".equals(returnObject)) {
-                    return null;
-                }
-                if (returnObject == null) {
-                    returnObject = joinPoint.proceed();
-                    if (returnObject == null) {
-                        commonMemcachedClient.set(memcachedKey, 60 * exp, "null");
-                    } else {
-                        commonMemcachedClient.set(memcachedKey, 60 * exp, returnObject);
+        //按参数中主键的顺序组装结果
+        switch (keyPlan.batchResult()) {
+            case MAP:
+                Map<Object, Object> map = new LinkedHashMap<>(keys.size() * 2);
+                for (Map.Entry<String, Object> entry : keys.entrySet()) {
+                    Object value = found.get(entry.getKey());
+                    if (value != null && !isAbsent(value)) {
+                        map.put(entry.getValue(), value);
                     }
                 }
-                return returnObject;
-            } else {
-                String memcachedKey = daoClassName + '_' +
-                                      methodName + '_' +
-                                      JSON.toJSONString(methodSignature.getParameterTypes()) +
-                                      JSON.toJSONString(joinPoint.getArgs()) +
-                                      returnName;
-
-                if (ByteUtils.getBytes(memcachedKey).length > 250) {
-                    memcachedKey = MD5.getMD5String(memcachedKey.getBytes());
+                return map;
+            default:
+                Collection<Object> result = keyPlan.batchResult() == KeyPlan.BatchResult.SET
+                                            ? new LinkedHashSet<>() : new ArrayList<>(keys.size());
+                for (String key : keys.keySet()) {
+                    Object value = found.get(key);
+                    if (value != null && !isAbsent(value)) {
+                        result.add(value);
+                    }
                 }
+                return result;
+        }
+    }
 
-                Object returnObject = commonMemcachedClient.get(memcachedKey, 1000L);
-
-                //object 查询为 null 返回 null 缓存放入对象 “null”
-                if ("null".equals(returnObject)) {
-                    return null;
+    /**
+     * 原方法批量查询的结果按主键的字符串索引，主键类型不一致（如 Integer 和 Long）也能对应上
+     */
+    private Map<String, Object> indexById(KeyPlan keyPlan, Object returnObject) throws ReflectiveOperationException {
+        Map<String, Object> index = new HashMap<>();
+        if (returnObject instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) returnObject).entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    index.put(entry.getKey().toString(), entry.getValue());
                 }
-                if (returnObject == null) {
-                    returnObject = joinPoint.proceed();
-                    if (returnObject == null) {
-                        commonMemcachedClient.set(memcachedKey, 60 * exp, "null");
-                    } else {
-                        commonMemcachedClient.set(memcachedKey, 60 * exp, returnObject);
+            }
+        } else if (returnObject instanceof Collection) {
+            for (Object element : (Collection<?>) returnObject) {
+                if (element != null) {
+                    Object id = keyPlan.idOf(element);
+                    if (id != null) {
+                        index.put(id.toString(), element);
                     }
                 }
-                return returnObject;
             }
-        } catch (TimeoutException | InterruptedException | MemcachedException e) {
-            //如果出错直接执行原来的方法
-            LOGGER.error(e.getClass().getName(), e);
-            return joinPoint.proceed();
         }
+        return index;
+    }
+
+    public long getLeaseWaitMills() {
+        return leaseWaitMills;
+    }
+
+    public void setLeaseWaitMills(long leaseWaitMills) {
+        this.leaseWaitMills = leaseWaitMills;
+    }
+
+    public int getNullExp() {
+        return nullExp;
+    }
+
+    public void setNullExp(int nullExp) {
+        this.nullExp = nullExp;
+    }
+
+    public boolean isTombstone() {
+        return tombstone;
+    }
+
+    public void setTombstone(boolean tombstone) {
+        this.tombstone = tombstone;
+    }
+
+    public boolean isAsyncFill() {
+        return asyncFill;
+    }
+
+    public void setAsyncFill(boolean asyncFill) {
+        this.asyncFill = asyncFill;
     }
 
 }
@@ -1,11 +1,10 @@
 package com.ouyang.memcached.interceptor;
 
-import com.ouyang.memcached.annotation.MemcacheNamespaceKey;
-import com.ouyang.memcached.MD5;
-import com.ouyang.memcached.annotation.MemcachePrimaryKey;
+import com.ouyang.memcached.cache.NamespaceVersions;
+import com.ouyang.memcached.cache.NearCache;
+import com.ouyang.memcached.cache.NegativeCache;
 import com.ouyang.xmemcached.XMemcachedClient;
 import com.ouyang.xmemcached.exception.MemcachedException;
-import com.ouyang.xmemcached.utils.ByteUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
@@ -16,9 +15,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.lang.annotation.Annotation;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -36,6 +32,22 @@ public class MemcacheUpdateInterceptor {
     private static final Logger LOGGER = LoggerFactory.getLogger(MemcacheUpdateInterceptor.class);
     @Autowired
     private XMemcachedClient commonMemcachedClient;
+    @Autowired
+    private NearCache commonNearCache;
+    @Autowired
+    private NamespaceVersions commonNamespaceVersions;
+    @Autowired
+    private NegativeCache commonNegativeCache;
+
+    /**
+     * 是否异步删除缓存，不等待 memcached 的响应；命名空间版本始终同步更新
+     */
+    private boolean asyncDelete;
+
+    /**
+     * 更新时命名空间不存在，新建命名空间的有效时间 单位秒
+     */
+    private int namespaceExp = 60 * 30;
 
     /**
      * 拦截 @MemcacheUpdate  aop
@@ -67,56 +79,32 @@ public class MemcacheUpdateInterceptor {
             //切面的方法参数
             Object[] args = joinPoint.getArgs();
 
-            //paramsAnoAry二维数组， 每一个paramsAnoAry[i] 可能有多个注解
-            //MemcacheNamespaceKey 0-1个
-            List<String> commonMemcacheNamespaceKeyArgList = new ArrayList<>();
-            //MemcachePrimaryKey  0-1个
-            List<String> commonMemcachePrimaryKeyArgList = new ArrayList<>();
-
-            Annotation[][] paramsAnoAry = methodSignature.getMethod().getParameterAnnotations();
-            //This inspection is intended for J2ME and other highly resource constrained environments.
-            // Applying the results of this inspection without consideration might have negative effects on code clarity and design.
-            //Reports any access to the .length of an array in the condition part of a loop statement.
-            // In highly resource constrained environments, such calls may have adverse performance implications.
-            int paaLength = paramsAnoAry.length;
-            for (int i = 0; i < paaLength; i++) {
-                Annotation[] annotationAry = paramsAnoAry[i];
-                if (annotationAry.length > 0) {
-                    for (Annotation annotation : annotationAry) {
-                        if (annotation instanceof MemcacheNamespaceKey) {
-                            commonMemcacheNamespaceKeyArgList.add(args[i].toString());
-                        }
-                        if (annotation instanceof MemcachePrimaryKey) {
-                            commonMemcachePrimaryKeyArgList.add(args[i].toString());
-                        }
-                    }
-                }
-            }
+            //参数注解只在第一次调用时解析，和查询使用同样的 key 规则
+            KeyPlan keyPlan = KeyPlan.of(methodSignature.getMethod());
 
             //数据操作层class 一般统一为 DAO
             String daoClassName = joinPoint.getTarget().getClass().getName();
 
             //单条
-            if (commonMemcachePrimaryKeyArgList.size() > 0) {
-                //主键加上当前dao空间
-                String memcachedKey = daoClassName + commonMemcachePrimaryKeyArgList.get(0);
-                //memcachedKey的字节长度不能超过250个，所以需要转码
-                //超过250长度的用md5转码
-                if (ByteUtils.getBytes(memcachedKey).length > 250) {
-                    memcachedKey = MD5.getMD5String(memcachedKey.getBytes());
-                }
-                commonMemcachedClient.delete(memcachedKey);
+            String memcachedKey = keyPlan.primaryKey(daoClassName, args);
+            if (memcachedKey != null) {
+                //先清本地缓存，memcached 删除失败也不会读到本地的旧数据
+                commonNearCache.invalidate(memcachedKey);
+                commonNegativeCache.invalidate(memcachedKey);
+                this.delete(memcachedKey, asyncDelete);
             }
-            //批量 用命名空间方式来实现
-            if (commonMemcacheNamespaceKeyArgList.size() > 0) {
-                //主键加上当前dao空间
-                String namespaceKey = daoClassName + commonMemcacheNamespaceKeyArgList.get(0);
-                //memcachedKey的字节长度不能超过250个，所以需要转码
-                //超过250长度的用md5转码
-                if (ByteUtils.getBytes(namespaceKey).length > 250) {
-                    namespaceKey = MD5.getMD5String(namespaceKey.getBytes());
+            //集合类型的主键 逐个清除
+            if (keyPlan.isBatch()) {
+                for (String key : keyPlan.batchKeys(daoClassName, args).keySet()) {
+                    commonNearCache.invalidate(key);
+                    commonNegativeCache.invalidate(key);
+                    this.delete(key, asyncDelete);
                 }
-                commonMemcachedClient.delete(namespaceKey);
+            }
+            //批量 用命名空间方式来实现 版本加1，旧版本的缓存不会再被读到
+            String namespaceKey = keyPlan.namespaceKey(daoClassName, args);
+            if (namespaceKey != null) {
+                this.bump(namespaceKey);
             }
         } catch (TimeoutException | InterruptedException | MemcachedException e) {
             LOGGER.error(e.getClass().getName(), e);
@@ -124,8 +112,55 @@ public class MemcacheUpdateInterceptor {
         return returnObject;
     }
 
-}
+    /**
+     * 命名空间版本加1
+     * 命名空间不存在时用当前时间初始化，不会和已经过期的版本重复。
+     * 总是同步更新并把新版本放入本地，本节点马上读到新版本；
+     * 异步 incr 时本节点紧接着的读可能先于 incr 被处理，读到旧版本并缓存到本地，所以不异步。
+     * 其他节点在本地版本过期后读到新版本
+     */
+    private void bump(String namespaceKey)
+            throws InterruptedException, TimeoutException, MemcachedException {
+        long version = commonMemcachedClient.incr(namespaceKey, 1, System.currentTimeMillis(),
+                commonMemcachedClient.getOpTimeout(), namespaceExp);
+        commonNamespaceVersions.put(namespaceKey, String.valueOf(version), 1000L * namespaceExp);
+    }
 
+    /**
+     * 删除缓存
+     * 异步时不等待 memcached 的响应，未响应的操作数受 FlowControl 限制，
+     * 超过限制时退化为同步删除
+     *
+     * @param async 是否异步删除
+     */
+    private void delete(String key, boolean async)
+            throws InterruptedException, TimeoutException, MemcachedException {
+        if (async) {
+            try {
+                commonMemcachedClient.deleteWithNoReply(key);
+                return;
+            } catch (IllegalStateException e) {
+                //noreply 操作太多，同步删除
+                LOGGER.warn("noreply delete rejected, fallback to delete: " + e.getMessage());
+            }
+        }
+        commonMemcachedClient.delete(key);
+    }
 
+    public boolean isAsyncDelete() {
+        return asyncDelete;
+    }
+
+    public void setAsyncDelete(boolean asyncDelete) {
+        this.asyncDelete = asyncDelete;
+    }
 
+    public int getNamespaceExp() {
+        return namespaceExp;
+    }
 
+    public void setNamespaceExp(int namespaceExp) {
+        this.namespaceExp = namespaceExp;
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.ouyang.xmemcached;
+
+import com.ouyang.xmemcached.transcoders.Transcoder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking memcached operations.
+ * <p>
+ * Every method sends the command and returns at once,the future is completed
+ * by the reactor thread that decodes the response,or by the client's timer
+ * thread when the operation times out.No thread is parked while the command is
+ * in flight.
+ * <p>
+ * The future fails with the same exceptions as the blocking methods:
+ * {@link java.util.concurrent.TimeoutException} when no response arrived in
+ * time, {@link com.ouyang.xmemcached.exception.MemcachedException} for
+ * server or network errors.Callbacks registered with the non-async
+ * {@code thenXxx} methods run on the reactor or timer thread,so they must be
+ * short and must not block,use the {@code thenXxxAsync} variants with an
+ * executor for anything else.
+ *
+ * @author ouyang
+ * @since 2026-10-18 09:40
+ */
+public interface AsyncMemcachedClient {
+
+    /**
+     * Get value by key asynchronously
+     *
+     * @param key
+     * @param timeout     operation timeout,in milliseconds
+     * @param transcoder
+     * @return a future of the value,null if the key is missing
+     */
+    <T> CompletableFuture<T> getAsync(String key, long timeout,
+                                      Transcoder<T> transcoder);
+
+    <T> CompletableFuture<T> getAsync(String key, long timeout);
+
+    <T> CompletableFuture<T> getAsync(String key);
+
+    /**
+     * Get value with its cas unique asynchronously
+     *
+     * @param key
+     * @param timeout    operation timeout,in milliseconds
+     * @param transcoder
+     * @return a future of the GetsResponse,null if the key is missing
+     */
+    <T> CompletableFuture<GetsResponse<T>> getsAsync(String key, long timeout,
+                                                     Transcoder<T> transcoder);
+
+    <T> CompletableFuture<GetsResponse<T>> getsAsync(String key);
+
+    /**
+     * Bulk get asynchronously.Keys are grouped by server and the future is
+     * completed when all servers have responded.
+     *
+     * @param keys
+     * @param timeout    operation timeout for the whole batch,in milliseconds
+     * @param transcoder
+     * @return a future of the found key-value pairs
+     */
+    <T> CompletableFuture<Map<String, T>> getMultiAsync(Collection<String> keys,
+                                                        long timeout, Transcoder<T> transcoder);
+
+    <T> CompletableFuture<Map<String, T>> getMultiAsync(Collection<String> keys);
+
+    /**
+     * Store a value asynchronously
+     *
+     * @param key
+     * @param exp        expiration,in seconds
+     * @param value
+     * @param transcoder
+     * @param timeout    operation timeout,in milliseconds
+     * @return a future of whether the value was stored
+     */
+    <T> CompletableFuture<Boolean> setAsync(String key, int exp, T value,
+                                            Transcoder<T> transcoder, long timeout);
+
+    CompletableFuture<Boolean> setAsync(String key, int exp, Object value);
+
+    /**
+     * Store a value only if the key is missing,asynchronously
+     *
+     * @return a future of whether the value was stored
+     * @see #setAsync(String, int, Object, Transcoder, long)
+     */
+    <T> CompletableFuture<Boolean> addAsync(String key, int exp, T value,
+                                            Transcoder<T> transcoder, long timeout);
+
+    CompletableFuture<Boolean> addAsync(String key, int exp, Object value);
+
+    /**
+     * Store a value only if the cas unique matches,asynchronously.Unlike the
+     * blocking cas methods it never retries.
+     *
+     * @param cas cas unique returned by gets
+     * @return a future of whether the value was stored
+     * @see #setAsync(String, int, Object, Transcoder, long)
+     */
+    <T> CompletableFuture<Boolean> casAsync(String key, int exp, T value,
+                                            Transcoder<T> transcoder, long timeout, long cas);
+
+    CompletableFuture<Boolean> casAsync(String key, int exp, Object value,
+                                        long cas);
+
+    /**
+     * Apply a CASOperation asynchronously:gets the value,stores the new value
+     * with cas and retries with backoff on conflict,up to the operation's max
+     * tries.The backoff is waited on the client's timer thread,no thread is
+     * parked.
+     *
+     * @param key
+     * @param exp        expiration,in seconds
+     * @param operation
+     * @param transcoder
+     * @param timeout    operation timeout of every gets and cas,in milliseconds
+     * @return a future of true,failed with a TimeoutException if the tries are
+     * exhausted
+     * @see MemcachedClient#setCasBackoff(long, long)
+     */
+    <T> CompletableFuture<Boolean> casAsync(String key, int exp,
+                                            CASOperation<T> operation, Transcoder<T> transcoder, long timeout);
+
+    <T> CompletableFuture<Boolean> casAsync(String key, int exp,
+                                            CASOperation<T> operation);
+
+    /**
+     * Delete a key asynchronously
+     *
+     * @param key
+     * @param timeout operation timeout,in milliseconds
+     * @return a future of whether the key existed
+     */
+    CompletableFuture<Boolean> deleteAsync(String key, long timeout);
+
+    CompletableFuture<Boolean> deleteAsync(String key);
+
+    /**
+     * Update the expiration of a key asynchronously
+     *
+     * @param key
+     * @param exp     new expiration,in seconds
+     * @param timeout operation timeout,in milliseconds
+     * @return a future of whether the key existed
+     */
+    CompletableFuture<Boolean> touchAsync(String key, int exp, long timeout);
+
+    CompletableFuture<Boolean> touchAsync(String key, int exp);
+
+    /**
+     * Increment a counter asynchronously,a missing counter is created with
+     * initValue.
+     *
+     * @param key
+     * @param delta
+     * @param initValue
+     * @param timeout   operation timeout,in milliseconds
+     * @param exp       expiration of a created counter,in seconds
+     * @return a future of the new value
+     */
+    CompletableFuture<Long> incrAsync(String key, long delta, long initValue,
+                                      long timeout, int exp);
+
+    CompletableFuture<Long> incrAsync(String key, long delta, long initValue);
+
+    /**
+     * Decrement a counter asynchronously,a missing counter is created with
+     * initValue.
+     *
+     * @return a future of the new value
+     * @see #incrAsync(String, long, long, long, int)
+     */
+    CompletableFuture<Long> decrAsync(String key, long delta, long initValue,
+                                      long timeout, int exp);
+
+    CompletableFuture<Long> decrAsync(String key, long delta, long initValue);
+
+    /**
+     * Create a pipeline to send many operations back to back
+     *
+     * @param timeout operation timeout of every operation,in milliseconds
+     * @return an empty pipeline
+     */
+    Pipeline pipeline(long timeout);
+
+    Pipeline pipeline();
+}
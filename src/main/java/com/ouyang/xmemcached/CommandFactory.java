@@ -50,6 +50,7 @@ import com.ouyang.xmemcached.utils.Protocol;
 
 import java.net.InetSocketAddress;
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 @SuppressWarnings("unchecked")
@@ -309,6 +310,39 @@ public interface CommandFactory {
     Command createGetAndTouchCommand(final String key,
                                      final byte[] keyBytes, CountDownLatch latch, int exp, boolean noreply);
 
+    /**
+     * Create a command storing many values with quiet setq commands
+     * terminated by a noop,its result is a map of key to stored or not.Only
+     * supported by binary protocol.
+     *
+     * @param keyValues  keys must be on the same server
+     * @param exp
+     * @param transcoder
+     * @return
+     */
+    <T> Command createSetMultiCommand(Map<String, T> keyValues, int exp,
+                                      Transcoder<T> transcoder);
+
+    /**
+     * Create a command deleting many keys with quiet deleteq commands
+     * terminated by a noop,its result is a map of key to deleted or not.Only
+     * supported by binary protocol.
+     *
+     * @param keys keys must be on the same server
+     * @return
+     */
+    Command createDeleteMultiCommand(Collection<String> keys);
+
+    /**
+     * Create a command touching many keys terminated by a noop,its result is
+     * a map of key to touched or not.Only supported by binary protocol.
+     *
+     * @param keys keys must be on the same server
+     * @param exp
+     * @return
+     */
+    Command createTouchMultiCommand(Collection<String> keys, int exp);
+
     /**
      * Get this spi's protocol version
      *
@@ -15,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 /**
  * The memcached spi's interface
@@ -102,6 +103,27 @@ public interface MemcachedClient {
      */
     int DEFAULT_MAX_TIMEOUTEXCEPTION_THRESHOLD = 1000;
 
+    /**
+     * Default maximum number of keys in one get command of a bulk get
+     */
+    int DEFAULT_MAX_KEYS_PER_GET = 1000;
+
+    /**
+     * Default maximum bytes of keys in one get command of a bulk get
+     */
+    int DEFAULT_MAX_BYTES_PER_GET = 64 * 1024;
+
+    /**
+     * Default base delay of the backoff between cas retries,in milliseconds
+     */
+    long DEFAULT_CAS_BACKOFF_BASE = 1;
+
+    /**
+     * Default maximum delay of the backoff between cas retries,in
+     * milliseconds
+     */
+    long DEFAULT_CAS_BACKOFF_MAX = 50;
+
     /**
      * Set the merge factor,this factor determins how many 'get' commands would
      * be merge to one multi-get command.default is 150
@@ -338,6 +360,151 @@ public interface MemcachedClient {
                            final long timeout) throws TimeoutException, InterruptedException,
             MemcachedException;
 
+    /**
+     * Bulk get which never fails as a whole because of one node.Keys are
+     * grouped by node,the items of the nodes answering within the timeout
+     * are returned,and the keys of the nodes that timed out,were not
+     * connected or returned an error are reported as failed,so only those
+     * need to be loaded from elsewhere.
+     *
+     * @param <T>
+     * @param keyCollections key collection
+     * @param timeout        deadline for the whole batch
+     * @param transcoder     Value transcoder
+     * @return found items and failed keys
+     * @throws InterruptedException
+     * @throws MemcachedException   if the keys could not be processed
+     */
+    <T> PartialGetResult<T> getPartial(final Collection<String> keyCollections,
+                                       final long timeout, final Transcoder<T> transcoder)
+            throws InterruptedException, MemcachedException;
+
+    /**
+     * @param <T>
+     * @param keyCollections
+     * @return
+     * @throws InterruptedException
+     * @throws MemcachedException
+     * @see #getPartial(Collection, long, Transcoder)
+     */
+    <T> PartialGetResult<T> getPartial(final Collection<String> keyCollections)
+            throws InterruptedException, MemcachedException;
+
+    /**
+     * Store many values.Keys are grouped by server and with binary protocol
+     * every group is sent as quiet setq commands terminated by a noop,so the
+     * server only answers the failed keys and the noop.Text protocol
+     * pipelines one set per key.
+     *
+     * @param <T>
+     * @param keyValues  values to store
+     * @param exp        An expiration time, in seconds
+     * @param timeout    operation timeout for the whole batch,in milliseconds
+     * @param transcoder
+     * @return every key mapped to whether it was stored
+     * @throws TimeoutException
+     * @throws InterruptedException
+     * @throws MemcachedException
+     */
+    <T> Map<String, Boolean> setMulti(final Map<String, T> keyValues,
+                                      final int exp, final long timeout, final Transcoder<T> transcoder)
+            throws TimeoutException, InterruptedException, MemcachedException;
+
+    /**
+     * @see #setMulti(Map, int, long, Transcoder)
+     */
+    <T> Map<String, Boolean> setMulti(final Map<String, T> keyValues,
+                                      final int exp) throws TimeoutException, InterruptedException,
+            MemcachedException;
+
+    /**
+     * Delete many keys,with binary protocol as quiet deleteq commands
+     * terminated by a noop per server.
+     *
+     * @param keyCollections keys to delete
+     * @param timeout        operation timeout for the whole batch,in
+     *                       milliseconds
+     * @return every key mapped to whether it existed
+     * @throws TimeoutException
+     * @throws InterruptedException
+     * @throws MemcachedException
+     * @see #setMulti(Map, int, long, Transcoder)
+     */
+    Map<String, Boolean> deleteMulti(final Collection<String> keyCollections,
+                                     final long timeout) throws TimeoutException,
+            InterruptedException, MemcachedException;
+
+    /**
+     * @see #deleteMulti(Collection, long)
+     */
+    Map<String, Boolean> deleteMulti(final Collection<String> keyCollections)
+            throws TimeoutException, InterruptedException, MemcachedException;
+
+    /**
+     * Update the expiration of many keys.There is no quiet touch,so with
+     * binary protocol every key is answered,but the touches of a server are
+     * still sent as one command terminated by a noop.
+     *
+     * @param keyCollections keys to touch
+     * @param exp            new expiration,in seconds
+     * @param timeout        operation timeout for the whole batch,in
+     *                       milliseconds
+     * @return every key mapped to whether it existed
+     * @throws TimeoutException
+     * @throws InterruptedException
+     * @throws MemcachedException
+     * @see #setMulti(Map, int, long, Transcoder)
+     */
+    Map<String, Boolean> touchMulti(final Collection<String> keyCollections,
+                                    final int exp, final long timeout) throws TimeoutException,
+            InterruptedException, MemcachedException;
+
+    /**
+     * @see #touchMulti(Collection, int, long)
+     */
+    Map<String, Boolean> touchMulti(final Collection<String> keyCollections,
+                                    final int exp) throws TimeoutException, InterruptedException,
+            MemcachedException;
+
+    /**
+     * Streaming bulk get.Each found item is decoded and handed to the
+     * consumer as soon as it is read off the wire,per server in arrival
+     * order,instead of being collected into a map.Missing keys are not
+     * reported.
+     * <p>
+     * The consumer runs on the reactor threads,calls are serialized so it
+     * needn't be thread-safe,but it must be fast and must not block.If it
+     * throws,the remaining items are dropped and the exception is rethrown as
+     * a MemcachedException.On timeout the items already consumed stay
+     * consumed.
+     *
+     * @param <T>
+     * @param keyCollections key collection
+     * @param timeout        timeout for the whole batch
+     * @param transcoder     Value transcoder
+     * @param consumer       receives the caller's key and the decoded value
+     * @throws TimeoutException
+     * @throws InterruptedException
+     * @throws MemcachedException
+     */
+    <T> void get(final Collection<String> keyCollections, final long timeout,
+                 final Transcoder<T> transcoder,
+                 final BiConsumer<String, ? super T> consumer)
+            throws TimeoutException, InterruptedException, MemcachedException;
+
+    /**
+     * @param <T>
+     * @param keyCollections
+     * @param consumer
+     * @throws TimeoutException
+     * @throws InterruptedException
+     * @throws MemcachedException
+     * @see #get(Collection, long, Transcoder, BiConsumer)
+     */
+    <T> void get(final Collection<String> keyCollections,
+                 final BiConsumer<String, ? super T> consumer)
+            throws TimeoutException, InterruptedException, MemcachedException;
+
     /**
      * Bulk gets items
      *
@@ -1425,6 +1592,23 @@ public interface MemcachedClient {
     void incrWithNoReply(final String key, final long delta)
             throws InterruptedException, MemcachedException;
 
+    /**
+     * Like {@link #incrWithNoReply(String, long)},but with binary protocol a
+     * missing item is created with initValue and the given expiration instead
+     * of 0 without expiration.With text protocol a missing item is left as it
+     * is.This method doesn't wait for reply.
+     *
+     * @param key
+     * @param delta
+     * @param initValue
+     * @param exp
+     * @throws InterruptedException
+     * @throws MemcachedException
+     */
+    void incrWithNoReply(final String key, final long delta,
+                         final long initValue, final int exp)
+            throws InterruptedException, MemcachedException;
+
     /**
      * "decr" are used to change data for some item in-place, decrementing it.
      * The data for the item is treated as decimal representation of a 64-bit
@@ -1730,6 +1914,60 @@ public interface MemcachedClient {
      */
     void setTimeoutExceptionThreshold(int timeoutExceptionThreshold);
 
+    int getMaxKeysPerGet();
+
+    /**
+     * Set maximum number of keys in one get command.Bulk gets split the keys
+     * of every server into chunks of this size,which are pipelined on the
+     * server's connections and merged as they arrive.0 means no limit.
+     *
+     * @param maxKeysPerGet
+     * @see #DEFAULT_MAX_KEYS_PER_GET
+     */
+    void setMaxKeysPerGet(int maxKeysPerGet);
+
+    int getMaxBytesPerGet();
+
+    /**
+     * Set maximum bytes of keys in one get command,it bounds the command like
+     * maxKeysPerGet for long keys.0 means no limit.
+     *
+     * @param maxBytesPerGet
+     * @see #DEFAULT_MAX_BYTES_PER_GET
+     */
+    void setMaxBytesPerGet(int maxBytesPerGet);
+
+    long getCasBackoffBase();
+
+    long getCasBackoffMax();
+
+    /**
+     * Set the backoff between retries of a cas with CASOperation.The n-th retry
+     * waits a random delay between 0 and min(max,base*2^(n-1)) milliseconds,so
+     * contending clients spread their retries instead of failing in lockstep.
+     * A base of 0 disables the backoff.
+     *
+     * @param base base delay,in milliseconds
+     * @param max  maximum delay,in milliseconds
+     * @see #DEFAULT_CAS_BACKOFF_BASE
+     * @see #DEFAULT_CAS_BACKOFF_MAX
+     */
+    void setCasBackoff(long base, long max);
+
+    boolean isCasCombining();
+
+    /**
+     * Combine concurrent cas with CASOperation on the same key in this
+     * client.The first caller runs the gets/cas rounds,operations submitted
+     * by other threads meanwhile join the next round:they are applied one
+     * after another on the same value and stored by a single cas.Operations
+     * are only combined if their expiration and transcoder are the same.
+     * Disabled by default.
+     *
+     * @param casCombining
+     */
+    void setCasCombining(boolean casCombining);
+
     /**
      * Invalidate all namespace under the namespace using the default operation
      * timeout.
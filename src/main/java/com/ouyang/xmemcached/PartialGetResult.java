@@ -0,0 +1,49 @@
+package com.ouyang.xmemcached;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of a bulk get that tolerates slow or dead nodes.It's a value object.
+ * <p>
+ * Values holds the items found on the nodes that answered in time,failed keys
+ * are the keys whose node timed out or failed,their state is unknown and they
+ * should be loaded from elsewhere.Keys in neither are missing.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:05
+ */
+public final class PartialGetResult<T> {
+    private final Map<String, T> values;
+    private final Set<String> failedKeys;
+
+    public PartialGetResult(final Map<String, T> values,
+                            final Set<String> failedKeys) {
+        super();
+        this.values = Collections.unmodifiableMap(values);
+        this.failedKeys = Collections.unmodifiableSet(failedKeys);
+    }
+
+    public Map<String, T> getValues() {
+        return this.values;
+    }
+
+    public Set<String> getFailedKeys() {
+        return this.failedKeys;
+    }
+
+    /**
+     * @return true if every node answered in time
+     */
+    public boolean isComplete() {
+        return this.failedKeys.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "PartialGetResult[values=" + this.values + ",failedKeys="
+                + this.failedKeys + "]";
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.ouyang.xmemcached;
+
+import com.ouyang.xmemcached.transcoders.Transcoder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A batch of operations sent back to back.
+ * <p>
+ * Operations are only collected until {@link #execute()},which groups them by
+ * server and writes the operations of every server with a single buffer in the
+ * order they were added,independent of what else is in the write queue.The
+ * future of every operation is completed when its response arrives,like the
+ * futures of {@link AsyncMemcachedClient},all operations share the pipeline's
+ * timeout.A pipeline is not thread-safe and can be executed only once.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:20
+ */
+public interface Pipeline {
+
+    <T> CompletableFuture<T> get(String key, Transcoder<T> transcoder);
+
+    <T> CompletableFuture<T> get(String key);
+
+    <T> CompletableFuture<GetsResponse<T>> gets(String key,
+                                                Transcoder<T> transcoder);
+
+    <T> CompletableFuture<GetsResponse<T>> gets(String key);
+
+    <T> CompletableFuture<Boolean> set(String key, int exp, T value,
+                                       Transcoder<T> transcoder);
+
+    CompletableFuture<Boolean> set(String key, int exp, Object value);
+
+    <T> CompletableFuture<Boolean> add(String key, int exp, T value,
+                                       Transcoder<T> transcoder);
+
+    CompletableFuture<Boolean> add(String key, int exp, Object value);
+
+    <T> CompletableFuture<Boolean> cas(String key, int exp, T value,
+                                       Transcoder<T> transcoder, long cas);
+
+    CompletableFuture<Boolean> cas(String key, int exp, Object value, long cas);
+
+    CompletableFuture<Boolean> delete(String key);
+
+    CompletableFuture<Boolean> touch(String key, int exp);
+
+    /**
+     * Increment a counter,a missing counter is created with initValue.With
+     * text protocol the add creating it is sent outside the pipeline.
+     *
+     * @param key
+     * @param delta
+     * @param initValue
+     * @param exp       expiration of a created counter,in seconds
+     * @return a future of the new value
+     */
+    CompletableFuture<Long> incr(String key, long delta, long initValue,
+                                 int exp);
+
+    /**
+     * @see #incr(String, long, long, int)
+     */
+    CompletableFuture<Long> decr(String key, long delta, long initValue,
+                                 int exp);
+
+    /**
+     * @return number of collected operations
+     */
+    int size();
+
+    /**
+     * Send all collected operations
+     *
+     * @return a future completed when every operation has completed,it fails
+     * if any operation failed
+     * @throws IllegalStateException if the pipeline has been executed
+     */
+    CompletableFuture<Void> execute();
+}
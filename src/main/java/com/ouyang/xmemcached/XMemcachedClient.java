@@ -21,8 +21,10 @@ import com.ouyang.xmemcached.buffer.SimpleBufferAllocator;
 import com.ouyang.xmemcached.codec.MemcachedCodecFactory;
 import com.ouyang.xmemcached.command.Command;
 import com.ouyang.xmemcached.command.CommandType;
+import com.ouyang.xmemcached.command.PipelineCommand;
 import com.ouyang.xmemcached.command.ServerAddressAware;
 import com.ouyang.xmemcached.command.TextCommandFactory;
+import com.ouyang.xmemcached.command.ValueStreamAware;
 import com.ouyang.xmemcached.exception.MemcachedException;
 import com.ouyang.xmemcached.impl.*;
 import com.ouyang.xmemcached.monitor.Constants;
@@ -48,13 +50,17 @@ import java.net.URLEncoder;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Memcached Client for connecting to memcached server and do operations.
  *
  * @author dennis(killme2008@gmail.com)
  */
-public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient {
+public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient,
+        AsyncMemcachedClient {
 
     /**
      * namespace thread local.
@@ -62,7 +68,6 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     public static ThreadLocal<String> NAMESPACE_LOCAL = new ThreadLocal<String>();
     private static Logger log = LoggerFactory
             .getLogger(XMemcachedClient.class);
-    private static String CONTINUOUS_TIMEOUT_COUNTER = "ContinuousTimeouts";
     protected AtomicInteger serverOrderCount = new AtomicInteger();
     protected MemcachedSessionLocator sessionLocator;
     protected MemcachedConnector connector;
@@ -86,6 +91,19 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     // key provider for pre-processing keys before sending them to memcached
     // added by dennis,2012-07-14
     private KeyProvider keyProvider = DefaultKeyProvider.INSTANCE;
+    /**
+     * Expires in-flight commands,created on first use
+     */
+    private volatile CommandTimeoutManager timeoutManager;
+    private volatile int maxKeysPerGet = DEFAULT_MAX_KEYS_PER_GET;
+    private volatile int maxBytesPerGet = DEFAULT_MAX_BYTES_PER_GET;
+    private volatile long casBackoffBase = DEFAULT_CAS_BACKOFF_BASE;
+    private volatile long casBackoffMax = DEFAULT_CAS_BACKOFF_MAX;
+    private volatile boolean casCombining;
+    /**
+     * Running combined cas rounds by key
+     */
+    private final ConcurrentHashMap<String, CASBatch<?>> casBatches = new ConcurrentHashMap<String, CASBatch<?>>();
 
     /**
      * XMemcached constructor,default weight is 1
@@ -349,6 +367,59 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
             log.warn("Too small timeoutExceptionThreshold value may cause connections disconnect/reconnect frequently.");
         }
         this.timeoutExceptionThreshold = timeoutExceptionThreshold;
+        if (this.timeoutManager != null) {
+            this.timeoutManager
+                    .setTimeoutExceptionThreshold(timeoutExceptionThreshold);
+        }
+    }
+
+    public int getMaxKeysPerGet() {
+        return this.maxKeysPerGet;
+    }
+
+    public void setMaxKeysPerGet(int maxKeysPerGet) {
+        if (maxKeysPerGet < 0) {
+            throw new IllegalArgumentException("maxKeysPerGet<0");
+        }
+        this.maxKeysPerGet = maxKeysPerGet;
+    }
+
+    public int getMaxBytesPerGet() {
+        return this.maxBytesPerGet;
+    }
+
+    public void setMaxBytesPerGet(int maxBytesPerGet) {
+        if (maxBytesPerGet < 0) {
+            throw new IllegalArgumentException("maxBytesPerGet<0");
+        }
+        this.maxBytesPerGet = maxBytesPerGet;
+    }
+
+    public long getCasBackoffBase() {
+        return this.casBackoffBase;
+    }
+
+    public long getCasBackoffMax() {
+        return this.casBackoffMax;
+    }
+
+    public void setCasBackoff(long base, long max) {
+        if (base < 0) {
+            throw new IllegalArgumentException("base<0");
+        }
+        if (max < base) {
+            throw new IllegalArgumentException("max<base");
+        }
+        this.casBackoffBase = base;
+        this.casBackoffMax = max;
+    }
+
+    public boolean isCasCombining() {
+        return this.casCombining;
+    }
+
+    public void setCasCombining(boolean casCombining) {
+        this.casCombining = casCombining;
     }
 
     public <T> T withNamespace(String ns, MemcachedClientCallable<T> callable)
@@ -512,12 +583,14 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         return result;
     }
 
-    private Session sendCommand(final Command cmd)
+    private Session sendCommand(final Command cmd, final long timeout)
             throws MemcachedException {
         if (this.shutdown) {
             throw new MemcachedException("Xmemcached is stopped");
         }
-        return this.connector.send(cmd);
+        Session session = this.connector.send(cmd);
+        this.getTimeoutManager().watch(cmd, session, timeout);
+        return session;
     }
 
     protected InetSocketAddress newSocketAddress(final String server,
@@ -804,7 +877,7 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
             TimeoutException, MemcachedException {
         final Command command = this.commandFactory.createGetCommand(key,
                 keyBytes, cmdType, this.transcoder);
-        this.latchWait(command, timeout, this.sendCommand(command));
+        this.latchWait(command, timeout, this.sendCommand(command, timeout));
         command.getIoBuffer().free(); // free buffer
         this.checkException(command);
         CachedData data = (CachedData) command.getResult();
@@ -1179,75 +1252,494 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         for (String key : keys) {
             keyCollections.add(this.preProcessKey(key));
         }
-        final CountDownLatch latch;
-        final List<Command> commands;
-        if (this.connector.getSessionSet().size() <= 1) {
-            commands = new ArrayList<Command>(1);
-            latch = new CountDownLatch(1);
-            commands.add(this.sendGetMultiCommand(keyCollections, latch,
-                    cmdType, transcoder));
+        Collection<List<String>> catalogKeys = this.splitKeys(keyCollections);
+        final CompletionQueue completionQueue = new CompletionQueue();
+        final List<Command> commands = new ArrayList<Command>(
+                catalogKeys.size());
+        for (List<String> catalogKeyCollection : catalogKeys) {
+            final Command command = this.commandFactory.createGetMultiCommand(
+                    catalogKeyCollection, null, cmdType, transcoder);
+            command.setCompletionListener(completionQueue);
+            this.sendCommand(command, timeout);
+            commands.add(command);
+        }
+        // merge every chunk as soon as it arrives,so its raw values can be
+        // collected while the others are still in flight
+        final Map<String, T> result = new HashMap<String, T>(keys.size());
+        final long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(timeout);
+        for (int i = 0; i < commands.size(); i++) {
+            Command getCmd = completionQueue.poll(deadline - System.nanoTime());
+            if (getCmd == null) {
+                for (Command cmd : commands) {
+                    cmd.expire(new TimeoutException(
+                            "Timed out waiting for operation"));
+                }
+                throw new TimeoutException("Timed out waiting for operation");
+            }
+            // expired by the timeout manager
+            if (getCmd.getException() instanceof TimeoutException) {
+                throw (TimeoutException) getCmd.getException();
+            }
+            this.mergeResult(cmdType, transcoder, getCmd, result);
+        }
+        return result;
+    }
 
-        } else {
-            Collection<List<String>> catalogKeys = this
-                    .catalogKeys(keyCollections);
-            commands = new ArrayList<Command>(catalogKeys.size());
-            latch = new CountDownLatch(catalogKeys.size());
+    /*
+     * (non-Javadoc)
+     *
+     * @see MemcachedClient#get(java.util.Collection, long, Transcoder,
+     * java.util.function.BiConsumer)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void get(final Collection<String> keyCollections,
+                        final long timeout, final Transcoder<T> transcoder,
+                        final BiConsumer<String, ? super T> consumer)
+            throws TimeoutException, InterruptedException, MemcachedException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Null consumer");
+        }
+        if (keyCollections == null || keyCollections.size() == 0) {
+            return;
+        }
+        // map back to the caller's keys,the namespace thread local is not
+        // visible on the reactor thread.
+        Map<String, String> keyMap = new HashMap<String, String>(
+                keyCollections.size());
+        for (String key : keyCollections) {
+            keyMap.put(this.preProcessKey(key), key);
+        }
+        Collection<List<String>> catalogKeys = this.splitKeys(keyMap
+                .keySet());
+        final StreamingConsumer<T> streamingConsumer = new StreamingConsumer<T>(
+                keyMap, transcoder, consumer);
+        final FanIn fanIn = new FanIn(catalogKeys.size());
+        final List<Command> commands = new ArrayList<Command>(
+                catalogKeys.size());
+        try {
             for (List<String> catalogKeyCollection : catalogKeys) {
-                commands.add(this.sendGetMultiCommand(catalogKeyCollection,
-                        latch, cmdType, transcoder));
+                final Command command = this.commandFactory
+                        .createGetMultiCommand(catalogKeyCollection, null,
+                                CommandType.GET_MANY, transcoder);
+                if (command instanceof ValueStreamAware) {
+                    ((ValueStreamAware) command)
+                            .setValueListener(streamingConsumer);
+                }
+                command.setCompletionListener(fanIn);
+                this.sendCommand(command, timeout);
+                commands.add(command);
+            }
+            if (!fanIn.await(timeout, TimeUnit.MILLISECONDS)) {
+                for (Command getCmd : commands) {
+                    getCmd.expire(new TimeoutException(
+                            "Timed out waiting for operation"));
+                }
+                throw new TimeoutException("Timed out waiting for operation");
             }
-        }
-        if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
             for (Command getCmd : commands) {
-                getCmd.cancel();
+                // expired by the timeout manager
+                if (getCmd.getException() instanceof TimeoutException) {
+                    throw (TimeoutException) getCmd.getException();
+                }
+                getCmd.getIoBuffer().free();
+                this.checkException(getCmd);
+                // commands which can't stream collect their values
+                Map<String, CachedData> map = (Map<String, CachedData>) getCmd
+                        .getResult();
+                if (map != null) {
+                    for (Map.Entry<String, CachedData> entry : map.entrySet()) {
+                        streamingConsumer.onValue(entry.getKey(),
+                                entry.getValue());
+                    }
+                }
             }
-            throw new TimeoutException("Timed out waiting for operation");
+            streamingConsumer.checkFailure();
+        } finally {
+            // late responses must not reach the consumer
+            streamingConsumer.close();
         }
-        return this.reduceResult(cmdType, transcoder, commands);
     }
 
     @SuppressWarnings("unchecked")
-    private <T> Map<String, T> reduceResult(final CommandType cmdType,
-                                            final Transcoder<T> transcoder, final List<Command> commands)
-            throws MemcachedException, InterruptedException, TimeoutException {
-        final Map<String, T> result = new HashMap<String, T>(commands.size());
-        for (Command getCmd : commands) {
+    public <T> void get(final Collection<String> keyCollections,
+                        final BiConsumer<String, ? super T> consumer)
+            throws TimeoutException, InterruptedException, MemcachedException {
+        this.get(keyCollections, this.opTimeout, this.transcoder, consumer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see MemcachedClient#getPartial(java.util.Collection, long, Transcoder)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PartialGetResult<T> getPartial(
+            final Collection<String> keyCollections, final long timeout,
+            final Transcoder<T> transcoder) throws InterruptedException,
+            MemcachedException {
+        Map<String, T> values = new HashMap<String, T>();
+        Set<String> failedKeys = new HashSet<String>();
+        if (keyCollections == null || keyCollections.size() == 0) {
+            return new PartialGetResult<T>(values, failedKeys);
+        }
+        // map back to the caller's keys,like the streaming get
+        Map<String, String> keyMap = new HashMap<String, String>(
+                keyCollections.size());
+        for (String key : keyCollections) {
+            keyMap.put(this.preProcessKey(key), key);
+        }
+        Collection<List<String>> catalogKeys = this.splitKeys(keyMap
+                .keySet());
+        final FanIn fanIn = new FanIn(catalogKeys.size());
+        final List<Command> commands = new ArrayList<Command>(
+                catalogKeys.size());
+        final List<Session> sessions = new ArrayList<Session>(
+                catalogKeys.size());
+        final List<List<String>> commandKeys = new ArrayList<List<String>>(
+                catalogKeys.size());
+        for (List<String> catalogKeyCollection : catalogKeys) {
+            final Command command = this.commandFactory.createGetMultiCommand(
+                    catalogKeyCollection, null, CommandType.GET_MANY,
+                    transcoder);
+            command.setCompletionListener(fanIn);
+            try {
+                sessions.add(this.sendCommand(command, timeout));
+                commands.add(command);
+                commandKeys.add(catalogKeyCollection);
+            } catch (MemcachedException e) {
+                // node not connected,its keys fail but the others go on
+                log.warn("Partial get skipped " + catalogKeyCollection.size()
+                        + " keys:" + e.getMessage());
+                fanIn.onComplete(command);
+                this.addFailedKeys(failedKeys, keyMap, catalogKeyCollection);
+            }
+        }
+        if (!fanIn.await(timeout, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < commands.size(); i++) {
+                Command getCmd = commands.get(i);
+                if (!getCmd.isDone()) {
+                    this.getTimeoutManager().expire(getCmd, sessions.get(i),
+                            timeout);
+                }
+            }
+        }
+        for (int i = 0; i < commands.size(); i++) {
+            Command getCmd = commands.get(i);
+            if (getCmd.getException() != null || getCmd.isCancel()) {
+                // timed out,closed session or error response
+                this.addFailedKeys(failedKeys, keyMap, commandKeys.get(i));
+                continue;
+            }
             getCmd.getIoBuffer().free();
-            this.checkException(getCmd);
             Map<String, CachedData> map = (Map<String, CachedData>) getCmd
                     .getResult();
-            if (cmdType == CommandType.GET_MANY) {
-                Iterator<Map.Entry<String, CachedData>> it = map.entrySet()
-                        .iterator();
-                while (it.hasNext()) {
-                    Map.Entry<String, CachedData> entry = it.next();
-                    String decodeKey = this.decodeKey(entry.getKey());
-                    if (decodeKey != null) {
-                        result.put(decodeKey,
-                                transcoder.decode(entry.getValue()));
-                    }
+            if (map == null) {
+                continue;
+            }
+            for (Map.Entry<String, CachedData> entry : map.entrySet()) {
+                String callerKey = keyMap.get(entry.getKey());
+                if (callerKey == null) {
+                    continue;
+                }
+                try {
+                    values.put(callerKey, transcoder.decode(entry.getValue()));
+                } catch (RuntimeException e) {
+                    log.error("Decode value of key " + callerKey + " failed",
+                            e);
+                    failedKeys.add(callerKey);
                 }
+            }
+        }
+        return new PartialGetResult<T>(values, failedKeys);
+    }
 
-            } else {
-                Iterator<Map.Entry<String, CachedData>> it = map.entrySet()
-                        .iterator();
-                while (it.hasNext()) {
-                    Map.Entry<String, CachedData> entry = it.next();
-                    GetsResponse getsResponse = new GetsResponse(entry
-                            .getValue().getCas(), transcoder.decode(entry
-                            .getValue()));
-                    String decodeKey = this.decodeKey(entry.getKey());
-                    if (decodeKey != null) {
-                        result.put(decodeKey, (T) getsResponse);
-                    }
+    @SuppressWarnings("unchecked")
+    public <T> PartialGetResult<T> getPartial(
+            final Collection<String> keyCollections)
+            throws InterruptedException, MemcachedException {
+        return this.getPartial(keyCollections, this.opTimeout,
+                this.transcoder);
+    }
+
+    private void addFailedKeys(Set<String> failedKeys,
+                               Map<String, String> keyMap, List<String> keys) {
+        for (String key : keys) {
+            failedKeys.add(keyMap.get(key));
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see MemcachedClient#setMulti(java.util.Map, int, long, Transcoder)
+     */
+    public <T> Map<String, Boolean> setMulti(final Map<String, T> keyValues,
+                                             final int exp, final long timeout,
+                                             final Transcoder<T> transcoder) throws TimeoutException,
+            InterruptedException, MemcachedException {
+        if (keyValues == null || keyValues.isEmpty()) {
+            return new HashMap<String, Boolean>();
+        }
+        Map<String, String> keyMap = new HashMap<String, String>(
+                keyValues.size() * 2);
+        Map<String, T> values = new HashMap<String, T>(keyValues.size() * 2);
+        for (Map.Entry<String, T> entry : keyValues.entrySet()) {
+            String key = this.preProcessKey(entry.getKey());
+            this.checkStoreArguments(key, exp, entry.getValue());
+            keyMap.put(key, entry.getKey());
+            values.put(key, entry.getValue());
+        }
+        List<Command> commands = new ArrayList<Command>();
+        if (this.commandFactory.getProtocol() == Protocol.Binary) {
+            for (List<String> keys : this.splitKeys(keyMap.keySet())) {
+                Map<String, T> groupValues = new HashMap<String, T>(
+                        keys.size() * 2);
+                for (String key : keys) {
+                    groupValues.put(key, values.get(key));
                 }
+                commands.add(this.commandFactory.createSetMultiCommand(
+                        groupValues, exp, transcoder));
+            }
+        } else {
+            for (Map.Entry<String, T> entry : values.entrySet()) {
+                commands.add(this.commandFactory.createSetCommand(
+                        entry.getKey(), ByteUtils.getBytes(entry.getKey()),
+                        exp, entry.getValue(), false, transcoder));
+            }
+        }
+        return this.multiWrite0(commands, keyMap, timeout);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, Boolean> setMulti(final Map<String, T> keyValues,
+                                             final int exp) throws TimeoutException, InterruptedException,
+            MemcachedException {
+        return this.setMulti(keyValues, exp, this.opTimeout, this.transcoder);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see MemcachedClient#deleteMulti(java.util.Collection, long)
+     */
+    public Map<String, Boolean> deleteMulti(
+            final Collection<String> keyCollections, final long timeout)
+            throws TimeoutException, InterruptedException, MemcachedException {
+        if (keyCollections == null || keyCollections.isEmpty()) {
+            return new HashMap<String, Boolean>();
+        }
+        Map<String, String> keyMap = this.checkMultiKeys(keyCollections);
+        List<Command> commands = new ArrayList<Command>();
+        if (this.commandFactory.getProtocol() == Protocol.Binary) {
+            for (List<String> keys : this.splitKeys(keyMap.keySet())) {
+                commands.add(this.commandFactory.createDeleteMultiCommand(keys));
+            }
+        } else {
+            for (String key : keyMap.keySet()) {
+                commands.add(this.commandFactory.createDeleteCommand(key,
+                        ByteUtils.getBytes(key), 0, 0, false));
+            }
+        }
+        return this.multiWrite0(commands, keyMap, timeout);
+    }
+
+    public Map<String, Boolean> deleteMulti(
+            final Collection<String> keyCollections) throws TimeoutException,
+            InterruptedException, MemcachedException {
+        return this.deleteMulti(keyCollections, this.opTimeout);
+    }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see MemcachedClient#touchMulti(java.util.Collection, int, long)
+     */
+    public Map<String, Boolean> touchMulti(
+            final Collection<String> keyCollections, final int exp,
+            final long timeout) throws TimeoutException, InterruptedException,
+            MemcachedException {
+        if (keyCollections == null || keyCollections.isEmpty()) {
+            return new HashMap<String, Boolean>();
+        }
+        Map<String, String> keyMap = this.checkMultiKeys(keyCollections);
+        List<Command> commands = new ArrayList<Command>();
+        if (this.commandFactory.getProtocol() == Protocol.Binary) {
+            for (List<String> keys : this.splitKeys(keyMap.keySet())) {
+                commands.add(this.commandFactory.createTouchMultiCommand(keys,
+                        exp));
+            }
+        } else {
+            for (String key : keyMap.keySet()) {
+                commands.add(this.commandFactory.createTouchCommand(key,
+                        ByteUtils.getBytes(key), null, exp, false));
             }
+        }
+        return this.multiWrite0(commands, keyMap, timeout);
+    }
+
+    public Map<String, Boolean> touchMulti(
+            final Collection<String> keyCollections, final int exp)
+            throws TimeoutException, InterruptedException, MemcachedException {
+        return this.touchMulti(keyCollections, exp, this.opTimeout);
+    }
+
+    /**
+     * @return processed keys mapped to the caller's keys
+     */
+    private Map<String, String> checkMultiKeys(
+            final Collection<String> keyCollections) throws MemcachedException,
+            InterruptedException {
+        Map<String, String> keyMap = new HashMap<String, String>(
+                keyCollections.size() * 2);
+        for (String key : keyCollections) {
+            String processedKey = this.preProcessKey(key);
+            ByteUtils.checkKey(ByteUtils.getBytes(processedKey));
+            keyMap.put(processedKey, key);
+        }
+        return keyMap;
+    }
 
+    /**
+     * Send the write commands of a bulk write and wait for all of them
+     *
+     * @param commands multi write commands or single key commands
+     * @param keyMap   processed keys mapped to the caller's keys
+     * @param timeout
+     * @return caller's keys mapped to their status
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Boolean> multiWrite0(final List<Command> commands,
+                                             final Map<String, String> keyMap, final long timeout)
+            throws TimeoutException, InterruptedException, MemcachedException {
+        final FanIn fanIn = new FanIn(commands.size());
+        final List<Session> sessions = new ArrayList<Session>(commands.size());
+        for (Command command : commands) {
+            command.setCompletionListener(fanIn);
+            sessions.add(this.sendCommand(command, timeout));
+        }
+        if (!fanIn.await(timeout, TimeUnit.MILLISECONDS)) {
+            for (int i = 0; i < commands.size(); i++) {
+                if (!commands.get(i).isDone()) {
+                    this.getTimeoutManager().expire(commands.get(i),
+                            sessions.get(i), timeout);
+                }
+            }
+            throw new TimeoutException("Timed out waiting for operation");
+        }
+        Map<String, Boolean> result = new HashMap<String, Boolean>(
+                keyMap.size() * 2);
+        for (Command command : commands) {
+            // expired by the timeout manager
+            if (command.getException() instanceof TimeoutException) {
+                throw (TimeoutException) command.getException();
+            }
+            command.getIoBuffer().free();
+            this.checkException(command);
+            if (command.getResult() instanceof Map) {
+                for (Map.Entry<String, Boolean> entry : ((Map<String, Boolean>) command
+                        .getResult()).entrySet()) {
+                    result.put(keyMap.get(entry.getKey()), entry.getValue());
+                }
+            } else if (command.getResult() != null) {
+                result.put(keyMap.get(command.getKey()),
+                        (Boolean) command.getResult());
+            } else {
+                throw new MemcachedException(
+                        "Operation fail,may be caused by networking or timeout");
+            }
         }
         return result;
     }
 
+    /**
+     * Decodes streamed values and hands them to the caller's consumer,one at
+     * a time even if they come from several reactor threads.
+     */
+    private static final class StreamingConsumer<T> implements
+            ValueStreamAware.ValueListener {
+        private final Map<String, String> keyMap;
+        private final Transcoder<T> transcoder;
+        private final BiConsumer<String, ? super T> consumer;
+        private boolean closed;
+        private Throwable failure;
+
+        StreamingConsumer(Map<String, String> keyMap,
+                          Transcoder<T> transcoder,
+                          BiConsumer<String, ? super T> consumer) {
+            this.keyMap = keyMap;
+            this.transcoder = transcoder;
+            this.consumer = consumer;
+        }
+
+        public synchronized void onValue(String key, CachedData value) {
+            if (this.closed || this.failure != null) {
+                return;
+            }
+            String callerKey = this.keyMap.get(key);
+            if (callerKey == null) {
+                return;
+            }
+            try {
+                this.consumer.accept(callerKey, this.transcoder.decode(value));
+            } catch (Throwable e) {
+                this.failure = e;
+            }
+        }
+
+        synchronized void close() {
+            this.closed = true;
+        }
+
+        synchronized void checkFailure() throws MemcachedException {
+            if (this.failure != null) {
+                throw new MemcachedException("Consumer failed for bulk get",
+                        this.failure);
+            }
+        }
+    }
+
+    /**
+     * Decode the values of a completed get command into the result and drop
+     * its raw values
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void mergeResult(final CommandType cmdType,
+                                 final Transcoder<T> transcoder, final Command getCmd,
+                                 final Map<String, T> result)
+            throws MemcachedException, InterruptedException, TimeoutException {
+        getCmd.getIoBuffer().free();
+        this.checkException(getCmd);
+        Map<String, CachedData> map = (Map<String, CachedData>) getCmd
+                .getResult();
+        if (cmdType == CommandType.GET_MANY) {
+            Iterator<Map.Entry<String, CachedData>> it = map.entrySet()
+                    .iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CachedData> entry = it.next();
+                String decodeKey = this.decodeKey(entry.getKey());
+                if (decodeKey != null) {
+                    result.put(decodeKey, transcoder.decode(entry.getValue()));
+                }
+            }
+
+        } else {
+            Iterator<Map.Entry<String, CachedData>> it = map.entrySet()
+                    .iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CachedData> entry = it.next();
+                GetsResponse getsResponse = new GetsResponse(entry.getValue()
+                        .getCas(), transcoder.decode(entry.getValue()));
+                String decodeKey = this.decodeKey(entry.getKey());
+                if (decodeKey != null) {
+                    result.put(decodeKey, (T) getsResponse);
+                }
+            }
+
+        }
+        getCmd.setResult(null);
+    }
+
     /**
      * Hash key to servers
      *
@@ -1273,14 +1765,121 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         return catalogKeys;
     }
 
-    private <T> Command sendGetMultiCommand(
-            final Collection<String> keys, final CountDownLatch latch,
-            final CommandType cmdType, final Transcoder<T> transcoder)
-            throws InterruptedException, TimeoutException, MemcachedException {
-        final Command command = this.commandFactory.createGetMultiCommand(keys,
-                latch, cmdType, transcoder);
-        this.sendCommand(command);
-        return command;
+    /**
+     * Group keys by server,then split every group into chunks of at most
+     * maxKeysPerGet keys and maxBytesPerGet bytes of keys.Each chunk is sent
+     * as its own get command,so a huge bulk get neither monopolises a
+     * connection nor builds a huge response,and the chunks of a server are
+     * spread across its connection pool.
+     *
+     * @param keyCollections processed keys
+     * @return
+     */
+    private Collection<List<String>> splitKeys(
+            final Collection<String> keyCollections) {
+        Collection<List<String>> catalogKeys;
+        if (this.connector.getSessionSet().size() <= 1) {
+            catalogKeys = Collections
+                    .singletonList((List<String>) new ArrayList<String>(
+                            keyCollections));
+        } else {
+            catalogKeys = this.catalogKeys(keyCollections);
+        }
+        final int maxKeys = this.maxKeysPerGet;
+        final int maxBytes = this.maxBytesPerGet;
+        if (maxKeys <= 0 && maxBytes <= 0) {
+            return catalogKeys;
+        }
+        List<List<String>> chunks = new ArrayList<List<String>>(
+                catalogKeys.size());
+        for (List<String> keys : catalogKeys) {
+            List<String> chunk = new ArrayList<String>();
+            int bytes = 0;
+            for (String key : keys) {
+                // encoded key plus separator,only counted with a byte limit
+                int keyBytes = maxBytes > 0 ? ByteUtils.getBytes(key).length + 1
+                        : 0;
+                if (!chunk.isEmpty()
+                        && (maxKeys > 0 && chunk.size() >= maxKeys || maxBytes > 0
+                        && bytes + keyBytes > maxBytes)) {
+                    chunks.add(chunk);
+                    chunk = new ArrayList<String>();
+                    bytes = 0;
+                }
+                chunk.add(key);
+                bytes += keyBytes;
+            }
+            if (!chunk.isEmpty()) {
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Collects completed commands,so the waiting thread can handle them in
+     * completion order.
+     */
+    private static final class CompletionQueue implements
+            Command.CompletionListener {
+        private final BlockingQueue<Command> completed = new LinkedBlockingQueue<Command>();
+
+        public void onComplete(Command command) {
+            this.completed.offer(command);
+        }
+
+        /**
+         * @return the next completed command,or null on timeout
+         */
+        Command poll(long nanos) throws InterruptedException {
+            return this.completed.poll(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Waits for a group of commands,each completed command decrements an
+     * atomic counter and the last one wakes up the waiting thread.
+     */
+    private static final class FanIn implements Command.CompletionListener {
+        private final AtomicInteger remaining;
+        private volatile Thread waiter;
+
+        FanIn(int count) {
+            this.remaining = new AtomicInteger(count);
+        }
+
+        public void onComplete(Command command) {
+            if (this.remaining.decrementAndGet() == 0) {
+                Thread w = this.waiter;
+                if (w != null) {
+                    LockSupport.unpark(w);
+                }
+            }
+        }
+
+        boolean await(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            if (this.remaining.get() <= 0) {
+                return true;
+            }
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            this.waiter = Thread.currentThread();
+            try {
+                while (this.remaining.get() > 0) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, nanos);
+                }
+                return true;
+            } finally {
+                this.waiter = null;
+            }
+        }
     }
 
     /*
@@ -1663,9 +2262,7 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         if (result == null) {
             throw new MemcachedException("Null GetsResponse");
         }
-        while (tryCount <= operation.getMaxTries()
-                && result != null
-                && !this.sendStoreCommand(this.commandFactory.createCASCommand(
+        while (!this.sendStoreCommand(this.commandFactory.createCASCommand(
                 key,
                 keyBytes,
                 exp,
@@ -1673,34 +2270,136 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
                         result.getValue()), result.getCas(), noreply,
                 transcoder), this.opTimeout) && !noreply) {
             tryCount++;
+            if (tryCount > operation.getMaxTries()) {
+                throw new TimeoutException("CAS try times is greater than max");
+            }
+            long backoff = this.casBackoff(tryCount);
+            if (backoff > 0) {
+                Thread.sleep(backoff);
+            }
             result = this.gets0(key, keyBytes, transcoder);
             if (result == null) {
                 throw new MemcachedException(
                         "could not gets the value for Key=" + key + " for cas");
             }
-            if (tryCount > operation.getMaxTries()) {
-                throw new TimeoutException("CAS try times is greater than max");
-            }
         }
         return true;
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see MemcachedClient#cas(java.lang.String, int,
-     * CASOperation,
-     * Transcoder)
+    /**
+     * Random delay before the n-th cas retry,exponential backoff with full
+     * jitter
      */
-    public <T> boolean cas(String key, final int exp,
-                           final CASOperation<T> operation, final Transcoder<T> transcoder)
-            throws TimeoutException, InterruptedException, MemcachedException {
-        key = this.preProcessKey(key);
-        byte[] keyBytes = ByteUtils.getBytes(key);
-        ByteUtils.checkKey(keyBytes);
-        GetsResponse<T> result = this.gets0(key, keyBytes, transcoder);
-        return this.cas0(key, exp, result, operation, transcoder, keyBytes,
-                false);
+    private long casBackoff(int retries) {
+        long base = this.casBackoffBase;
+        if (base <= 0 || retries <= 0) {
+            return 0;
+        }
+        long bound = Math.min(this.casBackoffMax,
+                base << Math.min(retries - 1, 30));
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private <T> CASWaiter<T> cas1(final String key,
+                                                final byte[] keyBytes, final int exp,
+                                                final CASOperation<T> operation, final Transcoder<T> transcoder,
+                                                final long timeout) {
+        if (operation == null) {
+            throw new IllegalArgumentException("CASOperation could not be null");
+        }
+        if (operation.getMaxTries() < 0) {
+            throw new IllegalArgumentException(
+                    "max tries must be greater than 0");
+        }
+        CASWaiter<T> waiter = new CASWaiter<T>(key, operation);
+        if (this.casCombining) {
+            while (true) {
+                @SuppressWarnings("unchecked")
+                CASBatch<T> batch = (CASBatch<T>) this.casBatches.get(key);
+                if (batch == null) {
+                    batch = new CASBatch<T>(key, keyBytes, exp, transcoder,
+                            timeout, true);
+                    batch.join(waiter, exp, transcoder);
+                    if (this.casBatches.putIfAbsent(key, batch) == null) {
+                        batch.round();
+                        return waiter;
+                    }
+                } else if (batch.join(waiter, exp, transcoder)) {
+                    return waiter;
+                } else if (!batch.isClosed()) {
+                    // different expiration or transcoder,run it alone
+                    break;
+                } else {
+                    this.casBatches.remove(key, batch);
+                }
+            }
+        }
+        CASBatch<T> batch = new CASBatch<T>(key, keyBytes, exp, transcoder,
+                timeout, false);
+        batch.join(waiter, exp, transcoder);
+        batch.round();
+        return waiter;
+    }
+
+    /**
+     * Wait for a combined cas,bounded by the operation's max tries of gets
+     * and cas rounds plus their backoffs and the round in flight when it
+     * joined.A waiter which times out or is interrupted leaves its batch,its
+     * operation is not applied in later rounds.
+     */
+    private <T> boolean awaitCAS(CASWaiter<T> waiter, long timeout)
+            throws TimeoutException, InterruptedException, MemcachedException {
+        long rounds = waiter.operation.getMaxTries() + 2L;
+        long roundMills = 2 * timeout + this.casBackoffMax;
+        long bound = roundMills > Long.MAX_VALUE / rounds ? Long.MAX_VALUE
+                : rounds * roundMills;
+        try {
+            return waiter.future.get(bound, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            waiter.leave();
+            throw new TimeoutException("Timed out(" + bound
+                    + " milliseconds) waiting for cas of key " + waiter.key);
+        } catch (InterruptedException e) {
+            waiter.leave();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw (TimeoutException) cause;
+            }
+            if (cause instanceof MemcachedException) {
+                throw (MemcachedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MemcachedException(cause);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see MemcachedClient#cas(java.lang.String, int,
+     * CASOperation,
+     * Transcoder)
+     */
+    public <T> boolean cas(String key, final int exp,
+                           final CASOperation<T> operation, final Transcoder<T> transcoder)
+            throws TimeoutException, InterruptedException, MemcachedException {
+        key = this.preProcessKey(key);
+        byte[] keyBytes = ByteUtils.getBytes(key);
+        ByteUtils.checkKey(keyBytes);
+        if (this.casCombining) {
+            return this.awaitCAS(this.cas1(key, keyBytes, exp, operation,
+                    transcoder, this.opTimeout), this.opTimeout);
+        }
+        GetsResponse<T> result = this.gets0(key, keyBytes, transcoder);
+        return this.cas0(key, exp, result, operation, transcoder, keyBytes,
+                false);
     }
 
     /*
@@ -1857,7 +2556,7 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         ByteUtils.checkKey(keyBytes);
         final Command command = this.commandFactory.createDeleteCommand(key,
                 keyBytes, time, cas, noreply);
-        final Session session = this.sendCommand(command);
+        final Session session = this.sendCommand(command, opTimeout);
         if (!command.isNoreply()) {
             this.latchWait(command, opTimeout, session);
             command.getIoBuffer().free();
@@ -1887,10 +2586,9 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         key = this.preProcessKey(key);
         final byte[] keyBytes = ByteUtils.getBytes(key);
         ByteUtils.checkKey(keyBytes);
-        CountDownLatch latch = new CountDownLatch(1);
         final Command command = this.commandFactory.createTouchCommand(key,
-                keyBytes, latch, exp, false);
-        this.latchWait(command, opTimeout, this.sendCommand(command));
+                keyBytes, null, exp, false);
+        this.latchWait(command, opTimeout, this.sendCommand(command, opTimeout));
         command.getIoBuffer().free();
         this.checkException(command);
         if (command.getResult() == null) {
@@ -1911,10 +2609,9 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         key = this.preProcessKey(key);
         final byte[] keyBytes = ByteUtils.getBytes(key);
         ByteUtils.checkKey(keyBytes);
-        CountDownLatch latch = new CountDownLatch(1);
         final Command command = this.commandFactory.createGetAndTouchCommand(
-                key, keyBytes, latch, newExp, false);
-        this.latchWait(command, opTimeout, this.sendCommand(command));
+                key, keyBytes, null, newExp, false);
+        this.latchWait(command, opTimeout, this.sendCommand(command, opTimeout));
         command.getIoBuffer().free();
         this.checkException(command);
         CachedData data = (CachedData) command.getResult();
@@ -1975,6 +2672,17 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         }
     }
 
+    public void incrWithNoReply(String key, long delta, long initValue,
+                                int exp) throws InterruptedException, MemcachedException {
+        key = this.preProcessKey(key);
+        try {
+            this.sendIncrOrDecrCommand(key, delta, initValue, CommandType.INCR,
+                    true, this.opTimeout, exp);
+        } catch (TimeoutException e) {
+            throw new MemcachedException(e);
+        }
+    }
+
     public void decrWithNoReply(String key, final long delta)
             throws InterruptedException, MemcachedException {
         key = this.preProcessKey(key);
@@ -2353,6 +3061,9 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         this.connector.quitAllSessions();
         this.connector.stop();
         this.memcachedHandler.stop();
+        if (this.timeoutManager != null) {
+            this.timeoutManager.stop();
+        }
         XMemcachedMbeanServer.getInstance().shutdown();
         if (!this.isHutdownHookCalled) {
             try {
@@ -2372,7 +3083,7 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
         ByteUtils.checkKey(keyBytes);
         final Command command = this.commandFactory.createIncrDecrCommand(key,
                 keyBytes, delta, initValue, exp, cmdType, noreply);
-        final Session session = this.sendCommand(command);
+        final Session session = this.sendCommand(command, operationTimeout);
         if (!command.isNoreply()) {
             this.latchWait(command, operationTimeout, session);
             command.getIoBuffer().free();
@@ -2452,7 +3163,7 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     private <T> boolean sendStoreCommand(Command command, long timeout)
             throws InterruptedException, TimeoutException, MemcachedException {
 
-        final Session session = this.sendCommand(command);
+        final Session session = this.sendCommand(command, timeout);
         if (!command.isNoreply()) {
             this.latchWait(command, timeout, session);
             command.getIoBuffer().free();
@@ -2470,46 +3181,1000 @@ public class XMemcachedClient implements XMemcachedClientMBean, MemcachedClient
     private void latchWait(final Command cmd, final long timeout,
                            final Session session) throws InterruptedException,
             TimeoutException {
-        if (cmd.getLatch().await(timeout, TimeUnit.MILLISECONDS)) {
-            AtomicInteger counter = this.getContinuousTimeoutCounter(session);
-            // reset counter.
-            if (counter.get() > 0) {
-                counter.set(0);
+        if (!cmd.await(timeout, TimeUnit.MILLISECONDS)) {
+            // the timeout manager fires up to one tick late,don't wait for it
+            TimeoutException e = this.getTimeoutManager().expire(cmd, session,
+                    timeout);
+            if (e != null) {
+                throw e;
             }
-        } else {
-            cmd.cancel();
-            AtomicInteger counter = this.getContinuousTimeoutCounter(session);
-            if (counter.incrementAndGet() > this.timeoutExceptionThreshold) {
-                log.warn(session
-                        + " exceeded continuous timeout threshold,we will close it.");
+        }
+        if (cmd.getException() instanceof TimeoutException) {
+            throw (TimeoutException) cmd.getException();
+        }
+        this.getTimeoutManager().resetContinuousTimeouts(session);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#getAsync(java.lang.String, long,
+     * Transcoder)
+     */
+    public <T> CompletableFuture<T> getAsync(final String key,
+                                             final long timeout, final Transcoder<T> transcoder) {
+        return this.fetchAsync(key, CommandType.GET_ONE, timeout, transcoder);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getAsync(final String key,
+                                             final long timeout) {
+        return this.getAsync(key, timeout, this.transcoder);
+    }
+
+    public <T> CompletableFuture<T> getAsync(final String key) {
+        return this.getAsync(key, this.opTimeout);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#getsAsync(java.lang.String, long,
+     * Transcoder)
+     */
+    public <T> CompletableFuture<GetsResponse<T>> getsAsync(final String key,
+                                                            final long timeout, final Transcoder<T> transcoder) {
+        return this.fetchAsync(key, CommandType.GETS_ONE, timeout, transcoder);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<GetsResponse<T>> getsAsync(final String key) {
+        return this.getsAsync(key, this.opTimeout, this.transcoder);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#getMultiAsync(java.util.Collection, long,
+     * Transcoder)
+     */
+    public <T> CompletableFuture<Map<String, T>> getMultiAsync(
+            final Collection<String> keys, final long timeout,
+            final Transcoder<T> transcoder) {
+        if (keys == null || keys.size() == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final AsyncGetMulti<T> call;
+        try {
+            // map back to the caller's keys,the namespace thread local is
+            // not visible on the reactor thread.
+            Map<String, String> keyMap = new HashMap<String, String>(
+                    keys.size());
+            for (String key : keys) {
+                keyMap.put(this.preProcessKey(key), key);
+            }
+            Collection<List<String>> catalogKeys = this.splitKeys(keyMap
+                    .keySet());
+            List<Command> commands = new ArrayList<Command>(catalogKeys.size());
+            for (List<String> catalogKeyCollection : catalogKeys) {
+                commands.add(this.commandFactory.createGetMultiCommand(
+                        catalogKeyCollection, null,
+                        CommandType.GET_MANY, transcoder));
+            }
+            call = new AsyncGetMulti<T>(commands, keyMap, transcoder, timeout);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        return call.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<Map<String, T>> getMultiAsync(
+            final Collection<String> keys) {
+        return this.getMultiAsync(keys, this.opTimeout, this.transcoder);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#setAsync(java.lang.String, int, T,
+     * Transcoder, long)
+     */
+    public <T> CompletableFuture<Boolean> setAsync(final String key,
+                                                   final int exp, final T value, final Transcoder<T> transcoder,
+                                                   final long timeout) {
+        try {
+            String k = this.preProcessKey(key);
+            byte[] keyBytes = this.checkStoreArguments(k, exp, value);
+            return this.sendStoreCommandAsync(this.commandFactory
+                    .createSetCommand(k, keyBytes, exp, value, false,
+                            transcoder), timeout);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Boolean> setAsync(final String key,
+                                               final int exp, final Object value) {
+        return this.setAsync(key, exp, value, this.transcoder, this.opTimeout);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#addAsync(java.lang.String, int, T,
+     * Transcoder, long)
+     */
+    public <T> CompletableFuture<Boolean> addAsync(final String key,
+                                                   final int exp, final T value, final Transcoder<T> transcoder,
+                                                   final long timeout) {
+        try {
+            return this.add0Async(this.preProcessKey(key), exp, value,
+                    transcoder, timeout);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Boolean> addAsync(final String key,
+                                               final int exp, final Object value) {
+        return this.addAsync(key, exp, value, this.transcoder, this.opTimeout);
+    }
+
+    private <T> CompletableFuture<Boolean> add0Async(final String key,
+                                                     final int exp, final T value, final Transcoder<T> transcoder,
+                                                     final long timeout) {
+        byte[] keyBytes = this.checkStoreArguments(key, exp, value);
+        return this.sendStoreCommandAsync(this.commandFactory.createAddCommand(
+                key, keyBytes, exp, value, false, transcoder), timeout);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#casAsync(java.lang.String, int, T,
+     * Transcoder, long, long)
+     */
+    public <T> CompletableFuture<Boolean> casAsync(final String key,
+                                                   final int exp, final T value, final Transcoder<T> transcoder,
+                                                   final long timeout, final long cas) {
+        try {
+            String k = this.preProcessKey(key);
+            byte[] keyBytes = this.checkStoreArguments(k, 0, value);
+            return this.sendStoreCommandAsync(this.commandFactory
+                    .createCASCommand(k, keyBytes, exp, value, cas, false,
+                            transcoder), timeout);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Boolean> casAsync(final String key,
+                                               final int exp, final Object value, final long cas) {
+        return this.casAsync(key, exp, value, this.transcoder, this.opTimeout,
+                cas);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#casAsync(java.lang.String, int,
+     * CASOperation, Transcoder, long)
+     */
+    public <T> CompletableFuture<Boolean> casAsync(final String key,
+                                                   final int exp, final CASOperation<T> operation,
+                                                   final Transcoder<T> transcoder, final long timeout) {
+        try {
+            String k = this.preProcessKey(key);
+            byte[] keyBytes = ByteUtils.getBytes(k);
+            ByteUtils.checkKey(keyBytes);
+            return this.cas1(k, keyBytes, exp, operation, transcoder, timeout).future;
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<Boolean> casAsync(final String key,
+                                                   final int exp, final CASOperation<T> operation) {
+        return this.casAsync(key, exp, operation, this.transcoder,
+                this.opTimeout);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#deleteAsync(java.lang.String, long)
+     */
+    public CompletableFuture<Boolean> deleteAsync(final String key,
+                                                  final long timeout) {
+        try {
+            String k = this.preProcessKey(key);
+            final byte[] keyBytes = ByteUtils.getBytes(k);
+            ByteUtils.checkKey(keyBytes);
+            return this.sendStoreCommandAsync(this.commandFactory
+                    .createDeleteCommand(k, keyBytes, 0, 0, false), timeout);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(final String key) {
+        return this.deleteAsync(key, this.opTimeout);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#touchAsync(java.lang.String, int, long)
+     */
+    public CompletableFuture<Boolean> touchAsync(final String key,
+                                                 final int exp, final long timeout) {
+        try {
+            String k = this.preProcessKey(key);
+            final byte[] keyBytes = ByteUtils.getBytes(k);
+            ByteUtils.checkKey(keyBytes);
+            return this.sendStoreCommandAsync(this.commandFactory
+                    .createTouchCommand(k, keyBytes, null, exp, false),
+                    timeout);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Boolean> touchAsync(final String key,
+                                                 final int exp) {
+        return this.touchAsync(key, exp, this.opTimeout);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#incrAsync(java.lang.String, long, long,
+     * long, int)
+     */
+    public CompletableFuture<Long> incrAsync(final String key,
+                                             final long delta, final long initValue, final long timeout,
+                                             final int exp) {
+        try {
+            return this.sendIncrOrDecrCommandAsync(this.preProcessKey(key),
+                    delta, initValue, CommandType.INCR, timeout, exp);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Long> incrAsync(final String key,
+                                             final long delta, final long initValue) {
+        return this.incrAsync(key, delta, initValue, this.opTimeout, 0);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#decrAsync(java.lang.String, long, long,
+     * long, int)
+     */
+    public CompletableFuture<Long> decrAsync(final String key,
+                                             final long delta, final long initValue, final long timeout,
+                                             final int exp) {
+        try {
+            return this.sendIncrOrDecrCommandAsync(this.preProcessKey(key),
+                    delta, initValue, CommandType.DECR, timeout, exp);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Long> decrAsync(final String key,
+                                             final long delta, final long initValue) {
+        return this.decrAsync(key, delta, initValue, this.opTimeout, 0);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see AsyncMemcachedClient#pipeline(long)
+     */
+    public Pipeline pipeline(final long timeout) {
+        return new PipelineImpl(timeout);
+    }
+
+    public Pipeline pipeline() {
+        return this.pipeline(this.opTimeout);
+    }
+
+    private <R> CompletableFuture<R> fetchAsync(final String key,
+                                                final CommandType cmdType, final long timeout,
+                                                final Transcoder<?> transcoder) {
+        try {
+            return this.<R>fetchCall(key, cmdType, timeout, transcoder).start();
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> AsyncCall<R> fetchCall(final String key,
+                                       final CommandType cmdType, final long timeout,
+                                       final Transcoder<?> transcoder) throws MemcachedException,
+            InterruptedException {
+        String k = this.preProcessKey(key);
+        byte[] keyBytes = ByteUtils.getBytes(k);
+        ByteUtils.checkKey(keyBytes);
+        final Command command = this.commandFactory.createGetCommand(k,
+                keyBytes, cmdType, this.transcoder);
+        return new AsyncCall<R>(command, timeout) {
+            @Override
+            R result(Command command) {
+                CachedData data = (CachedData) command.getResult();
+                if (data == null) {
+                    return null;
+                }
+                Transcoder<?> t = transcoder == null ? XMemcachedClient.this.transcoder
+                        : transcoder;
+                if (cmdType == CommandType.GETS_ONE) {
+                    return (R) new GetsResponse<Object>(data.getCas(),
+                            t.decode(data));
+                }
+                return (R) t.decode(data);
+            }
+        };
+    }
+
+    private CompletableFuture<Boolean> sendStoreCommandAsync(
+            final Command command, final long timeout) {
+        return this.storeCall(command, timeout).start();
+    }
+
+    private AsyncCall<Boolean> storeCall(final Command command,
+                                         final long timeout) {
+        return new AsyncCall<Boolean>(command, timeout) {
+            @Override
+            Boolean result(Command command) throws MemcachedException {
+                if (command.getResult() == null) {
+                    throw new MemcachedException(
+                            "Operation fail,may be caused by networking or timeout");
+                }
+                return (Boolean) command.getResult();
+            }
+        };
+    }
+
+    private CompletableFuture<Long> sendIncrOrDecrCommandAsync(
+            final String key, final long delta, final long initValue,
+            final CommandType cmdType, final long timeout, final int exp) {
+        return this.incrDecrResult(
+                this.incrDecrCall(key, delta, initValue, cmdType, timeout, exp)
+                        .start(), key, delta, initValue, cmdType, timeout, exp);
+    }
+
+    private AsyncCall<Object> incrDecrCall(final String key, final long delta,
+                                           final long initValue, final CommandType cmdType,
+                                           final long timeout, final int exp) {
+        final byte[] keyBytes = ByteUtils.getBytes(key);
+        ByteUtils.checkKey(keyBytes);
+        final Command command = this.commandFactory.createIncrDecrCommand(key,
+                keyBytes, delta, initValue, exp, cmdType, false);
+        return new AsyncCall<Object>(command, timeout) {
+            @Override
+            Object result(Command command) throws MemcachedException {
+                if (command.getResult() == null) {
+                    throw new MemcachedException(
+                            "Operation fail,may be caused by networking or timeout");
+                }
+                return command.getResult();
+            }
+        };
+    }
+
+    private CompletableFuture<Long> incrDecrResult(
+            final CompletableFuture<Object> future, final String key,
+            final long delta, final long initValue, final CommandType cmdType,
+            final long timeout, final int exp) {
+        return future.thenCompose(new Function<Object, CompletionStage<Long>>() {
+            @SuppressWarnings("unchecked")
+            public CompletionStage<Long> apply(Object result) {
+                if (result instanceof Long) {
+                    return CompletableFuture.completedFuture((Long) result);
+                }
+                if (!"NOT_FOUND".equals(result)) {
+                    return failedFuture(new MemcachedException(
+                            "Unknown result type for incr/decr:"
+                                    + result.getClass() + ",result=" + result));
+                }
+                // text protocol,create the counter and retry if someone
+                // else created it first.
+                return add0Async(key, exp, String.valueOf(initValue),
+                        transcoder, timeout).thenCompose(
+                        new Function<Boolean, CompletionStage<Long>>() {
+                            public CompletionStage<Long> apply(Boolean added) {
+                                if (added) {
+                                    return CompletableFuture
+                                            .completedFuture(initValue);
+                                }
+                                return sendIncrOrDecrCommandAsync(key, delta,
+                                        initValue, cmdType, timeout, exp);
+                            }
+                        });
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        if (throwable instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    private CommandTimeoutManager getTimeoutManager() {
+        CommandTimeoutManager result = this.timeoutManager;
+        if (result == null) {
+            synchronized (this) {
+                result = this.timeoutManager;
+                if (result == null) {
+                    result = new CommandTimeoutManager(
+                            this.timeoutExceptionThreshold);
+                    this.timeoutManager = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * An in-flight command whose future is completed from the decode path
+     * through {@link Command.CompletionListener},or failed when the timeout
+     * manager expires the command.
+     */
+    private abstract class AsyncCall<R> implements Command.CompletionListener {
+        final Command command;
+        final long timeout;
+        final CompletableFuture<R> future = new CompletableFuture<R>();
+        volatile Session session;
+
+        AsyncCall(Command command, long timeout) {
+            this.command = command;
+            this.timeout = timeout;
+        }
+
+        abstract R result(Command command) throws Exception;
+
+        CompletableFuture<R> start() {
+            this.attach();
+            try {
+                this.session = sendCommand(this.command, this.timeout);
+            } catch (Exception e) {
+                this.fail(e);
+            }
+            return this.future;
+        }
+
+        /**
+         * Listen to the command without sending it
+         */
+        CompletableFuture<R> attach() {
+            this.command.setCompletionListener(this);
+            return this.future;
+        }
+
+        void fail(Exception e) {
+            this.command.cancel();
+            this.future.completeExceptionally(e);
+        }
+
+        public void onComplete(Command cmd) {
+            if (this.command.getException() instanceof TimeoutException) {
+                this.future.completeExceptionally(this.command.getException());
+                return;
+            }
+            Session s = this.session;
+            if (s != null) {
+                getTimeoutManager().resetContinuousTimeouts(s);
+            }
+            try {
+                this.command.getIoBuffer().free();
+                checkException(this.command);
+                this.future.complete(this.result(this.command));
+            } catch (Throwable e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * A CASOperation waiting for a cas round
+     */
+    private static final class CASWaiter<T> {
+        final String key;
+        final CASOperation<T> operation;
+        final CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
+        volatile CASBatch<T> batch;
+        int tries;
+
+        CASWaiter(String key, CASOperation<T> operation) {
+            this.key = key;
+            this.operation = operation;
+        }
+
+        /**
+         * Give up waiting,a round already applying the operation may still
+         * store it
+         */
+        void leave() {
+            CASBatch<T> batch = this.batch;
+            if (batch != null) {
+                batch.leave(this);
+            }
+            this.future.cancel(false);
+        }
+    }
+
+    /**
+     * Gets/cas rounds on one key driven by the responses,without parking a
+     * thread.Every round applies all waiting operations one after another on
+     * the value and stores the result with a single cas,operations joining
+     * while a round is in flight wait for the next one.On conflict the round
+     * is retried after a backoff on the timer thread,operations which
+     * exhausted their tries fail with a TimeoutException.
+     */
+    private final class CASBatch<T> {
+        final String key;
+        final byte[] keyBytes;
+        final int exp;
+        final Transcoder<T> transcoder;
+        final long timeout;
+        final boolean combined;
+        // guarded by this
+        private final List<CASWaiter<T>> pending = new ArrayList<CASWaiter<T>>();
+        private boolean closed;
+        // only touched by the running round
+        private final List<CASWaiter<T>> active = new ArrayList<CASWaiter<T>>();
+
+        CASBatch(String key, byte[] keyBytes, int exp,
+                 Transcoder<T> transcoder, long timeout, boolean combined) {
+            this.key = key;
+            this.keyBytes = keyBytes;
+            this.exp = exp;
+            this.transcoder = transcoder;
+            this.timeout = timeout;
+            this.combined = combined;
+        }
+
+        synchronized boolean join(CASWaiter<T> waiter, int exp,
+                                  Transcoder<T> transcoder) {
+            if (this.closed || exp != this.exp
+                    || transcoder != this.transcoder) {
+                return false;
+            }
+            this.pending.add(waiter);
+            waiter.batch = this;
+            return true;
+        }
+
+        synchronized void leave(CASWaiter<T> waiter) {
+            this.pending.remove(waiter);
+        }
+
+        synchronized boolean isClosed() {
+            return this.closed;
+        }
+
+        void round() {
+            synchronized (this) {
+                this.active.addAll(this.pending);
+                this.pending.clear();
+                if (this.active.isEmpty()) {
+                    this.closed = true;
+                    if (this.combined) {
+                        casBatches.remove(this.key, this);
+                    }
+                    return;
+                }
+            }
+            CompletableFuture<GetsResponse<T>> gets;
+            try {
+                gets = this.gets();
+            } catch (Exception e) {
+                gets = failedFuture(e);
+            }
+            gets.whenComplete(new BiConsumer<GetsResponse<T>, Throwable>() {
+                public void accept(GetsResponse<T> result, Throwable e) {
+                    if (e != null) {
+                        CASBatch.this.failAll(e);
+                    } else if (result == null) {
+                        CASBatch.this.failAll(new MemcachedException(
+                                "could not gets the value for Key="
+                                        + CASBatch.this.key + " for cas"));
+                    } else {
+                        CASBatch.this.cas(result);
+                        return;
+                    }
+                    CASBatch.this.round();
+                }
+            });
+        }
+
+        private CompletableFuture<GetsResponse<T>> gets() {
+            Command command = commandFactory.createGetCommand(this.key,
+                    this.keyBytes, CommandType.GETS_ONE, this.transcoder);
+            return new AsyncCall<GetsResponse<T>>(command, this.timeout) {
+                @Override
+                GetsResponse<T> result(Command command) {
+                    CachedData data = (CachedData) command.getResult();
+                    if (data == null) {
+                        return null;
+                    }
+                    return new GetsResponse<T>(data.getCas(),
+                            CASBatch.this.transcoder.decode(data));
+                }
+            }.start();
+        }
+
+        private void cas(GetsResponse<T> result) {
+            T value = result.getValue();
+            Iterator<CASWaiter<T>> it = this.active.iterator();
+            while (it.hasNext()) {
+                CASWaiter<T> waiter = it.next();
+                if (waiter.future.isDone()) {
+                    // left after timing out or being interrupted
+                    it.remove();
+                    continue;
+                }
                 try {
-                    // reset counter.
-                    counter.set(0);
-                    session.close();
-                } catch (Exception e) {
-                    // ignore it.
+                    value = waiter.operation.getNewValue(result.getCas(), value);
+                } catch (RuntimeException e) {
+                    it.remove();
+                    waiter.future.completeExceptionally(e);
                 }
             }
-            throw new TimeoutException(
-                    "Timed out("
-                            + timeout
-                            + " milliseconds) waiting for operation while connected to "
-                            + session);
+            if (this.active.isEmpty()) {
+                this.round();
+                return;
+            }
+            CompletableFuture<Boolean> stored;
+            try {
+                stored = sendStoreCommandAsync(commandFactory.createCASCommand(
+                        this.key, this.keyBytes, this.exp, value,
+                        result.getCas(), false, this.transcoder), this.timeout);
+            } catch (Exception e) {
+                stored = failedFuture(e);
+            }
+            stored.whenComplete(new BiConsumer<Boolean, Throwable>() {
+                public void accept(Boolean success, Throwable e) {
+                    if (e != null) {
+                        CASBatch.this.failAll(e);
+                    } else if (success) {
+                        for (CASWaiter<T> waiter : CASBatch.this.active) {
+                            waiter.future.complete(Boolean.TRUE);
+                        }
+                        CASBatch.this.active.clear();
+                    } else {
+                        CASBatch.this.retry();
+                        return;
+                    }
+                    CASBatch.this.round();
+                }
+            });
+        }
+
+        private void retry() {
+            int retries = 0;
+            Iterator<CASWaiter<T>> it = this.active.iterator();
+            while (it.hasNext()) {
+                CASWaiter<T> waiter = it.next();
+                if (++waiter.tries > waiter.operation.getMaxTries()) {
+                    it.remove();
+                    waiter.future.completeExceptionally(new TimeoutException(
+                            "CAS try times is greater than max"));
+                } else {
+                    retries = Math.max(retries, waiter.tries);
+                }
+            }
+            long backoff = casBackoff(retries);
+            if (backoff > 0) {
+                try {
+                    getTimeoutManager().schedule(new Runnable() {
+                        public void run() {
+                            CASBatch.this.round();
+                        }
+                    }, backoff);
+                    return;
+                } catch (IllegalStateException e) {
+                    this.failAll(new MemcachedException(
+                            "Xmemcached client has been shutdown"));
+                }
+            }
+            this.round();
+        }
+
+        private void failAll(Throwable e) {
+            for (CASWaiter<T> waiter : this.active) {
+                waiter.future.completeExceptionally(e);
+            }
+            this.active.clear();
         }
     }
 
-    private AtomicInteger getContinuousTimeoutCounter(final Session session) {
-        AtomicInteger counter = (AtomicInteger) session
-                .getAttribute(CONTINUOUS_TIMEOUT_COUNTER);
-        if (counter == null) {
-            counter = new AtomicInteger(0);
-            AtomicInteger oldCounter = (AtomicInteger) session
-                    .setAttributeIfAbsent(CONTINUOUS_TIMEOUT_COUNTER, counter);
-            if (oldCounter != null) {
-                counter = oldCounter;
+    /**
+     * A multi-get split by server,one command per server,the last command
+     * to complete reduces the results.
+     */
+    private final class AsyncGetMulti<T> implements Command.CompletionListener {
+        final List<Command> commands;
+        final Map<String, String> keyMap;
+        final Transcoder<T> transcoder;
+        final long timeout;
+        final CompletableFuture<Map<String, T>> future = new CompletableFuture<Map<String, T>>();
+        final AtomicInteger remaining;
+
+        AsyncGetMulti(List<Command> commands, Map<String, String> keyMap,
+                      Transcoder<T> transcoder, long timeout) {
+            this.commands = commands;
+            this.keyMap = keyMap;
+            this.transcoder = transcoder;
+            this.timeout = timeout;
+            this.remaining = new AtomicInteger(commands.size());
+        }
+
+        CompletableFuture<Map<String, T>> start() {
+            try {
+                for (Command command : this.commands) {
+                    command.setCompletionListener(this);
+                    sendCommand(command, this.timeout);
+                }
+            } catch (Exception e) {
+                for (Command command : this.commands) {
+                    command.cancel();
+                }
+                this.future.completeExceptionally(e);
+            }
+            return this.future;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void onComplete(Command cmd) {
+            if (this.remaining.decrementAndGet() > 0) {
+                return;
+            }
+            try {
+                Map<String, T> result = new HashMap<String, T>(this.keyMap.size());
+                for (Command getCmd : this.commands) {
+                    if (getCmd.getException() instanceof TimeoutException) {
+                        throw getCmd.getException();
+                    }
+                    getCmd.getIoBuffer().free();
+                    checkException(getCmd);
+                    Map<String, CachedData> map = (Map<String, CachedData>) getCmd
+                            .getResult();
+                    for (Map.Entry<String, CachedData> entry : map.entrySet()) {
+                        String key = this.keyMap.get(entry.getKey());
+                        if (key != null) {
+                            result.put(key,
+                                    this.transcoder.decode(entry.getValue()));
+                        }
+                    }
+                }
+                this.future.complete(result);
+            } catch (Throwable e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Collects async calls without sending them,on execute the commands of
+     * every server are sent as one PipelineCommand.
+     */
+    private final class PipelineImpl implements Pipeline {
+        private final long timeout;
+        private final List<AsyncCall<?>> calls = new ArrayList<AsyncCall<?>>();
+        private boolean executed;
+
+        PipelineImpl(long timeout) {
+            this.timeout = timeout;
+        }
+
+        private <R> CompletableFuture<R> add(AsyncCall<R> call) {
+            if (this.executed) {
+                throw new IllegalStateException("Pipeline has been executed");
+            }
+            this.calls.add(call);
+            return call.attach();
+        }
+
+        public <T> CompletableFuture<T> get(String key,
+                                            Transcoder<T> transcoder) {
+            try {
+                return this.add(XMemcachedClient.this.<T>fetchCall(key,
+                        CommandType.GET_ONE, this.timeout, transcoder));
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<T> get(String key) {
+            return this.get(key, XMemcachedClient.this.transcoder);
+        }
+
+        public <T> CompletableFuture<GetsResponse<T>> gets(String key,
+                                                           Transcoder<T> transcoder) {
+            try {
+                return this.add(XMemcachedClient.this
+                        .<GetsResponse<T>>fetchCall(key, CommandType.GETS_ONE,
+                                this.timeout, transcoder));
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<GetsResponse<T>> gets(String key) {
+            return this.gets(key, XMemcachedClient.this.transcoder);
+        }
+
+        public <T> CompletableFuture<Boolean> set(String key, int exp,
+                                                  T value, Transcoder<T> transcoder) {
+            try {
+                String k = preProcessKey(key);
+                byte[] keyBytes = checkStoreArguments(k, exp, value);
+                return this.add(storeCall(commandFactory.createSetCommand(k,
+                        keyBytes, exp, value, false, transcoder), this.timeout));
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public CompletableFuture<Boolean> set(String key, int exp,
+                                              Object value) {
+            return this.set(key, exp, value, XMemcachedClient.this.transcoder);
+        }
+
+        public <T> CompletableFuture<Boolean> add(String key, int exp,
+                                                  T value, Transcoder<T> transcoder) {
+            try {
+                String k = preProcessKey(key);
+                byte[] keyBytes = checkStoreArguments(k, exp, value);
+                return this.add(storeCall(commandFactory.createAddCommand(k,
+                        keyBytes, exp, value, false, transcoder), this.timeout));
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public CompletableFuture<Boolean> add(String key, int exp,
+                                              Object value) {
+            return this.add(key, exp, value, XMemcachedClient.this.transcoder);
+        }
+
+        public <T> CompletableFuture<Boolean> cas(String key, int exp,
+                                                  T value, Transcoder<T> transcoder, long cas) {
+            try {
+                String k = preProcessKey(key);
+                byte[] keyBytes = checkStoreArguments(k, 0, value);
+                return this.add(storeCall(commandFactory.createCASCommand(k,
+                        keyBytes, exp, value, cas, false, transcoder),
+                        this.timeout));
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public CompletableFuture<Boolean> cas(String key, int exp,
+                                              Object value, long cas) {
+            return this.cas(key, exp, value, XMemcachedClient.this.transcoder,
+                    cas);
+        }
+
+        public CompletableFuture<Boolean> delete(String key) {
+            try {
+                String k = preProcessKey(key);
+                byte[] keyBytes = ByteUtils.getBytes(k);
+                ByteUtils.checkKey(keyBytes);
+                return this.add(storeCall(commandFactory.createDeleteCommand(
+                        k, keyBytes, 0, 0, false), this.timeout));
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        public CompletableFuture<Boolean> touch(String key, int exp) {
+            try {
+                String k = preProcessKey(key);
+                byte[] keyBytes = ByteUtils.getBytes(k);
+                ByteUtils.checkKey(keyBytes);
+                return this.add(storeCall(commandFactory.createTouchCommand(k,
+                        keyBytes, null, exp, false), this.timeout));
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        public CompletableFuture<Long> incr(String key, long delta,
+                                            long initValue, int exp) {
+            return this.incrOrDecr(key, delta, initValue, exp,
+                    CommandType.INCR);
+        }
+
+        public CompletableFuture<Long> decr(String key, long delta,
+                                            long initValue, int exp) {
+            return this.incrOrDecr(key, delta, initValue, exp,
+                    CommandType.DECR);
+        }
+
+        private CompletableFuture<Long> incrOrDecr(String key, long delta,
+                                                   long initValue, int exp, CommandType cmdType) {
+            try {
+                String k = preProcessKey(key);
+                return incrDecrResult(this.add(incrDecrCall(k, delta,
+                        initValue, cmdType, this.timeout, exp)), k, delta,
+                        initValue, cmdType, this.timeout, exp);
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+        }
+
+        public int size() {
+            return this.calls.size();
+        }
+
+        public CompletableFuture<Void> execute() {
+            if (this.executed) {
+                throw new IllegalStateException("Pipeline has been executed");
+            }
+            this.executed = true;
+            // one session per server,so each server gets a single write
+            Map<InetSocketAddress, Session> sessions = new HashMap<InetSocketAddress, Session>();
+            Map<Session, List<AsyncCall<?>>> groups = new LinkedHashMap<Session, List<AsyncCall<?>>>();
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[this.calls
+                    .size()];
+            for (int i = 0; i < this.calls.size(); i++) {
+                AsyncCall<?> call = this.calls.get(i);
+                futures[i] = call.future;
+                try {
+                    if (shutdown) {
+                        throw new MemcachedException("Xmemcached is stopped");
+                    }
+                    Session session = connector.findSession(call.command);
+                    Session selected = sessions.get(session
+                            .getRemoteSocketAddress());
+                    if (selected == null) {
+                        selected = session;
+                        sessions.put(session.getRemoteSocketAddress(), session);
+                        groups.put(session, new ArrayList<AsyncCall<?>>());
+                    }
+                    groups.get(selected).add(call);
+                } catch (MemcachedException e) {
+                    call.fail(e);
+                }
+            }
+            for (Map.Entry<Session, List<AsyncCall<?>>> entry : groups
+                    .entrySet()) {
+                Session session = entry.getKey();
+                List<AsyncCall<?>> group = entry.getValue();
+                List<Command> commands = new ArrayList<Command>(group.size());
+                for (AsyncCall<?> call : group) {
+                    call.session = session;
+                    commands.add(call.command);
+                }
+                session.write(commands.size() == 1 ? commands.get(0)
+                        : new PipelineCommand(commands));
+                for (Command command : commands) {
+                    getTimeoutManager().watch(command, session, this.timeout);
+                }
             }
+            return CompletableFuture.allOf(futures);
         }
-        return counter;
     }
 
     /**
@@ -12,8 +12,10 @@ import com.ouyang.xmemcached.command.binary.*;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -40,21 +42,21 @@ public class BinaryCommandFactory implements CommandFactory {
     public Command createAppendCommand(String key, byte[] keyBytes,
                                        Object value, boolean noreply, Transcoder transcoder) {
         return new BinaryAppendPrependCommand(key, keyBytes,
-                CommandType.APPEND, new CountDownLatch(1), 0, 0, value,
+                CommandType.APPEND, null, 0, 0, value,
                 noreply, transcoder);
     }
 
     public Command createCASCommand(String key, byte[] keyBytes, int exp,
                                     Object value, long cas, boolean noreply, Transcoder transcoder) {
         return new BinaryCASCommand(key, keyBytes, CommandType.CAS,
-                new CountDownLatch(1), exp, cas, value, noreply, transcoder);
+                null, exp, cas, value, noreply, transcoder);
     }
 
     public Command createDeleteCommand(String key, byte[] keyBytes, int time,
                                        long cas,
                                        boolean noreply) {
         return new BinaryDeleteCommand(key, keyBytes, cas, CommandType.DELETE,
-                new CountDownLatch(1), noreply);
+                null, noreply);
     }
 
     public Command createFlushAllCommand(CountDownLatch latch, int delay,
@@ -64,8 +66,8 @@ public class BinaryCommandFactory implements CommandFactory {
 
     public Command createGetCommand(String key, byte[] keyBytes,
                                     CommandType cmdType, Transcoder transcoder) {
-        return new BinaryGetCommand(key, keyBytes, cmdType, new CountDownLatch(
-                1), OpCode.GET, false);
+        return new BinaryGetCommand(key, keyBytes, cmdType, null,
+                OpCode.GET, false);
     }
 
     public <T> Command createGetMultiCommand(Collection<String> keys,
@@ -88,7 +90,7 @@ public class BinaryCommandFactory implements CommandFactory {
         }
         // last key,create a get command
         Command lastCommand = new BinaryGetCommand(key,
-                ByteUtils.getBytes(key), cmdType, new CountDownLatch(1),
+                ByteUtils.getBytes(key), cmdType, null,
                 OpCode.GET_KEY, false);
         lastCommand.encode();
         bufferList.add(lastCommand.getIoBuffer());
@@ -97,6 +99,7 @@ public class BinaryCommandFactory implements CommandFactory {
         IoBuffer mergedBuffer = IoBuffer.allocate(totalLength);
         for (IoBuffer buffer : bufferList) {
             mergedBuffer.put(buffer.buf());
+            buffer.free();
         }
         mergedBuffer.flip();
         Command resultCommand = new BinaryGetMultiCommand(key, cmdType, latch);
@@ -104,6 +107,71 @@ public class BinaryCommandFactory implements CommandFactory {
         return resultCommand;
     }
 
+    @SuppressWarnings("unchecked")
+    public <T> Command createSetMultiCommand(Map<String, T> keyValues,
+                                             int exp, Transcoder<T> transcoder) {
+        List<Command> commands = new ArrayList<Command>(keyValues.size());
+        for (Map.Entry<String, T> entry : keyValues.entrySet()) {
+            // setq
+            commands.add(new BinaryStoreCommand(entry.getKey(), ByteUtils
+                    .getBytes(entry.getKey()), CommandType.SET, null, exp, -1,
+                    entry.getValue(), true, transcoder));
+        }
+        return this.createMultiWriteCommand(commands, CommandType.SET_MANY);
+    }
+
+    public Command createDeleteMultiCommand(Collection<String> keys) {
+        List<Command> commands = new ArrayList<Command>(keys.size());
+        for (String key : keys) {
+            // deleteq
+            commands.add(new BinaryDeleteCommand(key, ByteUtils.getBytes(key),
+                    0, CommandType.DELETE, null, true));
+        }
+        return this.createMultiWriteCommand(commands, CommandType.DELETE_MANY);
+    }
+
+    public Command createTouchMultiCommand(Collection<String> keys, int exp) {
+        List<Command> commands = new ArrayList<Command>(keys.size());
+        for (String key : keys) {
+            // there is no touchq,but noreply assigns an opaque
+            commands.add(new BinaryTouchCommand(key, ByteUtils.getBytes(key),
+                    CommandType.TOUCH, null, exp, true));
+        }
+        return this.createMultiWriteCommand(commands, CommandType.TOUCH_MANY);
+    }
+
+    private Command createMultiWriteCommand(List<Command> commands,
+                                            CommandType cmdType) {
+        Map<Integer, String> opaqueKeys = new HashMap<Integer, String>(
+                commands.size() * 2);
+        List<IoBuffer> bufferList = new ArrayList<IoBuffer>(
+                commands.size() + 1);
+        int totalLength = 0;
+        for (Command command : commands) {
+            command.encode();
+            opaqueKeys.put(((BaseBinaryCommand) command).getOpaque(),
+                    command.getKey());
+            totalLength += command.getIoBuffer().remaining();
+            bufferList.add(command.getIoBuffer());
+        }
+        // the noop response tells all the quiet commands are done
+        Command noopCommand = new BinaryNoopCommand(null);
+        noopCommand.encode();
+        bufferList.add(noopCommand.getIoBuffer());
+        totalLength += noopCommand.getIoBuffer().remaining();
+
+        IoBuffer mergedBuffer = IoBuffer.allocate(totalLength);
+        for (IoBuffer buffer : bufferList) {
+            mergedBuffer.put(buffer.buf());
+            buffer.free();
+        }
+        mergedBuffer.flip();
+        Command resultCommand = new BinaryMultiWriteCommand(commands.get(0)
+                .getKey(), cmdType, opaqueKeys);
+        resultCommand.setIoBuffer(mergedBuffer);
+        return resultCommand;
+    }
+
     public Command createIncrDecrCommand(String key, byte[] keyBytes,
                                          long amount, long initial, int expTime, CommandType cmdType,
                                          boolean noreply) {
@@ -114,7 +182,7 @@ public class BinaryCommandFactory implements CommandFactory {
     public Command createPrependCommand(String key, byte[] keyBytes,
                                         Object value, boolean noreply, Transcoder transcoder) {
         return new BinaryAppendPrependCommand(key, keyBytes,
-                CommandType.PREPEND, new CountDownLatch(1), 0, 0, value,
+                CommandType.PREPEND, null, 0, 0, value,
                 noreply, transcoder);
     }
 
@@ -128,7 +196,7 @@ public class BinaryCommandFactory implements CommandFactory {
                                      Object value, CommandType cmdType, boolean noreply,
                                      Transcoder transcoder) {
         return new BinaryStoreCommand(key, keyBytes, cmdType,
-                new CountDownLatch(1), exp, -1, value, noreply, transcoder);
+                null, exp, -1, value, noreply, transcoder);
     }
 
     public Command createSetCommand(String key, byte[] keyBytes, int exp,
@@ -15,6 +15,7 @@ import com.ouyang.code.yanf4j.buffer.IoBuffer;
 import com.ouyang.code.yanf4j.core.Session;
 import com.ouyang.code.yanf4j.core.WriteMessage;
 import com.ouyang.code.yanf4j.core.impl.FutureImpl;
+import com.ouyang.code.yanf4j.util.HashedWheelTimer;
 import com.ouyang.xmemcached.exception.MemcachedClientException;
 import com.ouyang.xmemcached.exception.MemcachedDecodeException;
 import com.ouyang.xmemcached.exception.MemcachedServerException;
@@ -26,6 +27,9 @@ import com.ouyang.xmemcached.utils.ByteUtils;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Abstract Memcached Command
@@ -37,6 +41,11 @@ public abstract class Command implements WriteMessage {
     public static final byte REQUEST_MAGIC_NUMBER = (byte) (0x80 & 0xFF);
 
     public static final byte RESPONSE_MAGIC_NUMBER = (byte) (0x81 & 0xFF);
+    private static final int PENDING = 0;
+    private static final int COMPLETING = 1;
+    private static final int DONE = 2;
+    private static final AtomicIntegerFieldUpdater<Command> STATE_UPDATER = AtomicIntegerFieldUpdater
+            .newUpdater(Command.class, "state");
     protected String key;
     protected byte[] keyBytes;
     protected volatile Object result;
@@ -51,6 +60,10 @@ public abstract class Command implements WriteMessage {
     protected Transcoder transcoder;
     protected boolean noreply;
     protected FutureImpl<Boolean> writeFuture;
+    protected volatile CompletionListener completionListener;
+    private volatile int state;
+    private volatile Thread waiter;
+    private volatile HashedWheelTimer.Timeout timeoutHandle;
     private int copiedMergeCount = mergeCount;
 
     public Command() {
@@ -182,7 +195,10 @@ public abstract class Command implements WriteMessage {
     @Override
     public String toString() {
         try {
-            return new String(ioBuffer.buf().array(), "utf-8");
+            ByteBuffer buf = ioBuffer.buf().duplicate();
+            byte[] bytes = new byte[buf.remaining()];
+            buf.get(bytes);
+            return new String(bytes, "utf-8");
         } catch (UnsupportedEncodingException e) {
         }
         return "[error]";
@@ -193,12 +209,15 @@ public abstract class Command implements WriteMessage {
     }
 
     public final void cancel() {
+        // the buffer may still be written by the reactor,it is released by
+        // the writer when the command is dropped or sent
         cancel = true;
-        if (ioBuffer != null) {
-            ioBuffer.free();
-        }
     }
 
+    /**
+     * @return the latch shared with other commands,null for single-shot
+     * commands which complete through {@link #await(long, TimeUnit)}
+     */
     public final CountDownLatch getLatch() {
         return latch;
     }
@@ -207,13 +226,126 @@ public abstract class Command implements WriteMessage {
         this.latch = latch;
     }
 
+    /**
+     * Mark the command as completed.A command with a latch counts it down
+     * and completes when it reaches zero,a command without latch completes
+     * at once.Completion happens only once,it wakes up the waiter and
+     * notifies the completion listener.
+     */
     public final void countDownLatch() {
         if (latch != null) {
             latch.countDown();
-            if (latch.getCount() == 0) {
-                status = OperationStatus.DONE;
+            if (latch.getCount() > 0) {
+                return;
+            }
+        }
+        if (STATE_UPDATER.compareAndSet(this, PENDING, COMPLETING)) {
+            HashedWheelTimer.Timeout handle = timeoutHandle;
+            if (handle != null) {
+                handle.cancel();
             }
+            status = OperationStatus.DONE;
+            complete();
+        }
+    }
+
+    /**
+     * Fail a command that is still waiting for its response,the response
+     * arriving later is ignored.Commands with a latch can not be expired.The
+     * operation status is left to the reactor,a command still in the write
+     * queue is cancelled and dropped without being written.
+     *
+     * @param e usually a TimeoutException
+     * @return false if the command has completed or has a latch
+     */
+    public final boolean expire(Exception e) {
+        if (latch != null
+                || !STATE_UPDATER.compareAndSet(this, PENDING, COMPLETING)) {
+            return false;
         }
+        exception = e;
+        cancel();
+        complete();
+        return true;
+    }
+
+    private void complete() {
+        state = DONE;
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+        CompletionListener listener = completionListener;
+        if (listener != null) {
+            listener.onComplete(this);
+        }
+    }
+
+    public final boolean isDone() {
+        return state == DONE;
+    }
+
+    /**
+     * Set the handle of the timer task watching this command,it is
+     * cancelled when the command completes.
+     *
+     * @param timeoutHandle
+     */
+    public final void setTimeoutHandle(HashedWheelTimer.Timeout timeoutHandle) {
+        this.timeoutHandle = timeoutHandle;
+    }
+
+    /**
+     * Wait for the command to complete.Without latch it parks the calling
+     * thread instead of allocating a CountDownLatch,only one thread may wait
+     * for a command.
+     *
+     * @param timeout
+     * @param unit
+     * @return false if timed out
+     * @throws InterruptedException
+     */
+    public final boolean await(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (latch != null) {
+            return latch.await(timeout, unit);
+        }
+        if (state == DONE) {
+            return true;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waiter = Thread.currentThread();
+        try {
+            while (state != DONE) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, nanos);
+            }
+            return true;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    public final CompletionListener getCompletionListener() {
+        return completionListener;
+    }
+
+    /**
+     * Set a listener notified when the command completes,that is,when the
+     * response was decoded,the session was closed or the command expired.It
+     * must be set before the command is sent.
+     *
+     * @param completionListener
+     */
+    public final void setCompletionListener(
+            CompletionListener completionListener) {
+        this.completionListener = completionListener;
     }
 
     public final CommandType getCommandType() {
@@ -308,4 +440,11 @@ public abstract class Command implements WriteMessage {
         // do nothing
     }
 
+    /**
+     * Callback for non-blocking callers.It is invoked on the reactor thread
+     * that decoded the response,so it must not block.
+     */
+    public interface CompletionListener {
+        void onComplete(Command command);
+    }
 }
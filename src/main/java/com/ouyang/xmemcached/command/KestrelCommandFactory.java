@@ -13,6 +13,7 @@ import com.ouyang.xmemcached.utils.Protocol;
 
 import java.net.InetSocketAddress;
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -49,7 +50,7 @@ public class KestrelCommandFactory implements CommandFactory {
                                        long cas,
                                        boolean noreply) {
         return new KestrelDeleteCommand(key, keyBytes, -1,
-                new CountDownLatch(1), noreply);
+                null, noreply);
     }
 
     public Command createFlushAllCommand(CountDownLatch latch, int delay,
@@ -60,7 +61,7 @@ public class KestrelCommandFactory implements CommandFactory {
     public Command createGetCommand(String key, byte[] keyBytes,
                                     CommandType cmdType, Transcoder transcoder) {
         return new KestrelGetCommand(key, keyBytes, cmdType,
-                new CountDownLatch(1), transcoder);
+                null, transcoder);
     }
 
     public <T> Command createGetMultiCommand(Collection<String> keys,
@@ -91,7 +92,7 @@ public class KestrelCommandFactory implements CommandFactory {
     public Command createSetCommand(String key, byte[] keyBytes, int exp,
                                     Object value, boolean noreply, Transcoder transcoder) {
         return new KestrelSetCommand(key, keyBytes, CommandType.SET,
-                new CountDownLatch(1), exp, -1, value, noreply, transcoder);
+                null, exp, -1, value, noreply, transcoder);
     }
 
     public Command createStatsCommand(InetSocketAddress server,
@@ -137,6 +138,22 @@ public class KestrelCommandFactory implements CommandFactory {
         throw new UnsupportedOperationException("Kestrel doesn't support SASL");
     }
 
+    public <T> Command createSetMultiCommand(Map<String, T> keyValues,
+                                             int exp, Transcoder<T> transcoder) {
+        throw new UnsupportedOperationException(
+                "Quiet bulk writes are only supported by binary protocol");
+    }
+
+    public Command createDeleteMultiCommand(Collection<String> keys) {
+        throw new UnsupportedOperationException(
+                "Quiet bulk writes are only supported by binary protocol");
+    }
+
+    public Command createTouchMultiCommand(Collection<String> keys, int exp) {
+        throw new UnsupportedOperationException(
+                "Quiet bulk writes are only supported by binary protocol");
+    }
+
     public Command createGetAndTouchCommand(String key, byte[] keyBytes,
                                             CountDownLatch latch, int exp, boolean noreply) {
         throw new UnsupportedOperationException(
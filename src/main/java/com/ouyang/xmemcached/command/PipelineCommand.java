@@ -0,0 +1,84 @@
+package com.ouyang.xmemcached.command;
+
+import com.ouyang.code.yanf4j.buffer.IoBuffer;
+import com.ouyang.xmemcached.impl.MemcachedHandler;
+import com.ouyang.xmemcached.impl.MemcachedTCPSession;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Carries the commands of a pipeline to one session.They are written with a
+ * single buffer and registered as sent commands in order,so each response is
+ * decoded by its own command.The carrier itself is never decoded.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:20
+ */
+public class PipelineCommand extends Command {
+    private final List<Command> commands;
+
+    public PipelineCommand(List<Command> commands) {
+        super(commands.get(0).getKey(), CommandType.PIPELINE, null);
+        this.commands = commands;
+        // must not be merged into a preceding command by the optimizer
+        this.status = OperationStatus.WRITING;
+    }
+
+    public final List<Command> getCommands() {
+        return this.commands;
+    }
+
+    @Override
+    public void encode() {
+        if (this.ioBuffer != null) {
+            return;
+        }
+        int totalLength = 0;
+        for (Command command : this.commands) {
+            if (command.getIoBuffer() == null) {
+                command.encode();
+            }
+            totalLength += command.getIoBuffer().remaining();
+        }
+        IoBuffer mergedBuffer = IoBuffer.allocate(totalLength);
+        for (Command command : this.commands) {
+            IoBuffer buffer = command.getIoBuffer();
+            mergedBuffer.put(buffer.buf().duplicate());
+            command.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+            buffer.free();
+        }
+        mergedBuffer.flip();
+        this.ioBuffer = mergedBuffer;
+    }
+
+    /**
+     * Register all but the last command as sent and hand the merged buffer to
+     * the last one,which is written instead of the carrier.Must be called
+     * by the writing thread.
+     *
+     * @param sentCommands the session's sent commands
+     * @return the last command
+     */
+    public final Command unpack(Queue<Command> sentCommands) {
+        this.encode();
+        final int last = this.commands.size() - 1;
+        for (int i = 0; i < last; i++) {
+            Command command = this.commands.get(i);
+            command.setStatus(OperationStatus.WRITING);
+            sentCommands.add(command);
+        }
+        Command lastCommand = this.commands.get(last);
+        // the optimizer would re-encode it
+        lastCommand.setStatus(OperationStatus.WRITING);
+        lastCommand.setIoBuffer(this.ioBuffer);
+        return lastCommand;
+    }
+
+    @Override
+    public boolean decode(MemcachedTCPSession session, ByteBuffer buffer) {
+        throw new IllegalStateException("Pipeline command is never decoded");
+    }
+
+}
@@ -9,6 +9,7 @@ import com.ouyang.xmemcached.utils.Protocol;
 
 import java.net.InetSocketAddress;
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -32,7 +33,7 @@ public class TextCommandFactory implements CommandFactory {
     public final Command createDeleteCommand(final String key,
                                              final byte[] keyBytes, final int time, long cas, boolean noreply) {
         return new TextDeleteCommand(key, keyBytes, time,
-                new CountDownLatch(1), noreply);
+                null, noreply);
     }
 
     /*
@@ -95,7 +96,7 @@ public class TextCommandFactory implements CommandFactory {
                                           final byte[] keyBytes, final int exp, final Object value, long cas,
                                           boolean noreply, Transcoder transcoder) {
         return new TextCASCommand(key, keyBytes, CommandType.CAS,
-                new CountDownLatch(1), exp, cas, value, noreply, transcoder);
+                null, exp, cas, value, noreply, transcoder);
     }
 
     @SuppressWarnings("unchecked")
@@ -142,8 +143,8 @@ public class TextCommandFactory implements CommandFactory {
     final Command createStoreCommand(String key, byte[] keyBytes, int exp,
                                      Object value, CommandType cmdType, boolean noreply,
                                      Transcoder transcoder) {
-        return new TextStoreCommand(key, keyBytes, cmdType, new CountDownLatch(
-                1), exp, -1, value, noreply, transcoder);
+        return new TextStoreCommand(key, keyBytes, cmdType, null,
+                exp, -1, value, noreply, transcoder);
     }
 
     /*
@@ -157,8 +158,7 @@ public class TextCommandFactory implements CommandFactory {
     public final Command createGetCommand(final String key,
                                           final byte[] keyBytes, final CommandType cmdType,
                                           Transcoder transcoder) {
-        return new TextGetOneCommand(key, keyBytes, cmdType,
-                new CountDownLatch(1));
+        return new TextGetOneCommand(key, keyBytes, cmdType, null);
     }
 
     /*
@@ -195,7 +195,7 @@ public class TextCommandFactory implements CommandFactory {
                                                final byte[] keyBytes, final long amount, long initial,
                                                int exptime, CommandType cmdType, boolean noreply) {
         return new TextIncrDecrCommand(key, keyBytes, cmdType,
-                new CountDownLatch(1), amount, initial, noreply);
+                null, amount, initial, noreply);
     }
 
     public Command createAuthListMechanismsCommand(CountDownLatch latch) {
@@ -215,6 +215,22 @@ public class TextCommandFactory implements CommandFactory {
                 "SASL is only supported by binary protocol");
     }
 
+    public <T> Command createSetMultiCommand(Map<String, T> keyValues,
+                                             int exp, Transcoder<T> transcoder) {
+        throw new UnsupportedOperationException(
+                "Quiet bulk writes are only supported by binary protocol");
+    }
+
+    public Command createDeleteMultiCommand(Collection<String> keys) {
+        throw new UnsupportedOperationException(
+                "Quiet bulk writes are only supported by binary protocol");
+    }
+
+    public Command createTouchMultiCommand(Collection<String> keys, int exp) {
+        throw new UnsupportedOperationException(
+                "Quiet bulk writes are only supported by binary protocol");
+    }
+
     public Command createGetAndTouchCommand(String key, byte[] keyBytes,
                                             CountDownLatch latch, int exp, boolean noreply) {
         throw new UnsupportedOperationException(
@@ -0,0 +1,28 @@
+package com.ouyang.xmemcached.command;
+
+import com.ouyang.xmemcached.transcoders.CachedData;
+
+/**
+ * Bulk-get command which can hand every value to a listener as soon as it is
+ * decoded,instead of collecting all values into its return map.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:00
+ */
+public interface ValueStreamAware {
+
+    /**
+     * Set the listener before the command is sent.With a listener the
+     * decoded values are not kept in the return map.
+     *
+     * @param listener
+     */
+    void setValueListener(ValueListener listener);
+
+    /**
+     * Receives values on the reactor thread,it must not block.
+     */
+    interface ValueListener {
+        void onValue(String key, CachedData value);
+    }
+}
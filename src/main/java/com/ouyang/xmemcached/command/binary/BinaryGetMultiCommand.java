@@ -46,6 +46,7 @@ import com.ouyang.xmemcached.command.Command;
 import com.ouyang.xmemcached.command.CommandType;
 import com.ouyang.xmemcached.command.MapReturnValueAware;
 import com.ouyang.xmemcached.command.MergeCommandsAware;
+import com.ouyang.xmemcached.command.ValueStreamAware;
 import com.ouyang.xmemcached.transcoders.CachedData;
 import com.ouyang.xmemcached.utils.ByteUtils;
 
@@ -63,12 +64,13 @@ import java.util.concurrent.CountDownLatch;
  */
 @SuppressWarnings("unchecked")
 public class BinaryGetMultiCommand extends BaseBinaryCommand implements
-        MergeCommandsAware, MapReturnValueAware {
+        MergeCommandsAware, MapReturnValueAware, ValueStreamAware {
     private boolean finished;
     private String responseKey;
     private long responseCAS;
     private int responseFlag;
     private Map<Object, Command> mergeCommands;
+    private ValueListener valueListener;
 
     public BinaryGetMultiCommand(String key, CommandType cmdType,
                                  CountDownLatch latch) {
@@ -80,6 +82,10 @@ public class BinaryGetMultiCommand extends BaseBinaryCommand implements
         return (Map<String, CachedData>) this.result;
     }
 
+    public void setValueListener(ValueListener valueListener) {
+        this.valueListener = valueListener;
+    }
+
     @Override
     protected boolean readOpCode(ByteBuffer buffer) {
         byte opCode = buffer.get();
@@ -110,8 +116,17 @@ public class BinaryGetMultiCommand extends BaseBinaryCommand implements
 
     @Override
     protected boolean finish() {
-        final CachedData cachedData = ((Map<String, CachedData>) this.result)
-                .get(this.responseKey);
+        final CachedData cachedData;
+        if (this.valueListener != null && this.responseKey != null) {
+            cachedData = ((Map<String, CachedData>) this.result)
+                    .remove(this.responseKey);
+            if (cachedData != null) {
+                this.valueListener.onValue(this.responseKey, cachedData);
+            }
+        } else {
+            cachedData = ((Map<String, CachedData>) this.result)
+                    .get(this.responseKey);
+        }
         Map<Object, Command> mergetCommands = getMergeCommands();
         if (mergetCommands != null) {
             final BinaryGetCommand command = (BinaryGetCommand) mergetCommands
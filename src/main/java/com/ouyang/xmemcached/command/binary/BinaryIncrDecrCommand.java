@@ -46,7 +46,6 @@ import com.ouyang.xmemcached.command.CommandType;
 import com.ouyang.xmemcached.transcoders.CachedData;
 
 import java.nio.ByteBuffer;
-import java.util.concurrent.CountDownLatch;
 
 /**
  * Binary incr/decr command
@@ -59,8 +58,7 @@ public class BinaryIncrDecrCommand extends BaseBinaryCommand {
 
     public BinaryIncrDecrCommand(String key, byte[] keyBytes, long amount,
                                  long initial, int expTime, CommandType cmdType, boolean noreply) {
-        super(key, keyBytes, cmdType, new CountDownLatch(1), 0, 0, null,
-                noreply, null);
+        super(key, keyBytes, cmdType, null, 0, 0, null, noreply, null);
         this.amount = amount;
         this.initial = initial;
         this.expTime = expTime;
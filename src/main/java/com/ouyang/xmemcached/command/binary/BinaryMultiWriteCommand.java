@@ -0,0 +1,86 @@
+package com.ouyang.xmemcached.command.binary;
+
+import com.ouyang.xmemcached.command.CommandType;
+import com.ouyang.xmemcached.exception.UnknownCommandException;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A command for holding quiet setq/deleteq or touch commands terminated by a
+ * noop.Quiet commands only answer on failure,so every key is true unless a
+ * response with its opaque says otherwise,the noop response finishes the
+ * command.
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:15
+ */
+@SuppressWarnings("unchecked")
+public class BinaryMultiWriteCommand extends BaseBinaryCommand {
+    private final Map<Integer/* opaque */, String> opaqueKeys;
+    private boolean finished;
+
+    public BinaryMultiWriteCommand(String key, CommandType cmdType,
+                                   Map<Integer, String> opaqueKeys) {
+        super(key, null, cmdType, null, 0, 0, null, false, null);
+        this.opaqueKeys = opaqueKeys;
+        Map<String, Boolean> result = new HashMap<String, Boolean>(
+                opaqueKeys.size() * 2);
+        for (String opaqueKey : opaqueKeys.values()) {
+            result.put(opaqueKey, Boolean.TRUE);
+        }
+        this.result = result;
+    }
+
+    @Override
+    protected boolean readOpCode(ByteBuffer buffer) {
+        byte opCode = buffer.get();
+        // noop is the last response
+        if (opCode == OpCode.NOOP.fieldValue()) {
+            this.finished = true;
+        }
+        return true;
+    }
+
+    /**
+     * A failure only fails its own key
+     */
+    @Override
+    protected void readStatus(ByteBuffer buffer) {
+        this.responseStatus = ResponseStatus.parseShort(buffer.getShort());
+        switch (this.responseStatus) {
+            case NOT_SUPPORTED:
+            case UNKNOWN_COMMAND:
+                this.setException(new UnknownCommandException());
+                break;
+        }
+    }
+
+    @Override
+    protected boolean readOpaque(ByteBuffer buffer) {
+        int responseOpaque = buffer.getInt();
+        if (!this.finished) {
+            String responseKey = this.opaqueKeys.get(responseOpaque);
+            if (responseKey != null) {
+                ((Map<String, Boolean>) this.result).put(responseKey,
+                        this.responseStatus == ResponseStatus.NO_ERROR);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void encode() {
+        // do nothing
+    }
+
+    @Override
+    protected boolean finish() {
+        if (this.finished) {
+            this.countDownLatch();
+        }
+        return this.finished;
+    }
+
+}
@@ -43,6 +43,7 @@
 package com.ouyang.xmemcached.command.binary;
 
 import com.ouyang.xmemcached.command.CommandType;
+import com.ouyang.xmemcached.transcoders.CachedData;
 
 import java.util.concurrent.CountDownLatch;
 
@@ -59,4 +60,34 @@ public class BinaryNoopCommand extends BaseBinaryCommand {
         this.opCode = OpCode.NOOP;
     }
 
+    @Override
+    protected void fillExtras(CachedData data) {
+        // must not have extras
+    }
+
+    @Override
+    protected void fillKey() {
+        // must not have key
+    }
+
+    @Override
+    protected void fillValue(CachedData data) {
+        // must not have value
+    }
+
+    @Override
+    protected byte getExtrasLength() {
+        return 0;
+    }
+
+    @Override
+    protected int getKeyLength() {
+        return 0;
+    }
+
+    @Override
+    protected int getValueLength(CachedData data) {
+        return 0;
+    }
+
 }
@@ -63,7 +63,8 @@ import java.util.concurrent.CountDownLatch;
  *
  */
 public abstract class TextGetCommand extends Command implements
-        MergeCommandsAware, AssocCommandAware, MapReturnValueAware {
+        MergeCommandsAware, AssocCommandAware, MapReturnValueAware,
+        ValueStreamAware {
     protected Map<String, CachedData> returnValues;
     /**
      *When MemcachedClient merge get commands,those commans which have the same
@@ -73,6 +74,7 @@ public abstract class TextGetCommand extends Command implements
     protected List<Command> assocCommands;
     protected Map<Object, Command> mergeCommands;
     protected boolean wasFirst = true;
+    protected ValueListener valueListener;
     private String currentReturnKey;
     private int offset;
     private ParseStatus parseStatus = ParseStatus.NULL;
@@ -257,6 +259,10 @@ public abstract class TextGetCommand extends Command implements
 
                         }
                     }
+                    if (this.valueListener != null) {
+                        this.returnValues.remove(this.currentReturnKey);
+                        this.valueListener.onValue(this.currentReturnKey, value);
+                    }
                     this.currentReturnKey = null;
                     this.parseStatus = ParseStatus.NULL;
                     continue;
@@ -317,6 +323,10 @@ public abstract class TextGetCommand extends Command implements
         this.returnValues = returnValues;
     }
 
+    public final void setValueListener(ValueListener valueListener) {
+        this.valueListener = valueListener;
+    }
+
     public abstract void dispatch();
 
     @Override
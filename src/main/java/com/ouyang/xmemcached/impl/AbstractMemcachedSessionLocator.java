@@ -1,6 +1,11 @@
 package com.ouyang.xmemcached.impl;
 
+import com.ouyang.code.yanf4j.core.Session;
 import com.ouyang.xmemcached.MemcachedSessionLocator;
+import com.ouyang.xmemcached.networking.MemcachedSession;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Abstract session locator
@@ -18,4 +23,46 @@ public abstract class AbstractMemcachedSessionLocator implements
 
     }
 
+    /**
+     * Select one of a node's pooled sessions by power of two choices:pick two
+     * sessions at random and use the one with fewer pending commands.It
+     * avoids piling commands on a connection stalled by a large value while
+     * keeping the selection O(1).
+     *
+     * @param sessions sessions connected to the same node
+     * @return the less loaded session,or null if there is none
+     */
+    protected static Session selectSession(List<Session> sessions) {
+        if (sessions == null || sessions.isEmpty()) {
+            return null;
+        }
+        int size = sessions.size();
+        if (size == 1) {
+            return sessions.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if (j >= i) {
+            j++;
+        }
+        Session first = sessions.get(i);
+        Session second = sessions.get(j);
+        if (first.isClosed()) {
+            return second;
+        }
+        if (second.isClosed()) {
+            return first;
+        }
+        return getPendingCount(second) < getPendingCount(first) ? second
+                : first;
+    }
+
+    private static int getPendingCount(Session session) {
+        if (session instanceof MemcachedSession) {
+            return ((MemcachedSession) session).getPendingCount();
+        }
+        return 0;
+    }
+
 }
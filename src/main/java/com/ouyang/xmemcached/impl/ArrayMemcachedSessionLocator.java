@@ -25,7 +25,6 @@ import java.util.*;
 public class ArrayMemcachedSessionLocator extends
         AbstractMemcachedSessionLocator {
 
-    final Random rand = new Random();
     private HashAlgorithm hashAlgorighm;
     private transient volatile List<List<Session>> sessions;
 
@@ -58,7 +57,7 @@ public class ArrayMemcachedSessionLocator extends
         }
         long start = this.getHash(size, key);
         List<Session> sessions = sessionList.get((int) start);
-        Session session = getRandomSession(sessions);
+        Session session = selectSession(sessions);
 
         // If it is not failure mode,get next available session
         if (!this.failureMode && (session == null || session.isClosed())) {
@@ -66,18 +65,12 @@ public class ArrayMemcachedSessionLocator extends
             while ((session == null || session.isClosed()) && next != start) {
                 sessions = sessionList.get((int) next);
                 next = this.getNext(size, next);
-                session = getRandomSession(sessions);
+                session = selectSession(sessions);
             }
         }
         return session;
     }
 
-    private Session getRandomSession(List<Session> sessions) {
-        if (sessions == null || sessions.isEmpty())
-            return null;
-        return sessions.get(rand.nextInt(sessions.size()));
-    }
-
     public final long getNext(int size, long start) {
         if (start == size - 1) {
             return 0;
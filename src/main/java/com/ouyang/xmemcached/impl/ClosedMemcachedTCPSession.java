@@ -210,6 +210,10 @@ public class ClosedMemcachedTCPSession implements MemcachedSession {
 
     }
 
+    public int getPendingCount() {
+        return 0;
+    }
+
     public void start() {
 
     }
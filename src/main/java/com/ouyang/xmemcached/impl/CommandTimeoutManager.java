@@ -0,0 +1,172 @@
+package com.ouyang.xmemcached.impl;
+
+import com.ouyang.code.yanf4j.core.Session;
+import com.ouyang.code.yanf4j.util.HashedWheelTimer;
+import com.ouyang.xmemcached.command.Command;
+import com.ouyang.xmemcached.command.OperationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces the deadline of every command sent by a client on a single hashed
+ * wheel timer instead of in the waiting threads.
+ * <p>
+ * A command still waiting for its response at its deadline is failed with a
+ * TimeoutException,which wakes up the blocked caller or fails the async
+ * future.The command stays in the session's sent queue because its response
+ * still has to be consumed in order,but is ignored when it arrives.A noreply
+ * command times out if it is still in the write queue at its deadline.Every
+ * timeout increases the session's continuous timeout counter,the session is
+ * closed when it exceeds the threshold;every response in time resets it.
+ *
+ * @author ouyang
+ * @since 2026-10-18 09:50
+ */
+public class CommandTimeoutManager {
+
+    private static final Logger log = LoggerFactory
+            .getLogger(CommandTimeoutManager.class);
+
+    private static final String CONTINUOUS_TIMEOUT_COUNTER = "ContinuousTimeouts";
+
+    private final HashedWheelTimer timer;
+
+    private volatile int timeoutExceptionThreshold;
+
+    /**
+     * @param timeoutExceptionThreshold continuous timeouts before closing a
+     *                                  session
+     */
+    public CommandTimeoutManager(int timeoutExceptionThreshold) {
+        this.timer = new HashedWheelTimer("Xmemcached-timeout", 10, 512);
+        this.timeoutExceptionThreshold = timeoutExceptionThreshold;
+    }
+
+    /**
+     * Watch a sent command until it completes or its deadline passes
+     *
+     * @param command
+     * @param session the session the command was sent to
+     * @param timeout in milliseconds
+     */
+    public void watch(final Command command, final Session session,
+                      final long timeout) {
+        if (command.getLatch() != null || this.timer.isStopped()) {
+            // commands sharing a latch are timed out by their waiters
+            return;
+        }
+        try {
+            command.setTimeoutHandle(this.timer.newTimeout(new Runnable() {
+                public void run() {
+                    if (command.isNoreply()) {
+                        CommandTimeoutManager.this.checkWritten(command,
+                                session, timeout);
+                    } else {
+                        CommandTimeoutManager.this.expire(command, session,
+                                timeout);
+                    }
+                }
+            }, timeout, TimeUnit.MILLISECONDS));
+        } catch (IllegalStateException e) {
+            // timer stopped by shutdown
+        }
+    }
+
+    /**
+     * Fail a command with a TimeoutException and count the timeout
+     *
+     * @param command
+     * @param session
+     * @param timeout
+     * @return the exception,or null if the command completed in the meantime
+     */
+    public TimeoutException expire(Command command, Session session,
+                                   long timeout) {
+        TimeoutException e = new TimeoutException("Timed out(" + timeout
+                + " milliseconds) waiting for operation while connected to "
+                + session);
+        if (command.getLatch() != null) {
+            command.cancel();
+        } else if (!command.expire(e)) {
+            return null;
+        }
+        this.onTimeout(session);
+        return e;
+    }
+
+    private void checkWritten(Command command, Session session, long timeout) {
+        // merged commands stay WRITING,only count commands never dequeued
+        if (command.getStatus() == OperationStatus.SENDING) {
+            log.warn("Noreply command " + command.getCommandType()
+                    + " was not written in " + timeout + " milliseconds to "
+                    + session);
+            this.onTimeout(session);
+        }
+    }
+
+    /**
+     * Run a short,non-blocking task on the timer thread after a delay,the
+     * delay is rounded up to the timer tick
+     *
+     * @param task
+     * @param delay in milliseconds
+     * @throws IllegalStateException if the timer has been stopped
+     */
+    public void schedule(Runnable task, long delay) {
+        this.timer.newTimeout(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reset the session's continuous timeout counter
+     *
+     * @param session
+     */
+    public void resetContinuousTimeouts(Session session) {
+        AtomicInteger counter = this.getContinuousTimeoutCounter(session);
+        // reset counter.
+        if (counter.get() > 0) {
+            counter.set(0);
+        }
+    }
+
+    private void onTimeout(Session session) {
+        AtomicInteger counter = this.getContinuousTimeoutCounter(session);
+        if (counter.incrementAndGet() > this.timeoutExceptionThreshold) {
+            log.warn(session
+                    + " exceeded continuous timeout threshold,we will close it.");
+            try {
+                // reset counter.
+                counter.set(0);
+                session.close();
+            } catch (Exception e) {
+                // ignore it.
+            }
+        }
+    }
+
+    private AtomicInteger getContinuousTimeoutCounter(final Session session) {
+        AtomicInteger counter = (AtomicInteger) session
+                .getAttribute(CONTINUOUS_TIMEOUT_COUNTER);
+        if (counter == null) {
+            counter = new AtomicInteger(0);
+            AtomicInteger oldCounter = (AtomicInteger) session
+                    .setAttributeIfAbsent(CONTINUOUS_TIMEOUT_COUNTER, counter);
+            if (oldCounter != null) {
+                counter = oldCounter;
+            }
+        }
+        return counter;
+    }
+
+    public void setTimeoutExceptionThreshold(int timeoutExceptionThreshold) {
+        this.timeoutExceptionThreshold = timeoutExceptionThreshold;
+    }
+
+    public void stop() {
+        this.timer.stop();
+    }
+}
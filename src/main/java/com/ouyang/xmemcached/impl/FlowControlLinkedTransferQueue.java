@@ -1,7 +1,7 @@
 package com.ouyang.xmemcached.impl;
 
 import com.ouyang.code.yanf4j.core.WriteMessage;
-import com.ouyang.code.yanf4j.util.LinkedTransferQueue;
+import com.ouyang.code.yanf4j.util.CountingLinkedTransferQueue;
 import com.ouyang.xmemcached.FlowControl;
 import com.ouyang.xmemcached.command.Command;
 
@@ -10,7 +10,7 @@ import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 
 public class FlowControlLinkedTransferQueue extends
-        LinkedTransferQueue<WriteMessage> {
+        CountingLinkedTransferQueue<WriteMessage> {
     private FlowControl flowControl;
 
     public FlowControlLinkedTransferQueue(FlowControl flowControl) {
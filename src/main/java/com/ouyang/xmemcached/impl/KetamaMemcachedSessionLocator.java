@@ -50,7 +50,6 @@ public class KetamaMemcachedSessionLocator extends
      */
     static final int DEFAULT_PORT = 11211;
     private final HashAlgorithm hashAlg;
-    private final Random random = new Random();
     private final boolean cwNginxUpstreamConsistent;
     private transient volatile TreeMap<Long, List<Session>> ketamaSessions = new TreeMap<Long, List<Session>>();
     private volatile int maxTries;
@@ -184,12 +183,7 @@ public class KetamaMemcachedSessionLocator extends
         // resultHash = sessionMap.firstKey();
         // }
         // }
-        List<Session> sessionList = sessionMap.get(resultHash);
-        if (sessionList == null || sessionList.size() == 0) {
-            return null;
-        }
-        int size = sessionList.size();
-        return sessionList.get(this.random.nextInt(size));
+        return selectSession(sessionMap.get(resultHash));
     }
 
     public final long nextHash(long hashVal, String key, int tries) {
@@ -26,7 +26,6 @@ public class LibmemcachedMemcachedSessionLocator extends
         AbstractMemcachedSessionLocator {
 
     static final int DEFAULT_NUM_REPS = 100;
-    private final Random random = new Random();
     private transient volatile TreeMap<Long, List<Session>> ketamaSessions = new TreeMap<Long, List<Session>>();
     private volatile int maxTries;
     private int numReps = DEFAULT_NUM_REPS;
@@ -110,12 +109,7 @@ public class LibmemcachedMemcachedSessionLocator extends
         // resultHash = sessionMap.firstKey();
         // }
         // }
-        List<Session> sessionList = sessionMap.get(resultHash);
-        if (sessionList == null || sessionList.size() == 0) {
-            return null;
-        }
-        int size = sessionList.size();
-        return sessionList.get(this.random.nextInt(size));
+        return selectSession(sessionMap.get(resultHash));
     }
 
     public final long nextHash(long hashVal, String key, int tries) {
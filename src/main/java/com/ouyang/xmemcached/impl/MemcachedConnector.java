@@ -82,7 +82,8 @@ public class MemcachedConnector extends SocketChannelController implements
         this.soLingerOn = true;
         this.commandFactory = commandFactory;
         this.flowControl = new FlowControl(maxQueuedNoReplyOperations);
-        this.setSelectorPoolSize(DEFAULT_SELECTOR_POOL_SIZE);
+        this.setSelectorPoolSize(configuration.getSelectorPoolSize() > 0 ? configuration
+                .getSelectorPoolSize() : DEFAULT_SELECTOR_POOL_SIZE);
         // setDispatchMessageThreadPoolSize(Runtime.getRuntime().
         // availableProcessors());
     }
@@ -401,6 +402,19 @@ public class MemcachedConnector extends SocketChannelController implements
     }
 
     public Session send(final Command msg) throws MemcachedException {
+        Session session = this.findSession(msg);
+        session.write(msg);
+        return session;
+    }
+
+    /**
+     * Find the session a command would be sent to
+     *
+     * @param msg
+     * @return an open session
+     * @throws MemcachedException if there is no open session for the key
+     */
+    public Session findSession(final Command msg) throws MemcachedException {
         MemcachedSession session = (MemcachedSession) this.findSessionByKey(msg
                 .getKey());
         if (session == null) {
@@ -422,7 +436,6 @@ public class MemcachedConnector extends SocketChannelController implements
             throw new MemcachedException("Auth failed to connection "
                     + session.getRemoteSocketAddress());
         }
-        session.write(msg);
         return session;
     }
 
@@ -110,13 +110,15 @@ public class MemcachedHandler extends HandlerAdapter {
     @Override
     public final void onMessageSent(Session session, Object msg) {
         Command command = (Command) msg;
+        // registered as sent by MemcachedTCPSession.preprocessWriteMessage
         command.setStatus(OperationStatus.SENT);
-        if (!command.isNoreply()
-                || this.client.getProtocol() == Protocol.Binary) {
-            ((MemcachedTCPSession) session).addCommand(command);
-        }
         // After message sent,we can set the buffer to be null for gc friendly.
+        IoBuffer buffer = command.getIoBuffer();
         command.setIoBuffer(EMPTY_BUF);
+        if (buffer != null) {
+            // return a pooled buffer,later frees see EMPTY_BUF
+            buffer.free();
+        }
         switch (command.getCommandType()) {
             case SET:
             case SET_MANY:
@@ -11,10 +11,12 @@
  */
 package com.ouyang.xmemcached.impl;
 
+import com.ouyang.code.yanf4j.buffer.IoBuffer;
 import com.ouyang.code.yanf4j.core.WriteMessage;
 import com.ouyang.code.yanf4j.core.impl.FutureImpl;
 import com.ouyang.code.yanf4j.nio.NioSessionConfig;
 import com.ouyang.code.yanf4j.nio.impl.NioTCPSession;
+import com.ouyang.code.yanf4j.util.CountingLinkedTransferQueue;
 import com.ouyang.code.yanf4j.util.LinkedTransferQueue;
 import com.ouyang.code.yanf4j.util.SystemUtils;
 import com.ouyang.xmemcached.CommandFactory;
@@ -22,16 +24,16 @@ import com.ouyang.xmemcached.MemcachedOptimizer;
 import com.ouyang.xmemcached.buffer.BufferAllocator;
 import com.ouyang.xmemcached.command.Command;
 import com.ouyang.xmemcached.command.OperationStatus;
+import com.ouyang.xmemcached.command.PipelineCommand;
 import com.ouyang.xmemcached.exception.MemcachedException;
 import com.ouyang.xmemcached.networking.MemcachedSession;
 import com.ouyang.xmemcached.utils.InetSocketAddressWrapper;
+import com.ouyang.xmemcached.utils.Protocol;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -49,7 +51,7 @@ public class MemcachedTCPSession extends NioTCPSession implements
     /**
      * Command which are already sent
      */
-    protected BlockingQueue<Command> commandAlreadySent;
+    protected CountingLinkedTransferQueue<Command> commandAlreadySent;
     private SocketAddress remoteSocketAddress; // prevent channel is closed
     private int sendBufferSize;
     private volatile boolean allowReconnect;
@@ -73,7 +75,7 @@ public class MemcachedTCPSession extends NioTCPSession implements
                 this.sendBufferSize = 8 * 1024;
             }
         }
-        this.commandAlreadySent = (BlockingQueue<Command>) SystemUtils.createTransferQueue();
+        this.commandAlreadySent = new CountingLinkedTransferQueue<Command>();
         this.commandFactory = commandFactory;
     }
 
@@ -105,18 +107,12 @@ public class MemcachedTCPSession extends NioTCPSession implements
         if (command != null) {
             command.setException(new MemcachedException(
                     "Session has been closed"));
-            CountDownLatch latch = command.getLatch();
-            if (latch != null) {
-                latch.countDown();
-            }
+            command.countDownLatch();
         }
         while ((command = this.commandAlreadySent.poll()) != null) {
             command.setException(new MemcachedException(
                     "Session has been closed"));
-            CountDownLatch latch = command.getLatch();
-            if (latch != null) {
-                latch.countDown();
-            }
+            command.countDownLatch();
         }
 
     }
@@ -133,6 +129,23 @@ public class MemcachedTCPSession extends NioTCPSession implements
     @Override
     protected WriteMessage preprocessWriteMessage(WriteMessage writeMessage) {
         Command currentCommand = (Command) writeMessage;
+        if (currentCommand instanceof PipelineCommand) {
+            // pipelined commands are written as they are,without optimizing
+            currentCommand = ((PipelineCommand) currentCommand)
+                    .unpack(this.commandAlreadySent);
+        } else if (currentCommand.getStatus() == OperationStatus.WRITING) {
+            // partially written or gathered,already registered
+            return currentCommand;
+        } else if (currentCommand.isCancel()) {
+            // timed out before it was dequeued,complete it without writing
+            // and without waiting for a response
+            IoBuffer buffer = currentCommand.getIoBuffer();
+            if (buffer != null && buffer != MemcachedHandler.EMPTY_BUF) {
+                currentCommand.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+                buffer.free();
+            }
+            return currentCommand;
+        }
         // Check if IoBuffer is null
         if (currentCommand.getIoBuffer() == null) {
             currentCommand.encode();
@@ -146,6 +159,12 @@ public class MemcachedTCPSession extends NioTCPSession implements
                     this.sendBufferSize);
         }
         currentCommand.setStatus(OperationStatus.WRITING);
+        // register the command in write order,a gathering write may take the
+        // following commands before this one is flushed
+        if (!currentCommand.isNoreply()
+                || this.commandFactory.getProtocol() == Protocol.Binary) {
+            this.addCommand(currentCommand);
+        }
         return currentCommand;
     }
 
@@ -203,6 +222,14 @@ public class MemcachedTCPSession extends NioTCPSession implements
         this.allowReconnect = reconnected;
     }
 
+    public int getPendingCount() {
+        int count = this.commandAlreadySent.count();
+        if (this.writeQueue instanceof CountingLinkedTransferQueue) {
+            count += ((CountingLinkedTransferQueue<?>) this.writeQueue).count();
+        }
+        return count;
+    }
+
     public void addCommand(Command command) {
         this.commandAlreadySent.add(command);
     }
@@ -63,7 +63,6 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
 
 /**
  * Memcached command optimizer,merge single-get comands to multi-get
@@ -247,6 +246,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
             }
             if (nextCmd.isCancel()) {
                 writeQueue.remove();
+                freeBuffer(nextCmd);
                 continue;
             }
             nextCmd.setStatus(OperationStatus.WRITING);
@@ -272,18 +272,17 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
 
         }
         if (commands.size() > 1) {
-            byte[] buf = new byte[totalBytes];
-            int offset = 0;
+            IoBuffer mergedBuffer = IoBuffer.allocate(totalBytes);
             for (Command command : commands) {
-                byte[] ba = command.getIoBuffer().array();
-                System.arraycopy(ba, 0, buf, offset, ba.length);
-                offset += ba.length;
+                mergedBuffer.put(command.getIoBuffer().buf().duplicate());
+                freeBuffer(command);
                 if (command != lastCommand
                         && (!command.isNoreply() || command instanceof BaseBinaryCommand)) {
                     executingCmds.add(command);
                 }
             }
-            lastCommand.setIoBuffer(IoBuffer.wrap(buf));
+            mergedBuffer.flip();
+            lastCommand.setIoBuffer(mergedBuffer);
         }
         return lastCommand;
     }
@@ -311,6 +310,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
             }
             if (nextCmd.isCancel()) {
                 writeQueue.remove();
+                freeBuffer(nextCmd);
                 continue;
             }
             if (nextCmd.getCommandType() == expectedCommandType) {
@@ -324,6 +324,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
                 }
                 nextCmd.setStatus(OperationStatus.WRITING);
                 Command removedCommand = (Command) writeQueue.remove();
+                freeBuffer(removedCommand);
                 // If the key is exists,add the command to associated list.
                 if (mergeCommands.containsKey(removedCommand.getKey())) {
                     final AssocCommandAware mergedGetCommand = (AssocCommandAware) mergeCommands
@@ -346,6 +347,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
             return currentCmd;
         } else {
             commandCollector.finish();
+            freeBuffer(currentCmd);
             if (log.isDebugEnabled()) {
                 log.debug("Merge optimieze:merge " + mergeCount
                         + " get commands");
@@ -370,6 +372,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
             }
             if (nextCmd.isCancel()) {
                 writeQueue.remove();
+                freeBuffer(nextCmd);
                 continue;
             }
             if (nextCmd.getCommandType() == expectedCommandType
@@ -436,6 +439,31 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
         }
     }
 
+    /**
+     * Release the buffer of a command which is merged into another one or
+     * dropped,it is never written
+     */
+    private static void freeBuffer(Command command) {
+        IoBuffer buffer = command.getIoBuffer();
+        if (buffer != null) {
+            command.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+            buffer.free();
+        }
+    }
+
+    /**
+     * Copy the buffers into one buffer and release them
+     */
+    private static IoBuffer mergeBuffers(List<IoBuffer> buffers, int totalBytes) {
+        IoBuffer mergedBuffer = IoBuffer.allocate(totalBytes);
+        for (IoBuffer buffer : buffers) {
+            mergedBuffer.put(buffer.buf());
+            buffer.free();
+        }
+        mergedBuffer.flip();
+        return mergedBuffer;
+    }
+
     interface CommandCollector {
         Object getResult();
 
@@ -519,16 +547,10 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
         }
 
         public Object getResult() {
-            byte[] buf = new byte[this.totalBytes];
-            int offset = 0;
-            for (IoBuffer buffer : this.bufferList) {
-                byte[] ba = buffer.array();
-                System.arraycopy(ba, 0, buf, offset, ba.length);
-                offset += ba.length;
-            }
             BinarySetMultiCommand resultCommand = new BinarySetMultiCommand(
-                    null, CommandType.SET_MANY, new CountDownLatch(1));
-            resultCommand.setIoBuffer(IoBuffer.wrap(buf));
+                    null, CommandType.SET_MANY, null);
+            resultCommand.setIoBuffer(mergeBuffers(this.bufferList,
+                    this.totalBytes));
             resultCommand.setMergeCommands(this.mergeCommands);
             resultCommand.setMergeCount(this.mergeCommands.size());
             return resultCommand;
@@ -558,7 +580,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
                 setqCmd.setIoBuffer(MemcachedHandler.EMPTY_BUF);
                 setqCmd.setValue(null);
                 this.prevCommand.setValue(null);
-                this.prevCommand.setIoBuffer(MemcachedHandler.EMPTY_BUF);
+                freeBuffer(this.prevCommand);
                 if (this.mergeCommands == null) {
                     this.mergeCommands = new HashMap<Object, Command>();
                 }
@@ -586,6 +608,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
             setqCmd.encode();
             this.bufferList.add(setqCmd.getIoBuffer());
             this.totalBytes += setqCmd.getIoBuffer().remaining();
+            freeBuffer(this.prevCommand);
             if (this.mergeCommands != null) {
                 this.mergeCommands.put(opaque, this.prevCommand);
             }
@@ -606,16 +629,10 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
         }
 
         public Object getResult() {
-            byte[] buf = new byte[this.totalBytes];
-            int offset = 0;
-            for (IoBuffer buffer : this.bufferList) {
-                byte[] ba = buffer.array();
-                System.arraycopy(ba, 0, buf, offset, ba.length);
-                offset += ba.length;
-            }
             BinaryGetMultiCommand resultCommand = new BinaryGetMultiCommand(
-                    null, CommandType.GET_MANY, new CountDownLatch(1));
-            resultCommand.setIoBuffer(IoBuffer.wrap(buf));
+                    null, CommandType.GET_MANY, null);
+            resultCommand.setIoBuffer(mergeBuffers(this.bufferList,
+                    this.totalBytes));
             return resultCommand;
         }
 
@@ -638,7 +655,7 @@ public class Optimizer implements OptimizerMBean, MemcachedOptimizer {
             // getq commands sending response back
             Command lastGetKCommand = new BinaryGetCommand(
                     this.prevCommand.getKey(), this.prevCommand.getKeyBytes(),
-                    CommandType.GET_ONE, new CountDownLatch(1), OpCode.GET_KEY,
+                    CommandType.GET_ONE, null, OpCode.GET_KEY,
                     false);
             lastGetKCommand.encode();
             this.bufferList.add(lastGetKCommand.getIoBuffer());
@@ -75,4 +75,12 @@ public interface MemcachedSession extends Session {
     boolean isAuthFailed();
 
     void setAuthFailed(boolean authFailed);
+
+    /**
+     * Number of commands waiting to be written plus commands waiting for
+     * their responses,in constant time.
+     *
+     * @return the approximate count of outstanding commands
+     */
+    int getPendingCount();
 }
@@ -14,6 +14,11 @@ public final class CachedData {
      * Maximum data size allowed by memcached.
      */
     public static int MAX_SIZE = 1024 * 1024;
+    /**
+     * Flag of {@link Tombstone},the value has no body.Unknown to earlier
+     * versions,which read it as an empty string.
+     */
+    public static final int TOMBSTONE = 8;
     //cache decoded object.
     public volatile Object decodedObject;
     //padding fields
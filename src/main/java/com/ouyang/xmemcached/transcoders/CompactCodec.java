@@ -0,0 +1,695 @@
+package com.ouyang.xmemcached.transcoders;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A compact, schema-less binary object codec used by {@link CompactTranscoder}.
+ * <p>
+ * Every value is written as a one byte tag followed by its payload, integers
+ * are zigzag varints. Classes are written by name the first time they appear
+ * in an entry and by index afterwards; registered classes are always written
+ * by index, so every node must register the same classes in the same order.
+ * Plain objects are written field by field, their field names are written
+ * once per entry, so adding or removing fields does not break old entries.
+ * <p>
+ * Object graphs this codec can't represent faithfully (cycles, JDK types other
+ * than the common value/collection types, classes without a no-arg
+ * constructor...) are rejected with {@link UnsupportedTypeException}, and the
+ * caller falls back to java serialization.
+ *
+ * @author ouyang
+ * @since 2026-10-18 09:10
+ */
+public class CompactCodec {
+
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte SHORT = 5;
+    static final byte BYTE = 6;
+    static final byte CHAR = 7;
+    static final byte FLOAT = 8;
+    static final byte DOUBLE = 9;
+    static final byte STRING = 10;
+    static final byte DATE = 11;
+    static final byte BIG_DECIMAL = 12;
+    static final byte BIG_INTEGER = 13;
+    static final byte ENUM = 14;
+    static final byte BYTES = 15;
+    static final byte ARRAY = 16;
+    static final byte COLLECTION = 17;
+    static final byte MAP = 18;
+    static final byte OBJECT = 19;
+
+    private static final int MAX_DEPTH = 64;
+    private static final int MAX_CACHED_BUFFER = 64 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> c : new Class<?>[]{int.class, long.class, short.class,
+                byte.class, char.class, float.class, double.class,
+                boolean.class}) {
+            PRIMITIVES.put(c.getName(), c);
+        }
+    }
+
+    private final List<Class<?>> registered = new CopyOnWriteArrayList<Class<?>>();
+    private final ConcurrentHashMap<Class<?>, ClassInfo> classInfos = new ConcurrentHashMap<Class<?>, ClassInfo>();
+    private final ThreadLocal<Writer> writers = new ThreadLocal<Writer>() {
+        @Override
+        protected Writer initialValue() {
+            return new Writer();
+        }
+    };
+
+    /**
+     * Register a class,it will be written as a small index instead of its
+     * name.All nodes must register the same classes in the same order.
+     *
+     * @param clazz
+     */
+    public synchronized void register(Class<?> clazz) {
+        if (!this.registered.contains(clazz)) {
+            this.registered.add(clazz);
+        }
+    }
+
+    public List<Class<?>> getRegisteredClasses() {
+        return Collections.unmodifiableList(this.registered);
+    }
+
+    /**
+     * Encode an object graph
+     *
+     * @param o
+     * @return encoded bytes
+     * @throws UnsupportedTypeException if the graph can't be encoded by this codec
+     */
+    public byte[] encode(Object o) {
+        Writer writer = this.writers.get();
+        if (writer.inUse) {
+            writer = new Writer();
+        }
+        writer.reset(this.registered);
+        writer.inUse = true;
+        try {
+            this.write(writer, o, 0);
+            return writer.toByteArray();
+        } finally {
+            writer.inUse = false;
+            if (writer.buf.length > MAX_CACHED_BUFFER) {
+                // don't keep huge buffers per thread
+                this.writers.remove();
+            }
+        }
+    }
+
+    /**
+     * Decode bytes produced by {@link #encode(Object)}
+     *
+     * @param data
+     * @return decoded object
+     */
+    public Object decode(byte[] data) {
+        Reader reader = new Reader(data, this.registered);
+        try {
+            return this.read(reader);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Decode compact data failed", e);
+        }
+    }
+
+    private void write(Writer w, Object o, int depth) {
+        if (o == null) {
+            w.writeByte(NULL);
+            return;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new UnsupportedTypeException("Object graph is too deep");
+        }
+        Class<?> c = o.getClass();
+        if (c == String.class) {
+            w.writeByte(STRING);
+            w.writeString((String) o);
+        } else if (c == Integer.class) {
+            w.writeByte(INT);
+            w.writeVarInt(zigzag((Integer) o));
+        } else if (c == Long.class) {
+            w.writeByte(LONG);
+            w.writeVarLong(zigzag((Long) o));
+        } else if (c == Boolean.class) {
+            w.writeByte((Boolean) o ? TRUE : FALSE);
+        } else if (c == Short.class) {
+            w.writeByte(SHORT);
+            w.writeVarInt(zigzag((Short) o));
+        } else if (c == Byte.class) {
+            w.writeByte(BYTE);
+            w.writeByte((Byte) o);
+        } else if (c == Character.class) {
+            w.writeByte(CHAR);
+            w.writeVarInt((Character) o);
+        } else if (c == Float.class) {
+            w.writeByte(FLOAT);
+            w.writeInt(Float.floatToRawIntBits((Float) o));
+        } else if (c == Double.class) {
+            w.writeByte(DOUBLE);
+            w.writeLong(Double.doubleToRawLongBits((Double) o));
+        } else if (c == Date.class) {
+            w.writeByte(DATE);
+            w.writeVarLong(zigzag(((Date) o).getTime()));
+        } else if (c == BigDecimal.class) {
+            w.writeByte(BIG_DECIMAL);
+            w.writeString(o.toString());
+        } else if (c == BigInteger.class) {
+            w.writeByte(BIG_INTEGER);
+            w.writeString(o.toString());
+        } else if (o instanceof Enum) {
+            w.writeByte(ENUM);
+            this.writeClass(w, ((Enum<?>) o).getDeclaringClass());
+            w.writeString(((Enum<?>) o).name());
+        } else if (c == byte[].class) {
+            byte[] bytes = (byte[]) o;
+            w.writeByte(BYTES);
+            w.writeVarInt(bytes.length);
+            w.writeBytes(bytes, 0, bytes.length);
+        } else if (c.isArray()) {
+            w.enter(o);
+            int len = Array.getLength(o);
+            w.writeByte(ARRAY);
+            this.writeClass(w, c.getComponentType());
+            w.writeVarInt(len);
+            for (int i = 0; i < len; i++) {
+                this.write(w, Array.get(o, i), depth + 1);
+            }
+            w.exit(o);
+        } else if (o instanceof Collection && isJdkType(c)) {
+            if (o instanceof EnumSet
+                    || (o instanceof SortedSet && ((SortedSet<?>) o)
+                    .comparator() != null)) {
+                throw new UnsupportedTypeException(c.getName());
+            }
+            w.enter(o);
+            Collection<?> collection = (Collection<?>) o;
+            w.writeByte(COLLECTION);
+            this.writeClass(w, c);
+            w.writeVarInt(collection.size());
+            for (Object e : collection) {
+                this.write(w, e, depth + 1);
+            }
+            w.exit(o);
+        } else if (o instanceof Map && isJdkType(c)) {
+            if (o instanceof EnumMap
+                    || (o instanceof SortedMap && ((SortedMap<?, ?>) o)
+                    .comparator() != null)) {
+                throw new UnsupportedTypeException(c.getName());
+            }
+            w.enter(o);
+            Map<?, ?> map = (Map<?, ?>) o;
+            w.writeByte(MAP);
+            this.writeClass(w, c);
+            w.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                this.write(w, entry.getKey(), depth + 1);
+                this.write(w, entry.getValue(), depth + 1);
+            }
+            w.exit(o);
+        } else if (isJdkType(c)) {
+            throw new UnsupportedTypeException(c.getName());
+        } else {
+            ClassInfo info = this.getClassInfo(c);
+            if (info.constructor == null) {
+                throw new UnsupportedTypeException(c.getName()
+                        + " has no no-arg constructor");
+            }
+            w.enter(o);
+            w.writeByte(OBJECT);
+            this.writeClass(w, c);
+            if (w.described.add(c)) {
+                w.writeVarInt(info.fields.length);
+                for (Field field : info.fields) {
+                    w.writeString(field.getName());
+                }
+            }
+            try {
+                for (Field field : info.fields) {
+                    this.write(w, field.get(o), depth + 1);
+                }
+            } catch (IllegalAccessException e) {
+                throw new UnsupportedTypeException(c.getName());
+            }
+            w.exit(o);
+        }
+    }
+
+    private void writeClass(Writer w, Class<?> c) {
+        Integer index = w.classIds.get(c);
+        if (index != null) {
+            w.writeVarInt(index + 1);
+        } else {
+            w.writeVarInt(0);
+            w.writeString(c.getName());
+            w.classIds.put(c, w.classIds.size());
+        }
+    }
+
+    private Object read(Reader r) throws Exception {
+        byte tag = r.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return unzigzag(r.readVarInt());
+            case LONG:
+                return unzigzag(r.readVarLong());
+            case SHORT:
+                return (short) unzigzag(r.readVarInt());
+            case BYTE:
+                return r.readByte();
+            case CHAR:
+                return (char) r.readVarInt();
+            case FLOAT:
+                return Float.intBitsToFloat(r.readInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(r.readLong());
+            case STRING:
+                return r.readString();
+            case DATE:
+                return new Date(unzigzag(r.readVarLong()));
+            case BIG_DECIMAL:
+                return new BigDecimal(r.readString());
+            case BIG_INTEGER:
+                return new BigInteger(r.readString());
+            case ENUM:
+                return readEnum(this.readClass(r), r.readString());
+            case BYTES: {
+                byte[] bytes = new byte[r.readVarInt()];
+                r.readBytes(bytes);
+                return bytes;
+            }
+            case ARRAY: {
+                Class<?> componentType = this.readClass(r);
+                int len = r.readVarInt();
+                Object array = Array.newInstance(componentType, len);
+                for (int i = 0; i < len; i++) {
+                    Array.set(array, i, this.read(r));
+                }
+                return array;
+            }
+            case COLLECTION: {
+                Class<?> c = this.readClass(r);
+                int size = r.readVarInt();
+                Collection<Object> collection = newCollection(c, size);
+                for (int i = 0; i < size; i++) {
+                    collection.add(this.read(r));
+                }
+                return collection;
+            }
+            case MAP: {
+                Class<?> c = this.readClass(r);
+                int size = r.readVarInt();
+                Map<Object, Object> map = newMap(c, size);
+                for (int i = 0; i < size; i++) {
+                    Object key = this.read(r);
+                    map.put(key, this.read(r));
+                }
+                return map;
+            }
+            case OBJECT: {
+                Class<?> c = this.readClass(r);
+                ClassInfo info = this.getClassInfo(c);
+                Field[] layout = r.layouts.get(c);
+                if (layout == null) {
+                    int count = r.readVarInt();
+                    layout = new Field[count];
+                    for (int i = 0; i < count; i++) {
+                        // unknown fields are read and dropped
+                        layout[i] = info.fieldsByName.get(r.readString());
+                    }
+                    r.layouts.put(c, layout);
+                }
+                if (info.constructor == null) {
+                    throw new IllegalStateException(c.getName()
+                            + " has no no-arg constructor");
+                }
+                Object o = info.constructor.newInstance();
+                for (Field field : layout) {
+                    Object value = this.read(r);
+                    if (field != null
+                            && (value != null || !field.getType().isPrimitive())) {
+                        field.set(o, value);
+                    }
+                }
+                return o;
+            }
+            default:
+                throw new IllegalStateException("Unknown compact tag " + tag);
+        }
+    }
+
+    private Class<?> readClass(Reader r) throws ClassNotFoundException {
+        int index = r.readVarInt();
+        if (index > 0) {
+            return r.classes.get(index - 1);
+        }
+        String name = r.readString();
+        Class<?> c = PRIMITIVES.get(name);
+        if (c == null) {
+            c = loadClass(name);
+        }
+        r.classes.add(c);
+        return c;
+    }
+
+    private ClassInfo getClassInfo(Class<?> c) {
+        ClassInfo info = this.classInfos.get(c);
+        if (info == null) {
+            info = new ClassInfo(c);
+            ClassInfo old = this.classInfos.putIfAbsent(c, info);
+            if (old != null) {
+                info = old;
+            }
+        }
+        return info;
+    }
+
+    private static boolean isJdkType(Class<?> c) {
+        String name = c.getName();
+        return name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(Class<?> c, String name) {
+        return Enum.valueOf((Class) c, name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> c, int size) {
+        try {
+            return (Collection<Object>) c.getConstructor().newInstance();
+        } catch (Exception e) {
+            // e.g. Arrays$ArrayList,Collections$UnmodifiableList
+        }
+        if (Set.class.isAssignableFrom(c)) {
+            return SortedSet.class.isAssignableFrom(c) ? new TreeSet<Object>()
+                    : new LinkedHashSet<Object>(size * 2);
+        }
+        if (Queue.class.isAssignableFrom(c) && !List.class.isAssignableFrom(c)) {
+            return new ArrayDeque<Object>(Math.max(size, 1));
+        }
+        return new ArrayList<Object>(size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> c, int size) {
+        try {
+            return (Map<Object, Object>) c.getConstructor().newInstance();
+        } catch (Exception e) {
+            // e.g. Collections$UnmodifiableMap
+        }
+        return SortedMap.class.isAssignableFrom(c) ? new TreeMap<Object, Object>()
+                : new LinkedHashMap<Object, Object>(size * 2);
+    }
+
+    private static Class<?> loadClass(String name) throws ClassNotFoundException {
+        try {
+            return Class.forName(name, false, CompactCodec.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            // When class is not found,try to load it from context class loader.
+            return Class.forName(name, false, Thread.currentThread()
+                    .getContextClassLoader());
+        }
+    }
+
+    private static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static int unzigzag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static long unzigzag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * Thrown when an object graph can't be encoded by this codec
+     */
+    public static class UnsupportedTypeException extends RuntimeException {
+        private static final long serialVersionUID = -3484733342932305485L;
+
+        public UnsupportedTypeException(String msg) {
+            super(msg);
+        }
+    }
+
+    private static final class ClassInfo {
+        final Field[] fields;
+        final Map<String, Field> fieldsByName = new HashMap<String, Field>();
+        final Constructor<?> constructor;
+
+        ClassInfo(Class<?> c) {
+            List<Field> list = new ArrayList<Field>();
+            List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+            for (Class<?> t = c; t != null && t != Object.class; t = t
+                    .getSuperclass()) {
+                hierarchy.add(0, t);
+            }
+            for (Class<?> t : hierarchy) {
+                Field[] declared = t.getDeclaredFields();
+                Arrays.sort(declared, new Comparator<Field>() {
+                    public int compare(Field f1, Field f2) {
+                        return f1.getName().compareTo(f2.getName());
+                    }
+                });
+                for (Field field : declared) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers)
+                            || Modifier.isTransient(modifiers)
+                            || field.isSynthetic()) {
+                        continue;
+                    }
+                    if (this.fieldsByName.containsKey(field.getName())) {
+                        // shadowed field,can't be told apart by name
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    list.add(field);
+                    this.fieldsByName.put(field.getName(), field);
+                }
+            }
+            this.fields = list.toArray(new Field[list.size()]);
+            Constructor<?> ctor = null;
+            if (!c.isInterface() && !Modifier.isAbstract(c.getModifiers())
+                    && (c.getEnclosingClass() == null || Modifier
+                    .isStatic(c.getModifiers()))) {
+                try {
+                    ctor = c.getDeclaredConstructor();
+                    ctor.setAccessible(true);
+                } catch (Exception e) {
+                    ctor = null;
+                }
+            }
+            this.constructor = ctor;
+        }
+    }
+
+    /**
+     * Per thread reusable output buffer and per entry class table
+     */
+    private static final class Writer {
+        byte[] buf = new byte[256];
+        int pos;
+        boolean inUse;
+        final IdentityHashMap<Class<?>, Integer> classIds = new IdentityHashMap<Class<?>, Integer>();
+        final Set<Class<?>> described = Collections
+                .newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        final IdentityHashMap<Object, Boolean> path = new IdentityHashMap<Object, Boolean>();
+
+        void reset(List<Class<?>> registered) {
+            this.pos = 0;
+            this.classIds.clear();
+            this.described.clear();
+            this.path.clear();
+            for (Class<?> c : registered) {
+                this.classIds.put(c, this.classIds.size());
+            }
+        }
+
+        void enter(Object o) {
+            if (this.path.put(o, Boolean.TRUE) != null) {
+                throw new UnsupportedTypeException("Cyclic reference of "
+                        + o.getClass().getName());
+            }
+        }
+
+        void exit(Object o) {
+            this.path.remove(o);
+        }
+
+        void ensure(int n) {
+            if (this.pos + n > this.buf.length) {
+                this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length * 2,
+                        this.pos + n));
+            }
+        }
+
+        void writeByte(int b) {
+            this.ensure(1);
+            this.buf[this.pos++] = (byte) b;
+        }
+
+        void writeBytes(byte[] b, int off, int len) {
+            this.ensure(len);
+            System.arraycopy(b, off, this.buf, this.pos, len);
+            this.pos += len;
+        }
+
+        void writeVarInt(int v) {
+            this.ensure(5);
+            while ((v & ~0x7F) != 0) {
+                this.buf[this.pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            this.buf[this.pos++] = (byte) v;
+        }
+
+        void writeVarLong(long v) {
+            this.ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                this.buf[this.pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            this.buf[this.pos++] = (byte) v;
+        }
+
+        void writeInt(int v) {
+            this.ensure(4);
+            this.buf[this.pos++] = (byte) (v >>> 24);
+            this.buf[this.pos++] = (byte) (v >>> 16);
+            this.buf[this.pos++] = (byte) (v >>> 8);
+            this.buf[this.pos++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            this.writeInt((int) (v >>> 32));
+            this.writeInt((int) v);
+        }
+
+        void writeString(String s) {
+            int len = s.length();
+            boolean ascii = true;
+            for (int i = 0; i < len; i++) {
+                if (s.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+            if (ascii) {
+                this.writeVarInt(len);
+                this.ensure(len);
+                for (int i = 0; i < len; i++) {
+                    this.buf[this.pos++] = (byte) s.charAt(i);
+                }
+            } else {
+                byte[] bytes = s.getBytes(UTF_8);
+                this.writeVarInt(bytes.length);
+                this.writeBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.buf, this.pos);
+        }
+    }
+
+    private static final class Reader {
+        final byte[] data;
+        int pos;
+        final List<Class<?>> classes;
+        final Map<Class<?>, Field[]> layouts = new IdentityHashMap<Class<?>, Field[]>();
+
+        Reader(byte[] data, List<Class<?>> registered) {
+            this.data = data;
+            this.classes = new ArrayList<Class<?>>(registered);
+        }
+
+        byte readByte() {
+            return this.data[this.pos++];
+        }
+
+        void readBytes(byte[] b) {
+            System.arraycopy(this.data, this.pos, b, 0, b.length);
+            this.pos += b.length;
+        }
+
+        int readVarInt() {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = this.data[this.pos++];
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = this.data[this.pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("Malformed varlong");
+        }
+
+        int readInt() {
+            return ((this.data[this.pos++] & 0xFF) << 24)
+                    | ((this.data[this.pos++] & 0xFF) << 16)
+                    | ((this.data[this.pos++] & 0xFF) << 8)
+                    | (this.data[this.pos++] & 0xFF);
+        }
+
+        long readLong() {
+            return ((long) this.readInt() << 32) | (this.readInt() & 0xFFFFFFFFL);
+        }
+
+        String readString() {
+            int len = this.readVarInt();
+            String s = new String(this.data, this.pos, len, UTF_8);
+            this.pos += len;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.ouyang.xmemcached.transcoders;
+
+import java.util.Date;
+
+/**
+ * Transcoder that writes objects with {@link CompactCodec} instead of java
+ * serialization.
+ * <p>
+ * Strings,primitives,dates and byte arrays are encoded exactly as
+ * {@link SerializingTranscoder} does, so counters and values shared with other
+ * clients keep working. Other objects are written with the compact codec and
+ * marked with the {@link #COMPACT} flag; objects the codec can't handle fall
+ * back to java serialization. Entries without the {@link #COMPACT} flag are
+ * decoded by {@link SerializingTranscoder}, so values written before switching
+ * transcoder are still readable.
+ *
+ * @author ouyang
+ * @since 2026-10-18 09:10
+ */
+public class CompactTranscoder extends BaseSerializingTranscoder implements
+        Transcoder<Object> {
+
+    /**
+     * Value is encoded by {@link CompactCodec}
+     */
+    public static final int COMPACT = 4;
+
+    private final int maxSize;
+    private final SerializingTranscoder fallback;
+    private final CompactCodec codec = new CompactCodec();
+
+    public CompactTranscoder() {
+        this(CachedData.MAX_SIZE);
+    }
+
+    public CompactTranscoder(int max) {
+        this.maxSize = max;
+        this.fallback = new SerializingTranscoder(max);
+    }
+
+    /**
+     * Register classes which are written as a small index instead of their
+     * names.All clients sharing the cache must register the same classes in
+     * the same order.
+     *
+     * @param classes
+     */
+    public void register(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            this.codec.register(clazz);
+        }
+    }
+
+    public CompactCodec getCodec() {
+        return this.codec;
+    }
+
+    public final int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public final Object decode(CachedData d) {
+        Object obj = d.decodedObject;
+        if (obj != null) {
+            return obj;
+        }
+        if ((d.flag & COMPACT) == 0) {
+            return this.fallback.decode(d);
+        }
+        byte[] data = d.data;
+        if ((d.flag & SerializingTranscoder.COMPRESSED) != 0) {
+            data = decompress(data);
+        }
+        if (data == null) {
+            return null;
+        }
+        try {
+            obj = this.codec.decode(data);
+        } catch (Exception e) {
+            log.error("Caught exception decoding " + data.length
+                    + " bytes of compact data", e);
+            return null;
+        }
+        d.decodedObject = obj;
+        return obj;
+    }
+
+    public final CachedData encode(Object o) {
+        if (!isCompactCandidate(o)) {
+            return this.fallback.encode(o);
+        }
+        byte[] b;
+        try {
+            b = this.codec.encode(o);
+        } catch (CompactCodec.UnsupportedTypeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Fall back to java serialization for "
+                        + o.getClass().getName() + ":" + e.getMessage());
+            }
+            return this.fallback.encode(o);
+        }
+        int flags = COMPACT;
+        if (b.length > this.compressionThreshold) {
+            byte[] compressed = compress(b);
+            if (compressed.length < b.length) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Compressed " + o.getClass().getName() + " from "
+                            + b.length + " to " + compressed.length);
+                }
+                b = compressed;
+                flags |= SerializingTranscoder.COMPRESSED;
+            }
+        }
+        return new CachedData(flags, b, this.maxSize, -1);
+    }
+
+    /**
+     * Types handled specially by {@link SerializingTranscoder},including
+     * {@link Tombstone}
+     */
+    private static boolean isCompactCandidate(Object o) {
+        return !(o instanceof String || o instanceof Long
+                || o instanceof Integer || o instanceof Boolean
+                || o instanceof Date || o instanceof Byte
+                || o instanceof Float || o instanceof Double
+                || o instanceof byte[] || o instanceof Tombstone);
+    }
+
+    @Override
+    public void setCompressionThreshold(int to) {
+        super.setCompressionThreshold(to);
+        this.fallback.setCompressionThreshold(to);
+    }
+
+    @Override
+    public void setCompressionMode(CompressionMode compressMode) {
+        super.setCompressionMode(compressMode);
+        this.fallback.setCompressionMode(compressMode);
+    }
+
+    @Override
+    public void setCharset(String to) {
+        super.setCharset(to);
+        this.fallback.setCharset(to);
+    }
+
+    public boolean isPrimitiveAsString() {
+        return this.fallback.isPrimitiveAsString();
+    }
+
+    public void setPrimitiveAsString(boolean primitiveAsString) {
+        this.fallback.setPrimitiveAsString(primitiveAsString);
+    }
+
+    public boolean isPackZeros() {
+        return this.fallback.isPackZeros();
+    }
+
+    public void setPackZeros(boolean packZeros) {
+        this.fallback.setPackZeros(packZeros);
+    }
+}
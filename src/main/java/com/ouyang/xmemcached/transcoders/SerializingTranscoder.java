@@ -76,6 +76,9 @@ public class SerializingTranscoder extends BaseSerializingTranscoder implements
         if (obj != null) {
             return obj;
         }
+        if ((d.flag & CachedData.TOMBSTONE) != 0) {
+            return Tombstone.INSTANCE;
+        }
         byte[] data = d.data;
 
         int flags = d.flag;
@@ -146,6 +149,9 @@ public class SerializingTranscoder extends BaseSerializingTranscoder implements
      * @see net.spy.memcached.Transcoder#encode(java.lang.Object)
      */
     public final CachedData encode(Object o) {
+        if (o instanceof Tombstone) {
+            return new CachedData(CachedData.TOMBSTONE, new byte[0], this.maxSize, -1);
+        }
         byte[] b = null;
         int flags = 0;
         if (o instanceof String) {
@@ -0,0 +1,38 @@
+package com.ouyang.xmemcached.transcoders;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * Marker of a cached absent value.It is stored as an empty body with the
+ * {@link CachedData#TOMBSTONE} flag by {@link SerializingTranscoder} and
+ * {@link CompactTranscoder}.
+ * <p>
+ * Transcoders without the flag,as in earlier versions,decode it as an empty
+ * string,so it must only be written once every reader understands it.
+ *
+ * @author ouyang
+ * @since 2026-10-18 09:30
+ */
+public final class Tombstone implements Serializable {
+
+    private static final long serialVersionUID = -1839170402215468021L;
+
+    public static final Tombstone INSTANCE = new Tombstone();
+
+    private Tombstone() {
+    }
+
+    public static boolean isTombstone(Object o) {
+        return o instanceof Tombstone;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "Tombstone";
+    }
+}
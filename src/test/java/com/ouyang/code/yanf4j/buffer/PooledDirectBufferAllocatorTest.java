@@ -0,0 +1,131 @@
+package com.ouyang.code.yanf4j.buffer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PooledDirectBufferAllocator 的重复释放和全局安装
+ *
+ * @author ouyang
+ * @since 2026-10-18 11:00
+ */
+public class PooledDirectBufferAllocatorTest {
+
+    @After
+    public void tearDown() {
+        IoBuffer.setAllocator(new SimpleBufferAllocator());
+        IoBuffer.setUseDirectBuffer(false);
+    }
+
+    @Test
+    public void freedBufferIsReused() {
+        PooledDirectBufferAllocator allocator = new PooledDirectBufferAllocator();
+        IoBuffer buffer = allocator.allocate(100, true);
+        assertEquals(100, buffer.capacity());
+        assertTrue(buffer.isDirect());
+        buffer.free();
+        assertEquals(128, allocator.getPooledBytes());
+        allocator.allocate(120, true);
+        assertEquals(0, allocator.getPooledBytes());
+    }
+
+    @Test
+    public void secondFreeIsIgnored() {
+        PooledDirectBufferAllocator allocator = new PooledDirectBufferAllocator();
+        IoBuffer buffer = allocator.allocate(100, true);
+        buffer.free();
+        buffer.free();
+        assertEquals(128, allocator.getPooledBytes());
+        IoBuffer first = allocator.allocate(100, true);
+        IoBuffer second = allocator.allocate(100, true);
+        first.put(0, (byte) 1);
+        second.put(0, (byte) 2);
+        assertEquals(1, first.get(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void freedBufferCanNotBeUsed() {
+        IoBuffer buffer = new PooledDirectBufferAllocator().allocate(100, true);
+        buffer.free();
+        buffer.get(0);
+    }
+
+    @Test
+    public void concurrentFreeReturnsTheChunkOnce() throws Exception {
+        final PooledDirectBufferAllocator allocator = new PooledDirectBufferAllocator(10000, 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 5000; i++) {
+                final IoBuffer buffer = allocator.allocate(100, true);
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                Callable<Void> free = new Callable<Void>() {
+                    public Void call() throws Exception {
+                        barrier.await();
+                        buffer.free();
+                        return null;
+                    }
+                };
+                Future<Void> first = executor.submit(free);
+                Future<Void> second = executor.submit(free);
+                first.get();
+                second.get();
+                // 每次只有一块空闲，重复归还会让空闲块增加
+                assertEquals(128, allocator.getPooledBytes());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void derivedAndLargeBuffersAreNotPooled() {
+        PooledDirectBufferAllocator allocator = new PooledDirectBufferAllocator(16, 1024);
+        IoBuffer buffer = allocator.allocate(100, true);
+        buffer.duplicate().free();
+        buffer.slice().free();
+        assertEquals(0, allocator.getPooledBytes());
+        allocator.allocate(4096, true).free();
+        allocator.allocate(100, false).free();
+        assertEquals(0, allocator.getPooledBytes());
+        buffer.free();
+        assertEquals(128, allocator.getPooledBytes());
+    }
+
+    @Test
+    public void installIsCountedAndRestoresTheDefault() {
+        assertTrue(PooledDirectBufferAllocator.install());
+        IoBufferAllocator installed = IoBuffer.getAllocator();
+        assertTrue(installed instanceof PooledDirectBufferAllocator);
+        assertTrue(IoBuffer.isUseDirectBuffer());
+        assertTrue(PooledDirectBufferAllocator.install());
+        assertSame(installed, IoBuffer.getAllocator());
+
+        PooledDirectBufferAllocator.uninstall();
+        assertSame(installed, IoBuffer.getAllocator());
+        PooledDirectBufferAllocator.uninstall();
+        assertSame(SimpleBufferAllocator.class, IoBuffer.getAllocator().getClass());
+        assertFalse(IoBuffer.isUseDirectBuffer());
+    }
+
+    @Test
+    public void installKeepsTheApplicationAllocator() {
+        IoBufferAllocator allocator = new CachedBufferAllocator();
+        IoBuffer.setAllocator(allocator);
+        assertFalse(PooledDirectBufferAllocator.install());
+        assertSame(allocator, IoBuffer.getAllocator());
+        PooledDirectBufferAllocator.uninstall();
+        assertSame(allocator, IoBuffer.getAllocator());
+        assertFalse(IoBuffer.isUseDirectBuffer());
+    }
+}
@@ -0,0 +1,149 @@
+package com.ouyang.code.yanf4j.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * HashedWheelTimer 超时跨越多圈时的触发和取消
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:25
+ */
+public class HashedWheelTimerTest {
+
+    // 8 格 每格 10 毫秒，一圈 80 毫秒
+    private static final long TICK_MILLS = 10;
+    private static final int TICKS = 8;
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer("test-timer", TICK_MILLS, TICKS);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void expiresAfterSeveralRounds() throws Exception {
+        final long delay = 3 * TICK_MILLS * TICKS + 15;
+        final CountDownLatch fired = new CountDownLatch(1);
+        final AtomicLong elapsed = new AtomicLong();
+        final long start = System.nanoTime();
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(new Runnable() {
+            public void run() {
+                elapsed.set(System.nanoTime() - start);
+                fired.countDown();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.isExpired());
+        assertTrue("fired after " + elapsed.get() + "ns",
+                elapsed.get() >= TimeUnit.MILLISECONDS.toNanos(delay));
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void cancelledAcrossRoundsNeverRuns() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable task = new Runnable() {
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        List<HashedWheelTimer.Timeout> timeouts = new ArrayList<HashedWheelTimer.Timeout>();
+        for (int round = 0; round < 4; round++) {
+            for (int tick = 0; tick < TICKS; tick++) {
+                long delay = 2 * TICK_MILLS + round * TICK_MILLS * TICKS + tick * TICK_MILLS;
+                timeouts.add(timer.newTimeout(task, delay, TimeUnit.MILLISECONDS));
+            }
+        }
+        // 部分在放入时间轮之前取消，部分在之后
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            assertTrue(timeouts.get(i).cancel());
+        }
+        Thread.sleep(3 * TICK_MILLS);
+        for (int i = 1; i < timeouts.size(); i += 2) {
+            HashedWheelTimer.Timeout timeout = timeouts.get(i);
+            if (!timeout.isExpired()) {
+                assertTrue(timeout.cancel());
+            }
+        }
+        int expiredBeforeCancel = 0;
+        for (HashedWheelTimer.Timeout timeout : timeouts) {
+            if (timeout.isExpired()) {
+                expiredBeforeCancel++;
+            }
+        }
+        Thread.sleep(6 * TICK_MILLS * TICKS);
+        assertEquals(expiredBeforeCancel, runs.get());
+        for (HashedWheelTimer.Timeout timeout : timeouts) {
+            assertTrue(timeout.isCancelled() || timeout.isExpired());
+            assertFalse(timeout.cancel());
+        }
+    }
+
+    @Test
+    public void neverFiresEarly() throws Exception {
+        final int count = 500;
+        final CountDownLatch fired = new CountDownLatch(count);
+        final AtomicInteger early = new AtomicInteger();
+        Random random = new Random(7);
+        for (int i = 0; i < count; i++) {
+            final long delay = random.nextInt((int) (4 * TICK_MILLS * TICKS));
+            final long start = System.nanoTime();
+            timer.newTimeout(new Runnable() {
+                public void run() {
+                    if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                        early.incrementAndGet();
+                    }
+                    fired.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+    }
+
+    @Test
+    public void taskExceptionDoesNotStopTheWorker() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(1);
+        timer.newTimeout(new Runnable() {
+            public void run() {
+                throw new IllegalStateException("expected");
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        timer.newTimeout(new Runnable() {
+            public void run() {
+                fired.countDown();
+            }
+        }, TICK_MILLS * TICKS, TimeUnit.MILLISECONDS);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsTimeoutsAfterStop() {
+        timer.stop();
+        timer.newTimeout(new Runnable() {
+            public void run() {
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,162 @@
+package com.ouyang.xmemcached;
+
+import com.ouyang.xmemcached.command.TextCommandFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 同一个 key 并发 cas 时合并 gets 和 cas
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:50
+ */
+public class CasCombiningTest {
+
+    private static final int THREADS = 16;
+    private static final int INCREMENTS = 100;
+
+    private FakeMemcachedServer server;
+    private ExecutorService executor;
+
+    private static final CASOperation<Integer> INCREMENT = new CASOperation<Integer>() {
+        public int getMaxTries() {
+            return Integer.MAX_VALUE;
+        }
+
+        public Integer getNewValue(long currentCAS, Integer currentValue) {
+            return currentValue + 1;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeMemcachedServer();
+        executor = Executors.newFixedThreadPool(2 * THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private MemcachedClient newClient(boolean casCombining) throws Exception {
+        XMemcachedClientBuilder builder = new XMemcachedClientBuilder(server.getAddress());
+        builder.setCommandFactory(new TextCommandFactory());
+        builder.setOpTimeout(5000);
+        MemcachedClient client = builder.build();
+        client.setCasCombining(casCombining);
+        client.setCasBackoff(1, 5);
+        return client;
+    }
+
+    private List<Future<Integer>> increment(final MemcachedClient client, final String key,
+                                            final CountDownLatch start) {
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    start.await();
+                    int applied = 0;
+                    for (int j = 0; j < INCREMENTS; j++) {
+                        if (client.cas(key, 0, INCREMENT)) {
+                            applied++;
+                        }
+                    }
+                    return applied;
+                }
+            }));
+        }
+        return futures;
+    }
+
+    private static int sum(List<Future<Integer>> futures) throws Exception {
+        int sum = 0;
+        for (Future<Integer> future : futures) {
+            sum += future.get(60, TimeUnit.SECONDS);
+        }
+        return sum;
+    }
+
+    @Test
+    public void combinedIncrementsAreAllApplied() throws Exception {
+        MemcachedClient client = newClient(true);
+        try {
+            client.set("counter", 0, 0);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = increment(client, "counter", start);
+            start.countDown();
+
+            assertEquals(THREADS * INCREMENTS, sum(futures));
+            assertEquals(Integer.valueOf(THREADS * INCREMENTS), client.get("counter"));
+            // 合并后 cas 次数少于操作次数
+            assertTrue("cas sent " + server.count("cas"), server.count("cas") < THREADS * INCREMENTS);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void combinedIncrementsSurviveConflictingWriters() throws Exception {
+        MemcachedClient combined = newClient(true);
+        MemcachedClient plain = newClient(false);
+        try {
+            combined.set("counter", 0, 0);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> combinedFutures = increment(combined, "counter", start);
+            List<Future<Integer>> plainFutures = increment(plain, "counter", start);
+            start.countDown();
+
+            assertEquals(THREADS * INCREMENTS, sum(combinedFutures));
+            assertEquals(THREADS * INCREMENTS, sum(plainFutures));
+            assertEquals(Integer.valueOf(2 * THREADS * INCREMENTS), combined.get("counter"));
+        } finally {
+            combined.shutdown();
+            plain.shutdown();
+        }
+    }
+
+    @Test
+    public void operationsOfAFailedBatchAreNotApplied() throws Exception {
+        MemcachedClient client = newClient(true);
+        try {
+            // key 不存在，gets 没有结果，所有合并的操作都失败
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        start.await();
+                        try {
+                            client.cas("missing", 0, INCREMENT);
+                            return 0;
+                        } catch (Exception e) {
+                            return 1;
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            sum(futures);
+            assertEquals(0, server.count("cas"));
+            Object missing = client.get("missing");
+            assertNull(missing);
+        } finally {
+            client.shutdown();
+        }
+    }
+}
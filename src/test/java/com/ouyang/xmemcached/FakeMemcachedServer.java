@@ -0,0 +1,248 @@
+package com.ouyang.xmemcached;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的 memcached 文本协议服务端，支持 set、get、gets、cas、delete、version、quit
+ * 记录每种命令的次数，可以暂停读取请求让客户端的写缓冲堆积
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:45
+ */
+public class FakeMemcachedServer implements Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Item> items = new ConcurrentHashMap<String, Item>();
+    private final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<Socket>();
+    private final AtomicInteger nextUnique = new AtomicInteger();
+    private final Object pauseLock = new Object();
+    private volatile boolean paused;
+    private volatile boolean closed;
+
+    public FakeMemcachedServer() throws IOException {
+        this(0);
+    }
+
+    /**
+     * @param receiveBufferSize 连接的接收缓冲大小，0 使用默认值
+     */
+    public FakeMemcachedServer(int receiveBufferSize) throws IOException {
+        serverSocket = new ServerSocket();
+        if (receiveBufferSize > 0) {
+            serverSocket.setReceiveBufferSize(receiveBufferSize);
+        }
+        serverSocket.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        Thread acceptor = new Thread("fake-memcached-acceptor") {
+            @Override
+            public void run() {
+                accept();
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getAddress() {
+        return "127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public int count(String command) {
+        AtomicInteger count = counts.get(command);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 暂停处理请求，直到 resume，服务端不再读取，请求堆积在 socket 缓冲中
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        synchronized (pauseLock) {
+            paused = false;
+            pauseLock.notifyAll();
+        }
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        resume();
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            sockets.add(socket);
+            Thread worker = new Thread("fake-memcached-worker") {
+                @Override
+                public void run() {
+                    try {
+                        serve(socket);
+                    } catch (IOException e) {
+                        // closed by the client or by close()
+                    } finally {
+                        sockets.remove(socket);
+                        try {
+                            socket.close();
+                        } catch (IOException e) {
+                            // ignore
+                        }
+                    }
+                }
+            };
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void awaitResume() throws IOException {
+        synchronized (pauseLock) {
+            while (paused) {
+                try {
+                    pauseLock.wait();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        InputStream in = new BufferedInputStream(socket.getInputStream(), 1024);
+        OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+        while (true) {
+            String line = readLine(in);
+            if (line == null) {
+                return;
+            }
+            // 暂停时已读到的命令也等到恢复后再处理
+            awaitResume();
+            String[] parts = line.split(" ");
+            String command = parts[0];
+            counts.putIfAbsent(command, new AtomicInteger());
+            counts.get(command).incrementAndGet();
+            boolean noreply = "noreply".equals(parts[parts.length - 1]);
+            String response;
+            if ("set".equals(command) || "cas".equals(command)) {
+                byte[] data = readData(in, Integer.parseInt(parts[4]));
+                response = store(parts, data);
+            } else if ("get".equals(command) || "gets".equals(command)) {
+                for (int i = 1; i < parts.length; i++) {
+                    Item item = items.get(parts[i]);
+                    if (item != null) {
+                        String header = "VALUE " + parts[i] + " " + item.flags + " " + item.data.length
+                                + ("gets".equals(command) ? " " + item.unique : "") + "\r\n";
+                        out.write(header.getBytes(UTF_8));
+                        out.write(item.data);
+                        out.write("\r\n".getBytes(UTF_8));
+                    }
+                }
+                response = "END\r\n";
+            } else if ("delete".equals(command)) {
+                response = items.remove(parts[1]) != null ? "DELETED\r\n" : "NOT_FOUND\r\n";
+            } else if ("quit".equals(command)) {
+                return;
+            } else if ("version".equals(command)) {
+                response = "VERSION 1.6.0\r\n";
+            } else {
+                response = "ERROR\r\n";
+            }
+            if (!noreply) {
+                out.write(response.getBytes(UTF_8));
+            }
+            if (in.available() == 0) {
+                out.flush();
+            }
+        }
+    }
+
+    private String store(String[] parts, byte[] data) {
+        String key = parts[1];
+        Item item = new Item(Integer.parseInt(parts[2]), data, nextUnique.incrementAndGet());
+        synchronized (items) {
+            if ("set".equals(parts[0])) {
+                items.put(key, item);
+                return "STORED\r\n";
+            }
+            long unique = Long.parseLong(parts[5]);
+            Item current = items.get(key);
+            if (current == null) {
+                return "NOT_FOUND\r\n";
+            }
+            if (current.unique != unique) {
+                return "EXISTS\r\n";
+            }
+            items.put(key, item);
+            return "STORED\r\n";
+        }
+    }
+
+    private static byte[] readData(InputStream in, int length) throws IOException {
+        byte[] data = new byte[length + 2];
+        int read = 0;
+        while (read < data.length) {
+            int n = in.read(data, read, data.length - read);
+            if (n < 0) {
+                throw new IOException("closed");
+            }
+            read += n;
+        }
+        byte[] value = new byte[length];
+        System.arraycopy(data, 0, value, 0, length);
+        return value;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\r') {
+                in.read();
+                return sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return null;
+    }
+
+    private static final class Item {
+        final int flags;
+        final byte[] data;
+        final long unique;
+
+        Item(int flags, byte[] data, long unique) {
+            this.flags = flags;
+            this.data = data;
+            this.unique = unique;
+        }
+    }
+}
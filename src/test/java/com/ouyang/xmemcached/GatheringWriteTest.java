@@ -0,0 +1,150 @@
+package com.ouyang.xmemcached;
+
+import com.ouyang.code.yanf4j.core.impl.StandardSocketOption;
+import com.ouyang.xmemcached.command.TextCommandFactory;
+import com.ouyang.xmemcached.transcoders.StringTranscoder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 服务端暂停读取时写缓冲堆积，命令被部分写出、批量写出或在批量中超时，
+ * 恢复后每个响应仍然对应自己的命令
+ *
+ * @author ouyang
+ * @since 2026-10-18 11:10
+ */
+public class GatheringWriteTest {
+
+    private static final int SOCKET_BUFFER_SIZE = 4096;
+    private static final StringTranscoder TRANSCODER = new StringTranscoder();
+
+    private FakeMemcachedServer server;
+    private XMemcachedClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeMemcachedServer(SOCKET_BUFFER_SIZE);
+        XMemcachedClientBuilder builder = new XMemcachedClientBuilder(server.getAddress());
+        builder.setCommandFactory(new TextCommandFactory());
+        builder.setSocketOption(StandardSocketOption.SO_SNDBUF, SOCKET_BUFFER_SIZE);
+        builder.setOpTimeout(5000);
+        client = (XMemcachedClient) builder.build();
+        // 不合并命令，连续的命令都经过批量写出
+        client.setOptimizeGet(false);
+        client.setOptimizeMergeBuffer(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.resume();
+        client.shutdown();
+        server.close();
+    }
+
+    private static String value(String key, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(key).append('-');
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    private void assertStored(String key, String value) throws Exception {
+        assertEquals(key, value, client.get(key, 5000, TRANSCODER));
+    }
+
+    @Test
+    public void partiallyWrittenValueIsCompletedAfterQueuedCommands() throws Exception {
+        server.pause();
+        String big = value("big", 300 * 1024);
+        CompletableFuture<Boolean> bigSet = client.setAsync("big", 0, big, TRANSCODER, 10000);
+        List<CompletableFuture<Boolean>> smallSets = new ArrayList<CompletableFuture<Boolean>>();
+        for (int i = 0; i < 200; i++) {
+            smallSets.add(client.setAsync("small" + i, 0, value("small" + i, 100), TRANSCODER, 10000));
+        }
+        Thread.sleep(200);
+        assertTrue(!bigSet.isDone());
+        server.resume();
+
+        assertTrue(bigSet.get(10, TimeUnit.SECONDS));
+        for (CompletableFuture<Boolean> smallSet : smallSets) {
+            assertTrue(smallSet.get(10, TimeUnit.SECONDS));
+        }
+        assertStored("big", big);
+        for (int i = 0; i < 200; i++) {
+            assertStored("small" + i, value("small" + i, 100));
+        }
+    }
+
+    @Test
+    public void partiallyWrittenGatherKeepsResponsesInOrder() throws Exception {
+        server.pause();
+        // 远超两端的 socket 缓冲，批量写出会停在某个命令的中间
+        List<CompletableFuture<Boolean>> sets = new ArrayList<CompletableFuture<Boolean>>();
+        for (int i = 0; i < 2000; i++) {
+            sets.add(client.setAsync("key" + i, 0, value("key" + i, 1000 + i % 37), TRANSCODER, 10000));
+        }
+        List<CompletableFuture<String>> gets = new ArrayList<CompletableFuture<String>>();
+        for (int i = 0; i < 2000; i += 10) {
+            gets.add(client.getAsync("key" + i, 10000, TRANSCODER));
+        }
+        Thread.sleep(200);
+        server.resume();
+
+        for (CompletableFuture<Boolean> set : sets) {
+            assertTrue(set.get(10, TimeUnit.SECONDS));
+        }
+        for (int i = 0; i < gets.size(); i++) {
+            int key = 10 * i;
+            assertEquals(value("key" + key, 1000 + key % 37), gets.get(i).get(10, TimeUnit.SECONDS));
+        }
+        for (int i = 0; i < 2000; i += 7) {
+            assertStored("key" + i, value("key" + i, 1000 + i % 37));
+        }
+    }
+
+    @Test
+    public void commandsExpiredWhileGatheredDoNotShiftResponses() throws Exception {
+        server.pause();
+        List<CompletableFuture<Boolean>> sets = new ArrayList<CompletableFuture<Boolean>>();
+        for (int i = 0; i < 500; i++) {
+            sets.add(client.setAsync("late" + i, 0, value("late" + i, 1000), TRANSCODER, 100));
+        }
+        for (CompletableFuture<Boolean> set : sets) {
+            try {
+                set.get(10, TimeUnit.SECONDS);
+                fail("the server is paused");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().toString(), e.getCause() instanceof TimeoutException);
+            }
+        }
+        server.resume();
+
+        // 已写出或已批量取出的命令仍会收到响应，之后的命令不能读到它们的响应
+        for (int i = 0; i < 100; i++) {
+            String key = "fresh" + i;
+            assertTrue(client.set(key, 0, value(key, 10 + i), TRANSCODER));
+            assertStored(key, value(key, 10 + i));
+        }
+        for (int i = 0; i < 500; i++) {
+            String stored = client.get("late" + i, 5000, TRANSCODER);
+            assertTrue(stored, stored == null || stored.equals(value("late" + i, 1000)));
+        }
+        assertEquals(Arrays.asList(true, true), Arrays.asList(
+                client.set("after", 0, "a", TRANSCODER), "a".equals(client.get("after", 5000, TRANSCODER))));
+    }
+}
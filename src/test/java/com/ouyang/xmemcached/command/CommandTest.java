@@ -0,0 +1,186 @@
+package com.ouyang.xmemcached.command;
+
+import com.ouyang.code.yanf4j.util.HashedWheelTimer;
+import com.ouyang.xmemcached.command.text.TextGetOneCommand;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Command 的完成、超时与等待
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:20
+ */
+public class CommandTest {
+
+    static Command newCommand() {
+        return new TextGetOneCommand("a", new byte[]{'a'}, CommandType.GET_ONE, null);
+    }
+
+    @Test
+    public void awaitReturnsAtOnceWhenDone() throws Exception {
+        Command command = newCommand();
+        command.countDownLatch();
+        assertTrue(command.isDone());
+        assertEquals(OperationStatus.DONE, command.getStatus());
+        assertTrue(command.await(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void awaitTimesOut() throws Exception {
+        Command command = newCommand();
+        long start = System.nanoTime();
+        assertFalse(command.await(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertFalse(command.isDone());
+    }
+
+    @Test
+    public void awaitIsWokenUpByCompletion() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            final Command command = newCommand();
+            Thread completer = new Thread() {
+                @Override
+                public void run() {
+                    command.countDownLatch();
+                }
+            };
+            completer.start();
+            assertTrue(command.await(5, TimeUnit.SECONDS));
+            completer.join();
+        }
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void awaitIsInterruptible() throws Exception {
+        Thread.currentThread().interrupt();
+        newCommand().await(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void completesOnlyOnce() {
+        final AtomicInteger completions = new AtomicInteger();
+        Command command = newCommand();
+        command.setCompletionListener(new Command.CompletionListener() {
+            public void onComplete(Command command) {
+                completions.incrementAndGet();
+            }
+        });
+        command.countDownLatch();
+        command.countDownLatch();
+        assertEquals(1, completions.get());
+    }
+
+    @Test
+    public void latchCompletesWhenItReachesZero() throws Exception {
+        Command command = new TextGetOneCommand("a", new byte[]{'a'}, CommandType.GET_ONE,
+                new CountDownLatch(2));
+        command.countDownLatch();
+        assertFalse(command.isDone());
+        assertFalse(command.await(10, TimeUnit.MILLISECONDS));
+        command.countDownLatch();
+        assertTrue(command.isDone());
+        assertTrue(command.await(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void expireAfterCompletionDoesNothing() {
+        Command command = newCommand();
+        command.countDownLatch();
+        assertFalse(command.expire(new TimeoutException()));
+        assertNull(command.getException());
+        assertFalse(command.isCancel());
+        assertEquals(OperationStatus.DONE, command.getStatus());
+    }
+
+    @Test
+    public void completionAfterExpireIsIgnored() throws Exception {
+        Command command = newCommand();
+        TimeoutException e = new TimeoutException();
+        assertTrue(command.expire(e));
+        assertTrue(command.isDone());
+        assertTrue(command.isCancel());
+        assertTrue(command.await(0, TimeUnit.MILLISECONDS));
+        command.countDownLatch();
+        assertSame(e, command.getException());
+        assertEquals(OperationStatus.SENDING, command.getStatus());
+    }
+
+    @Test
+    public void commandWithLatchCanNotExpire() {
+        Command command = new TextGetOneCommand("a", new byte[]{'a'}, CommandType.GET_ONE,
+                new CountDownLatch(1));
+        assertFalse(command.expire(new TimeoutException()));
+        assertFalse(command.isDone());
+    }
+
+    @Test
+    public void completionCancelsTheTimeout() {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8);
+        try {
+            final Command command = newCommand();
+            HashedWheelTimer.Timeout timeout = timer.newTimeout(new Runnable() {
+                public void run() {
+                    command.expire(new TimeoutException());
+                }
+            }, 1, TimeUnit.MINUTES);
+            command.setTimeoutHandle(timeout);
+            command.countDownLatch();
+            assertTrue(timeout.isCancelled());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void completeAndExpireRace() throws Exception {
+        for (int i = 0; i < 2000; i++) {
+            final Command command = newCommand();
+            final AtomicInteger completions = new AtomicInteger();
+            command.setCompletionListener(new Command.CompletionListener() {
+                public void onComplete(Command command) {
+                    completions.incrementAndGet();
+                }
+            });
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final AtomicBoolean expired = new AtomicBoolean();
+            Thread expirer = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                    } catch (Exception e) {
+                        return;
+                    }
+                    expired.set(command.expire(new TimeoutException()));
+                }
+            };
+            expirer.start();
+            barrier.await();
+            command.countDownLatch();
+            expirer.join();
+
+            assertTrue(command.await(0, TimeUnit.MILLISECONDS));
+            assertEquals(1, completions.get());
+            if (expired.get()) {
+                assertTrue(command.getException() instanceof TimeoutException);
+                assertTrue(command.isCancel());
+            } else {
+                assertNull(command.getException());
+                assertEquals(OperationStatus.DONE, command.getStatus());
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ouyang.xmemcached.command;
+
+import com.ouyang.code.yanf4j.buffer.IoBuffer;
+import com.ouyang.xmemcached.command.text.TextGetOneCommand;
+import com.ouyang.xmemcached.impl.MemcachedHandler;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PipelineCommand 拆开后命令的注册顺序与写出内容
+ *
+ * @author ouyang
+ * @since 2026-10-18 10:35
+ */
+public class PipelineCommandTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static List<Command> commands(String... keys) {
+        List<Command> commands = new ArrayList<Command>();
+        for (String key : keys) {
+            commands.add(new TextGetOneCommand(key, key.getBytes(UTF_8), CommandType.GET_ONE, null));
+        }
+        return commands;
+    }
+
+    private static String content(IoBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.buf().duplicate().get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @Test
+    public void unpackRegistersInOrderAndWritesWithTheLast() {
+        List<Command> commands = commands("a", "b", "c", "d");
+        StringBuilder expected = new StringBuilder();
+        for (Command command : commands) {
+            command.encode();
+            expected.append(content(command.getIoBuffer()));
+            command.setIoBuffer(null);
+        }
+        PipelineCommand pipeline = new PipelineCommand(commands);
+        Queue<Command> sent = new LinkedList<Command>();
+
+        Command last = pipeline.unpack(sent);
+
+        assertSame(commands.get(3), last);
+        assertEquals(commands.subList(0, 3), new ArrayList<Command>(sent));
+        assertSame(pipeline.getIoBuffer(), last.getIoBuffer());
+        assertEquals(expected.toString(), content(last.getIoBuffer()));
+        for (Command command : commands) {
+            assertEquals(OperationStatus.WRITING, command.getStatus());
+        }
+        for (Command command : commands.subList(0, 3)) {
+            assertSame(MemcachedHandler.EMPTY_BUF, command.getIoBuffer());
+        }
+    }
+
+    @Test
+    public void encodeKeepsCommandOrderAndIsDoneOnce() {
+        List<Command> commands = commands("x", "y", "z");
+        PipelineCommand pipeline = new PipelineCommand(commands);
+        pipeline.encode();
+        IoBuffer merged = pipeline.getIoBuffer();
+        pipeline.encode();
+        assertSame(merged, pipeline.getIoBuffer());
+        assertEquals("get x\r\nget y\r\nget z\r\n", content(merged));
+    }
+
+    @Test
+    public void carrierIsNotOptimized() {
+        assertEquals(OperationStatus.WRITING, new PipelineCommand(commands("a", "b")).getStatus());
+    }
+
+    @Test
+    public void singleCommandIsNotRegistered() {
+        List<Command> commands = commands("a");
+        Queue<Command> sent = new LinkedList<Command>();
+        Command last = new PipelineCommand(commands).unpack(sent);
+        assertSame(commands.get(0), last);
+        assertTrue(sent.isEmpty());
+        assertEquals("get a\r\n", content(last.getIoBuffer()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void carrierIsNeverDecoded() {
+        new PipelineCommand(commands("a")).decode(null, null);
+    }
+}